@@ -0,0 +1,6 @@
+#!/bin/bash -e
+
+JUDGMENT_SET_ID=${1:?"Usage: export-judgments.sh <judgment set ID>"}
+
+# Export a judgment set to a judgment file that can be given to a query set run as "judgments_file".
+java -jar ../target/search-evaluation-framework.jar -o http://localhost:9200 -e "${JUDGMENT_SET_ID}" -f "${JUDGMENT_SET_ID}.judgments"
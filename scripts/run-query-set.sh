@@ -2,3 +2,6 @@
 
 # Run a query set.
 java -jar ../target/search-evaluation-framework.jar -o http://localhost:9200 -r run-query-set.json
+
+# A run with a "checkpoint_dir" that fails can be resumed from its last checkpoint by its run ID.
+# java -jar ../target/search-evaluation-framework.jar -o http://localhost:9200 -r run-query-set.json -u <run id>
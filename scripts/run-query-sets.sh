@@ -0,0 +1,4 @@
+#!/bin/bash -e
+
+# Run a query set with each search configuration in a list.
+java -jar ../target/search-evaluation-framework.jar -o http://localhost:9200 -m run-query-sets.json
@@ -24,6 +24,7 @@ import org.opensearch.eval.judgments.clickmodel.ClickModel;
 import org.opensearch.eval.judgments.clickmodel.JudgmentParameters;
 import org.opensearch.eval.judgments.clickmodel.coec.CoecClickModel;
 import org.opensearch.eval.judgments.clickmodel.coec.CoecClickModelParameters;
+import org.opensearch.eval.judgments.lookup.JudgmentFileWriter;
 import org.opensearch.eval.model.TimeFilter;
 import org.opensearch.eval.model.dao.querysets.QuerySetRunParameters;
 import org.opensearch.eval.runners.OpenSearchQuerySetRunner;
@@ -39,6 +40,8 @@ import java.io.File;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Map;
 
 public class App {
@@ -67,11 +70,21 @@ public class App {
         options.addOption("c", "create-click-model", true, "create a click model");
         options.addOption("s", "create-query-set", true, "create a query set using sampling");
         options.addOption("r", "run-query-set", true, "run a query set");
+        options.addOption("m", "run-query-sets", true, "run a query set with each configuration in a list");
+        options.addOption("u", "resume", true, "resume the query set run with the given run ID from its checkpoint, only with -r; "
+                + "configurations run with -m are resumed with their resume_run_id parameter");
+        options.addOption("e", "export-judgments", true, "export a judgment set to a judgment file");
+        options.addOption("f", "judgments-file", true, "the judgment file to export to, defaults to <judgment set ID>.judgments");
         options.addOption("o", "opensearch", true, "OpenSearch URL, e.g. http://localhost:9200");
 
         final CommandLineParser parser = new DefaultParser();
         final CommandLine cmd = parser.parse(options, args);
 
+        if(cmd.hasOption("u") && !cmd.hasOption("r")) {
+            System.err.println("The resume option can only be used when running a query set with -r.");
+            return;
+        }
+
         final URI uri;
         if(cmd.hasOption("o")) {
             uri = URI.create(cmd.getOptionValue("o"));
@@ -123,16 +136,62 @@ public class App {
 
                 final QuerySetRunParameters querySetRunParameters = gson.fromJson(Files.readString(file.toPath(), StandardCharsets.UTF_8), QuerySetRunParameters.class);
 
+                if (cmd.hasOption("u")) {
+                    querySetRunParameters.setResumeRunId(cmd.getOptionValue("u"));
+                }
+
+                // The query results are indexed by the runner as the query set runs.
                 final OpenSearchQuerySetRunner openSearchQuerySetRunner = new OpenSearchQuerySetRunner(searchEngine);
                 final QuerySetRunResult querySetRunResult = openSearchQuerySetRunner.run(querySetRunParameters);
-                final long indexedCount = searchEngine.indexQueryRunResult(querySetRunResult);
 
-                System.out.println("Indexed " + indexedCount + " query run results.");
+                System.out.println("Indexed " + querySetRunResult.getQueryCount() + " query run results for run " + querySetRunResult.getRunId() + ".");
+
+            } else {
+                System.err.println("The query set run parameters file does not exist.");
+            }
+
+        } else if (cmd.hasOption("m")) {
+
+            System.out.println("Running query set configurations...");
+
+            final String querySetOptionsFile = cmd.getOptionValue("m");
+            final File file = new File(querySetOptionsFile);
+
+            if(file.exists()) {
+
+                final QuerySetRunParameters[] querySetRunParameters = gson.fromJson(Files.readString(file.toPath(), StandardCharsets.UTF_8), QuerySetRunParameters[].class);
+
+                // The query set and judgments are loaded once for all the configurations.
+                final OpenSearchQuerySetRunner openSearchQuerySetRunner = new OpenSearchQuerySetRunner(searchEngine);
+                final List<QuerySetRunResult> querySetRunResults = openSearchQuerySetRunner.run(List.of(querySetRunParameters));
+
+                for (int i = 0; i < querySetRunResults.size(); i++) {
+                    System.out.println("Indexed " + querySetRunResults.get(i).getQueryCount() + " query run results for search config "
+                            + querySetRunParameters[i].getSearchConfig() + " in run " + querySetRunResults.get(i).getRunId() + ".");
+                }
 
             } else {
                 System.err.println("The query set run parameters file does not exist.");
             }
 
+        } else if (cmd.hasOption("e")) {
+
+            final String judgmentSetId = cmd.getOptionValue("e");
+            final Path judgmentsFile = Path.of(cmd.hasOption("f") ? cmd.getOptionValue("f") : judgmentSetId + ".judgments");
+
+            System.out.println("Exporting judgment set " + judgmentSetId + "...");
+
+            // The writer is sized for the judgment set up front so it does not grow as the judgments are read.
+            final JudgmentFileWriter judgmentFileWriter = new JudgmentFileWriter(judgmentSetId, searchEngine.getJudgmentsCount(judgmentSetId));
+            searchEngine.forEachJudgment(judgmentSetId, judgment -> judgmentFileWriter.add(judgment.getUserQuery(), judgment.getDocument(), judgment.getJudgment()));
+
+            if (judgmentFileWriter.size() > 0) {
+                final long judgmentCount = judgmentFileWriter.write(judgmentsFile);
+                System.out.println("Exported " + judgmentCount + " judgments to " + judgmentsFile + ".");
+            } else {
+                System.err.println("There are no judgments with the judgment set ID " + judgmentSetId + ".");
+            }
+
         } else if (cmd.hasOption("s")) {
 
             final String samplerOptionsFile = cmd.getOptionValue("s");
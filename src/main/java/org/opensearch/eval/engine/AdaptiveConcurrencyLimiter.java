@@ -0,0 +1,268 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.engine;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of concurrent requests using additive increase, multiplicative decrease (AIMD).
+ * The limit grows by one for each limit's worth of successful requests while latency is healthy.
+ * The limit is cut when a request is rejected because the cluster is overloaded, or when the
+ * p95 latency of a window of requests rises well above the lowest p95 latency seen. Each type of
+ * request has its own latency window and baseline, since a bulk request is normally much slower
+ * than a search, and a change in the mix of requests is not a change in how busy the cluster is.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final Logger LOGGER = LogManager.getLogger(AdaptiveConcurrencyLimiter.class);
+
+    /**
+     * The default initial limit.
+     */
+    public static final int DEFAULT_INITIAL_LIMIT = 8;
+
+    /**
+     * The default min limit.
+     */
+    public static final int DEFAULT_MIN_LIMIT = 1;
+
+    /**
+     * The default max limit.
+     */
+    public static final int DEFAULT_MAX_LIMIT = 64;
+
+    /**
+     * The request type of requests released without one.
+     */
+    public static final String DEFAULT_REQUEST_TYPE = "request";
+
+    // The number of latency samples used to calculate each p95.
+    private static final int WINDOW_SIZE = 50;
+
+    // The factor the limit is multiplied by when backing off.
+    private static final double BACKOFF_RATIO = 0.5;
+
+    // How much the p95 latency can rise above the baseline before backing off.
+    private static final double LATENCY_TOLERANCE = 2.0;
+
+    private final int minLimit;
+    private final int maxLimit;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+
+    // Guarded by the lock.
+    private double limit;
+    private int inFlight = 0;
+    private final Map<String, LatencyWindow> latencyWindows = new HashMap<>();
+    private long releasesSinceDecrease = Long.MAX_VALUE;
+
+    /**
+     * Creates a new limiter with the default limits.
+     */
+    public AdaptiveConcurrencyLimiter() {
+        this(DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT);
+    }
+
+    /**
+     * Creates a new limiter.
+     * @param initialLimit The initial limit.
+     * @param minLimit The min limit.
+     * @param maxLimit The max limit.
+     */
+    public AdaptiveConcurrencyLimiter(final int initialLimit, final int minLimit, final int maxLimit) {
+
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("The limits must satisfy 1 <= min limit <= max limit.");
+        }
+
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+
+    }
+
+    /**
+     * Waits until a request can be sent without exceeding the limit.
+     * @throws InterruptedException Thrown if the thread is interrupted while waiting.
+     */
+    public void acquire() throws InterruptedException {
+
+        lock.lock();
+
+        try {
+
+            while (inFlight >= getLimit()) {
+                available.await();
+            }
+
+            inFlight++;
+
+        } finally {
+            lock.unlock();
+        }
+
+    }
+
+    /**
+     * Records the outcome of a request of the default type and adjusts the limit.
+     * @param latencyNanos The latency of the request in nanoseconds.
+     * @param overloaded <code>true</code> if the request was rejected because the cluster is overloaded.
+     */
+    public void release(final long latencyNanos, final boolean overloaded) {
+        release(DEFAULT_REQUEST_TYPE, latencyNanos, overloaded);
+    }
+
+    /**
+     * Records the outcome of a request and adjusts the limit.
+     * @param requestType The type of the request, e.g. its endpoint. Its latency is only compared to requests of the same type.
+     * @param latencyNanos The latency of the request in nanoseconds.
+     * @param overloaded <code>true</code> if the request was rejected because the cluster is overloaded.
+     */
+    public void release(final String requestType, final long latencyNanos, final boolean overloaded) {
+
+        lock.lock();
+
+        try {
+
+            inFlight--;
+
+            if (releasesSinceDecrease < Long.MAX_VALUE) {
+                releasesSinceDecrease++;
+            }
+
+            if (overloaded) {
+
+                // Requests sent before the last decrease may also be rejected, so only
+                // back off again once a limit's worth of requests have completed.
+                if (releasesSinceDecrease >= getLimit()) {
+                    decrease("request rejected");
+                }
+
+            } else {
+
+                final LatencyWindow latencyWindow = latencyWindows.computeIfAbsent(requestType, t -> new LatencyWindow());
+                latencyWindow.latencies[latencyWindow.count++] = latencyNanos;
+
+                if (latencyWindow.count == WINDOW_SIZE) {
+
+                    final long p95 = latencyWindow.getP95();
+                    latencyWindow.count = 0;
+
+                    if (p95 > latencyWindow.baselineP95 * LATENCY_TOLERANCE) {
+
+                        decrease(requestType + " p95 latency rose to " + (p95 / 1_000_000) + " ms");
+
+                        // Let the baseline drift up so a lasting change in latency does not keep the limit at the minimum.
+                        latencyWindow.baselineP95 = (latencyWindow.baselineP95 + p95) / 2;
+                        return;
+
+                    }
+
+                    latencyWindow.baselineP95 = Math.min(latencyWindow.baselineP95, p95);
+
+                }
+
+                // Additive increase: one more for each limit's worth of successful requests.
+                final int previousLimit = getLimit();
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+
+                if (getLimit() != previousLimit) {
+                    LOGGER.debug("Increased the concurrency limit to {}", getLimit());
+                }
+
+            }
+
+        } finally {
+            available.signalAll();
+            lock.unlock();
+        }
+
+    }
+
+    /**
+     * Gets the current limit.
+     * @return The current limit.
+     */
+    public int getLimit() {
+
+        lock.lock();
+
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+
+    }
+
+    /**
+     * Gets the number of requests in flight.
+     * @return The number of requests in flight.
+     */
+    public int getInFlight() {
+
+        lock.lock();
+
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+
+    }
+
+    private void decrease(final String reason) {
+
+        limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+
+        // Start new windows so the samples from before the decrease do not cause another.
+        for (final LatencyWindow latencyWindow : latencyWindows.values()) {
+            latencyWindow.count = 0;
+        }
+
+        releasesSinceDecrease = 0;
+
+        LOGGER.info("Decreased the concurrency limit to {}: {}", getLimit(), reason);
+
+    }
+
+    @Override
+    public String toString() {
+        return "limit: " + getLimit() + ", in flight: " + getInFlight();
+    }
+
+    /**
+     * The latencies of the latest requests of one type and the lowest p95 latency seen for the type.
+     */
+    private static final class LatencyWindow {
+
+        private final long[] latencies = new long[WINDOW_SIZE];
+        private int count = 0;
+        private long baselineP95 = Long.MAX_VALUE;
+
+        private long getP95() {
+
+            final long[] sorted = Arrays.copyOf(latencies, WINDOW_SIZE);
+            Arrays.sort(sorted);
+
+            return sorted[(int) Math.ceil(WINDOW_SIZE * 0.95) - 1];
+
+        }
+
+    }
+
+}
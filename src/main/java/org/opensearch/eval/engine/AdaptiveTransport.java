@@ -0,0 +1,218 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.engine;
+
+import org.opensearch.client.json.JsonpMapper;
+import org.opensearch.client.opensearch._types.ErrorCause;
+import org.opensearch.client.opensearch._types.OpenSearchException;
+import org.opensearch.client.opensearch.core.BulkResponse;
+import org.opensearch.client.opensearch.core.bulk.BulkResponseItem;
+import org.opensearch.client.opensearch.generic.OpenSearchClientException;
+import org.opensearch.client.opensearch.generic.Response;
+import org.opensearch.client.transport.Endpoint;
+import org.opensearch.client.transport.OpenSearchTransport;
+import org.opensearch.client.transport.TransportOptions;
+import org.opensearch.client.transport.httpclient5.ResponseException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * An {@link OpenSearchTransport} that limits the number of concurrent requests to OpenSearch
+ * with an {@link AdaptiveConcurrencyLimiter}. Every request sent through the transport,
+ * including requests from the generic client, counts toward the limit.
+ */
+public class AdaptiveTransport implements OpenSearchTransport {
+
+    // The HTTP status returned when OpenSearch is too busy to handle a request.
+    private static final int STATUS_TOO_MANY_REQUESTS = 429;
+
+    private static final String REJECTED_EXECUTION_EXCEPTION = "es_rejected_execution_exception";
+
+    private final OpenSearchTransport delegate;
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    /**
+     * Creates a new transport.
+     * @param delegate The {@link OpenSearchTransport} that sends the requests.
+     * @param limiter The {@link AdaptiveConcurrencyLimiter}.
+     */
+    public AdaptiveTransport(final OpenSearchTransport delegate, final AdaptiveConcurrencyLimiter limiter) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+    }
+
+    @Override
+    public <RequestT, ResponseT, ErrorT> ResponseT performRequest(final RequestT request, final Endpoint<RequestT, ResponseT, ErrorT> endpoint,
+                                                                  final TransportOptions options) throws IOException {
+
+        acquire();
+
+        final String requestType = getRequestType(request, endpoint);
+        final long start = System.nanoTime();
+        boolean overloaded = false;
+
+        try {
+
+            final ResponseT response = delegate.performRequest(request, endpoint, options);
+            overloaded = isOverloaded(response);
+            return response;
+
+        } catch (IOException | RuntimeException ex) {
+
+            overloaded = isOverloaded(ex);
+            throw ex;
+
+        } finally {
+
+            limiter.release(requestType, System.nanoTime() - start, overloaded);
+
+        }
+
+    }
+
+    @Override
+    public <RequestT, ResponseT, ErrorT> CompletableFuture<ResponseT> performRequestAsync(final RequestT request, final Endpoint<RequestT, ResponseT, ErrorT> endpoint,
+                                                                                         final TransportOptions options) {
+
+        try {
+            acquire();
+        } catch (IOException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+
+        final String requestType = getRequestType(request, endpoint);
+        final long start = System.nanoTime();
+
+        return delegate.performRequestAsync(request, endpoint, options).whenComplete((response, ex) -> {
+            final boolean overloaded = ex != null ? isOverloaded(ex) : isOverloaded(response);
+            limiter.release(requestType, System.nanoTime() - start, overloaded);
+        });
+
+    }
+
+    @Override
+    public JsonpMapper jsonpMapper() {
+        return delegate.jsonpMapper();
+    }
+
+    @Override
+    public TransportOptions options() {
+        return delegate.options();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    /**
+     * Gets the {@link AdaptiveConcurrencyLimiter}.
+     * @return The {@link AdaptiveConcurrencyLimiter}.
+     */
+    public AdaptiveConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+
+    private void acquire() throws IOException {
+
+        try {
+            limiter.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to send a request.");
+        }
+
+    }
+
+    // Gets the type of a request from its method and API, e.g. "POST _bulk" or "GET _msearch/template", leaving out
+    // index names and IDs so requests to the same API share a latency window.
+    private <RequestT> String getRequestType(final RequestT request, final Endpoint<RequestT, ?, ?> endpoint) {
+
+        final String[] segments = endpoint.requestUrl(request).split("/");
+        final StringBuilder requestType = new StringBuilder(endpoint.method(request)).append(' ');
+
+        for (int i = 0; i < segments.length; i++) {
+
+            if (segments[i].startsWith("_")) {
+
+                requestType.append(segments[i]);
+
+                if (i + 1 < segments.length && (segments[i + 1].equals("point_in_time") || segments[i + 1].equals("template"))) {
+                    requestType.append('/').append(segments[i + 1]);
+                }
+
+                return requestType.toString();
+
+            }
+
+        }
+
+        return requestType.append("document").toString();
+
+    }
+
+    private boolean isOverloaded(final Object response) {
+
+        // A bulk request succeeds even when some of its documents are rejected because the cluster is overloaded.
+        if (response instanceof BulkResponse && ((BulkResponse) response).errors()) {
+            for (final BulkResponseItem item : ((BulkResponse) response).items()) {
+                if (item.status() == STATUS_TOO_MANY_REQUESTS) {
+                    return true;
+                }
+            }
+        }
+
+        // The generic client returns the response for any status.
+        return response instanceof Response && ((Response) response).getStatus() == STATUS_TOO_MANY_REQUESTS;
+
+    }
+
+    private boolean isOverloaded(final Throwable throwable) {
+
+        final Throwable ex = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+
+        if (ex instanceof OpenSearchException) {
+            final OpenSearchException openSearchException = (OpenSearchException) ex;
+            return openSearchException.status() == STATUS_TOO_MANY_REQUESTS || isRejectedExecution(openSearchException.error());
+        } else if (ex instanceof OpenSearchClientException) {
+            return ((OpenSearchClientException) ex).status() == STATUS_TOO_MANY_REQUESTS;
+        } else if (ex instanceof ResponseException) {
+            return ((ResponseException) ex).status() == STATUS_TOO_MANY_REQUESTS;
+        }
+
+        return false;
+
+    }
+
+    private boolean isRejectedExecution(final ErrorCause errorCause) {
+
+        if (errorCause == null) {
+            return false;
+        }
+
+        if (REJECTED_EXECUTION_EXCEPTION.equals(errorCause.type())) {
+            return true;
+        }
+
+        if (errorCause.rootCause() != null) {
+            for (final ErrorCause rootCause : errorCause.rootCause()) {
+                if (REJECTED_EXECUTION_EXCEPTION.equals(rootCause.type())) {
+                    return true;
+                }
+            }
+        }
+
+        return isRejectedExecution(errorCause.causedBy());
+
+    }
+
+}
@@ -0,0 +1,342 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.engine;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.opensearch.client.opensearch.OpenSearchClient;
+import org.opensearch.client.opensearch._types.Refresh;
+import org.opensearch.client.opensearch.core.BulkRequest;
+import org.opensearch.client.opensearch.core.BulkResponse;
+import org.opensearch.client.opensearch.core.bulk.BulkOperation;
+import org.opensearch.client.opensearch.core.bulk.BulkResponseItem;
+import org.opensearch.client.opensearch.core.bulk.IndexOperation;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Indexes documents in batches using bulk requests. A batch is sent when it reaches a max number of
+ * documents or a max size in bytes. Batches are sent in the background, and adding documents blocks
+ * when the max number of bulk requests are already in flight. Documents rejected because OpenSearch
+ * is overloaded are retried with a backoff.
+ */
+public class BulkIndexer implements AutoCloseable {
+
+    private static final Logger LOGGER = LogManager.getLogger(BulkIndexer.class);
+
+    /**
+     * The default max number of documents in a bulk request.
+     */
+    public static final int DEFAULT_MAX_BATCH_DOCUMENTS = 1000;
+
+    /**
+     * The default max size of the documents in a bulk request in bytes.
+     */
+    public static final long DEFAULT_MAX_BATCH_BYTES = 5 * 1024 * 1024;
+
+    /**
+     * The default max number of bulk requests in flight at the same time.
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 2;
+
+    /**
+     * The default max number of times a rejected document is retried.
+     */
+    public static final int DEFAULT_MAX_RETRIES = 3;
+
+    // The HTTP status returned for a document when OpenSearch is too busy to index it.
+    private static final int STATUS_TOO_MANY_REQUESTS = 429;
+
+    private static final long INITIAL_BACKOFF_MILLIS = 100;
+
+    private final OpenSearchClient client;
+    private final int maxBatchDocuments;
+    private final long maxBatchBytes;
+    private final int maxInFlightRequests;
+    private final int maxRetries;
+    private final Refresh refresh;
+
+    // Serializes the documents the same way as the client's JacksonJsonpMapper.
+    private final ObjectMapper objectMapper = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+    private final Semaphore inFlightRequests;
+    private final ExecutorService executorService;
+
+    private List<BulkOperation> batch = new ArrayList<>();
+    private long batchBytes = 0;
+
+    private final AtomicLong indexedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+
+    // The number of failed documents when flushAndWait last checked.
+    private long checkedFailedCount = 0;
+
+    /**
+     * Creates a new bulk indexer with the default settings.
+     * @param client The {@link OpenSearchClient}.
+     */
+    public BulkIndexer(final OpenSearchClient client) {
+        this(client, DEFAULT_MAX_BATCH_DOCUMENTS, DEFAULT_MAX_BATCH_BYTES, DEFAULT_MAX_IN_FLIGHT_REQUESTS, DEFAULT_MAX_RETRIES);
+    }
+
+    /**
+     * Creates a new bulk indexer.
+     * @param client The {@link OpenSearchClient}.
+     * @param maxBatchDocuments The max number of documents in a bulk request.
+     * @param maxBatchBytes The max size of the documents in a bulk request in bytes.
+     * @param maxInFlightRequests The max number of bulk requests in flight at the same time.
+     * @param maxRetries The max number of times a rejected document is retried.
+     */
+    public BulkIndexer(final OpenSearchClient client, final int maxBatchDocuments, final long maxBatchBytes,
+                       final int maxInFlightRequests, final int maxRetries) {
+        this(client, maxBatchDocuments, maxBatchBytes, maxInFlightRequests, maxRetries, null);
+    }
+
+    /**
+     * Creates a new bulk indexer.
+     * @param client The {@link OpenSearchClient}.
+     * @param maxBatchDocuments The max number of documents in a bulk request.
+     * @param maxBatchBytes The max size of the documents in a bulk request in bytes.
+     * @param maxInFlightRequests The max number of bulk requests in flight at the same time.
+     * @param maxRetries The max number of times a rejected document is retried.
+     * @param refresh The {@link Refresh} policy of each bulk request, or <code>null</code> to use the index's default.
+     */
+    public BulkIndexer(final OpenSearchClient client, final int maxBatchDocuments, final long maxBatchBytes,
+                       final int maxInFlightRequests, final int maxRetries, final Refresh refresh) {
+
+        this.client = client;
+        this.maxBatchDocuments = Math.max(1, maxBatchDocuments);
+        this.maxBatchBytes = Math.max(1, maxBatchBytes);
+        this.maxInFlightRequests = Math.max(1, maxInFlightRequests);
+        this.maxRetries = Math.max(0, maxRetries);
+        this.refresh = refresh;
+
+        this.inFlightRequests = new Semaphore(this.maxInFlightRequests);
+        this.executorService = Executors.newFixedThreadPool(this.maxInFlightRequests);
+
+    }
+
+    /**
+     * Adds a document to be indexed.
+     * @param index The name of the index.
+     * @param id The ID of the document, or <code>null</code> to have OpenSearch generate an ID.
+     * @param document The document.
+     * @throws IOException Thrown if a previous bulk request failed or the document cannot be serialized.
+     * @throws InterruptedException Thrown if interrupted while waiting to send a batch.
+     */
+    public synchronized void index(final String index, final String id, final Object document) throws IOException, InterruptedException {
+
+        throwIfFailed();
+
+        // The document is serialized once and written to the bulk request as is.
+        final String json = objectMapper.writeValueAsString(document);
+
+        batch.add(new BulkOperation.Builder().index(
+                IndexOperation.of(io -> io
+                        .index(index)
+                        .id(id)
+                        .document(new RawValue(json))))
+                .build());
+
+        // The serialized length is an estimate of the size of the document in the bulk request.
+        batchBytes += json.length();
+
+        if (batch.size() >= maxBatchDocuments || batchBytes >= maxBatchBytes) {
+            flush();
+        }
+
+    }
+
+    /**
+     * Sends the current batch of documents. Blocks while the max number of bulk requests are in flight.
+     * @throws IOException Thrown if a previous bulk request failed.
+     * @throws InterruptedException Thrown if interrupted while waiting to send the batch.
+     */
+    public synchronized void flush() throws IOException, InterruptedException {
+
+        throwIfFailed();
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        final List<BulkOperation> operations = batch;
+        batch = new ArrayList<>();
+        batchBytes = 0;
+
+        inFlightRequests.acquire();
+
+        try {
+
+            executorService.execute(() -> {
+                try {
+                    send(operations);
+                } catch (Exception ex) {
+                    LOGGER.error("Unable to send bulk request.", ex);
+                    failure.compareAndSet(null, ex);
+                } finally {
+                    inFlightRequests.release();
+                }
+            });
+
+        } catch (RuntimeException ex) {
+            inFlightRequests.release();
+            throw ex;
+        }
+
+    }
+
+    /**
+     * Sends any remaining documents and waits for all bulk requests to complete. The indexer can still be used afterward.
+     * @throws IOException Thrown if a bulk request failed, or if any documents could not be indexed since the last call.
+     * @throws InterruptedException Thrown if interrupted while waiting for the bulk requests.
+     */
+    public synchronized void flushAndWait() throws IOException, InterruptedException {
+
+        flush();
+        waitForInFlightRequests();
+
+        throwIfFailed();
+
+        // Documents that could not be indexed do not fail their bulk request, so they are checked separately.
+        final long failed = failedCount.get();
+
+        if (failed > checkedFailedCount) {
+            final long newlyFailed = failed - checkedFailedCount;
+            checkedFailedCount = failed;
+            throw new IOException("Unable to index " + newlyFailed + " documents.");
+        }
+
+    }
+
+    /**
+     * Sends any remaining documents and waits for all bulk requests to complete.
+     * @throws IOException Thrown if a bulk request failed, any documents could not be indexed, or the wait is interrupted.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+
+        try {
+
+            flush();
+            waitForInFlightRequests();
+
+        } catch (InterruptedException ex) {
+
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the bulk requests to complete.", ex);
+
+        } finally {
+
+            executorService.shutdown();
+
+        }
+
+        throwIfFailed();
+
+        LOGGER.info("Bulk indexed {} documents, {} failed.", indexedCount.get(), failedCount.get());
+
+        if (failedCount.get() > 0) {
+            throw new IOException("Unable to index " + failedCount.get() + " documents.");
+        }
+
+    }
+
+    /**
+     * Gets the number of documents indexed.
+     * @return The number of documents indexed.
+     */
+    public long getIndexedCount() {
+        return indexedCount.get();
+    }
+
+    /**
+     * Gets the number of documents that could not be indexed.
+     * @return The number of documents that could not be indexed.
+     */
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    private void send(final List<BulkOperation> operations) throws Exception {
+
+        List<BulkOperation> pending = operations;
+        long backoffMillis = INITIAL_BACKOFF_MILLIS;
+
+        for (int attempt = 0; ; attempt++) {
+
+            final BulkRequest.Builder bulkRequest = new BulkRequest.Builder().operations(pending);
+
+            if (refresh != null) {
+                bulkRequest.refresh(refresh);
+            }
+
+            final BulkResponse bulkResponse = client.bulk(bulkRequest.build());
+
+            // The response items are in the same order as the operations.
+            final List<BulkOperation> retries = new ArrayList<>();
+
+            for (int i = 0; i < bulkResponse.items().size(); i++) {
+
+                final BulkResponseItem item = bulkResponse.items().get(i);
+
+                if (item.error() == null) {
+                    indexedCount.incrementAndGet();
+                } else if (item.status() == STATUS_TOO_MANY_REQUESTS && attempt < maxRetries) {
+                    retries.add(pending.get(i));
+                } else {
+                    failedCount.incrementAndGet();
+                    LOGGER.warn("Unable to index document {}: {}", item.id(), item.error().reason());
+                }
+
+            }
+
+            if (retries.isEmpty()) {
+                return;
+            }
+
+            LOGGER.debug("Retrying {} rejected documents in {} ms.", retries.size(), backoffMillis);
+
+            Thread.sleep(backoffMillis);
+            backoffMillis *= 2;
+            pending = retries;
+
+        }
+
+    }
+
+    // Waits for the in-flight requests to complete by taking every permit.
+    private void waitForInFlightRequests() throws InterruptedException {
+        inFlightRequests.acquire(maxInFlightRequests);
+        inFlightRequests.release(maxInFlightRequests);
+    }
+
+    private void throwIfFailed() throws IOException {
+
+        final Exception ex = failure.get();
+
+        if (ex instanceof IOException) {
+            throw (IOException) ex;
+        } else if (ex != null) {
+            throw new IOException("Unable to send bulk request.", ex);
+        }
+
+    }
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.engine;
+
+import org.opensearch.eval.model.dao.judgments.Judgment;
+
+import java.io.IOException;
+
+/**
+ * Writes the judgments of a single judgment set as they are generated.
+ * Closing the writer waits until all judgments are written.
+ */
+public interface JudgmentWriter extends AutoCloseable {
+
+    /**
+     * Writes a judgment. The judgment's ID, set ID, and timestamp are set by the writer. The judgment's ID
+     * is derived from the judgment set ID, the user query, and the document.
+     * @param judgment The {@link Judgment}.
+     * @throws Exception Thrown if the judgment cannot be written.
+     */
+    void write(Judgment judgment) throws Exception;
+
+    /**
+     * Gets the ID of the judgment set being written.
+     * @return The judgment set ID.
+     */
+    String getJudgmentSetId();
+
+    /**
+     * Gets the number of judgments written.
+     * @return The number of judgments written.
+     */
+    long getCount();
+
+    /**
+     * Waits until all the judgments are indexed and releases the writer's resources.
+     * @throws IOException Thrown if a judgment could not be indexed.
+     */
+    @Override
+    void close() throws IOException;
+
+}
@@ -9,6 +9,10 @@
 package org.opensearch.eval.engine;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.hc.core5.http.HttpHost;
 import org.apache.logging.log4j.LogManager;
@@ -19,9 +23,11 @@ import org.opensearch.client.opensearch.OpenSearchClient;
 import org.opensearch.client.opensearch._types.FieldValue;
 import org.opensearch.client.opensearch._types.Refresh;
 import org.opensearch.client.opensearch._types.SortOrder;
-import org.opensearch.client.opensearch._types.Time;
 import org.opensearch.client.opensearch._types.aggregations.Aggregate;
 import org.opensearch.client.opensearch._types.aggregations.Aggregation;
+import org.opensearch.client.opensearch._types.aggregations.CompositeAggregate;
+import org.opensearch.client.opensearch._types.aggregations.CompositeAggregationSource;
+import org.opensearch.client.opensearch._types.aggregations.CompositeBucket;
 import org.opensearch.client.opensearch._types.aggregations.LongTermsBucket;
 import org.opensearch.client.opensearch._types.aggregations.StringTermsAggregate;
 import org.opensearch.client.opensearch._types.aggregations.StringTermsBucket;
@@ -30,25 +36,21 @@ import org.opensearch.client.opensearch._types.query_dsl.ExistsQuery;
 import org.opensearch.client.opensearch._types.query_dsl.FunctionScore;
 import org.opensearch.client.opensearch._types.query_dsl.FunctionScoreQuery;
 import org.opensearch.client.opensearch._types.query_dsl.MatchAllQuery;
-import org.opensearch.client.opensearch._types.query_dsl.MatchQuery;
 import org.opensearch.client.opensearch._types.query_dsl.Query;
 import org.opensearch.client.opensearch._types.query_dsl.RandomScoreFunction;
 import org.opensearch.client.opensearch._types.query_dsl.RangeQuery;
 import org.opensearch.client.opensearch._types.query_dsl.TermQuery;
+import org.opensearch.client.opensearch._types.query_dsl.TermsQuery;
 import org.opensearch.client.opensearch._types.query_dsl.WrapperQuery;
-import org.opensearch.client.opensearch.core.BulkRequest;
-import org.opensearch.client.opensearch.core.BulkResponse;
 import org.opensearch.client.opensearch.core.IndexRequest;
-import org.opensearch.client.opensearch.core.ScrollRequest;
-import org.opensearch.client.opensearch.core.ScrollResponse;
+import org.opensearch.client.opensearch.core.MgetResponse;
 import org.opensearch.client.opensearch.core.SearchRequest;
 import org.opensearch.client.opensearch.core.SearchResponse;
-import org.opensearch.client.opensearch.core.bulk.BulkOperation;
-import org.opensearch.client.opensearch.core.bulk.IndexOperation;
+import org.opensearch.client.opensearch.core.mget.MultiGetResponseItem;
 import org.opensearch.client.opensearch.core.search.FieldCollapse;
 import org.opensearch.client.opensearch.core.search.Hit;
 import org.opensearch.client.opensearch.core.search.TrackHits;
-import org.opensearch.client.opensearch.generic.Bodies;
+import org.opensearch.client.opensearch.generic.Body;
 import org.opensearch.client.opensearch.generic.OpenSearchGenericClient;
 import org.opensearch.client.opensearch.generic.Requests;
 import org.opensearch.client.opensearch.generic.Response;
@@ -58,19 +60,26 @@ import org.opensearch.client.transport.OpenSearchTransport;
 import org.opensearch.client.transport.httpclient5.ApacheHttpClient5TransportBuilder;
 import org.opensearch.eval.Constants;
 import org.opensearch.eval.metrics.SearchMetric;
+import org.opensearch.eval.model.ClickStatistics;
+import org.opensearch.eval.model.ClickStatisticsSnapshot;
+import org.opensearch.eval.model.SpillingClickStatistics;
 import org.opensearch.eval.model.ClickthroughRate;
 import org.opensearch.eval.model.QueryRun;
 import org.opensearch.eval.model.TimeFilter;
+import org.opensearch.eval.model.UserQueryTable;
 import org.opensearch.eval.model.dao.judgments.ClickThroughRate;
 import org.opensearch.eval.model.dao.judgments.Judgment;
 import org.opensearch.eval.model.dao.judgments.RankAggregatedClickThrough;
 import org.opensearch.eval.model.dao.querysets.QueryRunMetric;
 import org.opensearch.eval.model.dao.querysets.QueryRunResults;
 import org.opensearch.eval.model.dao.querysets.QuerySet;
+import org.opensearch.eval.model.dao.querysets.QuerySetRunParameters;
+import org.opensearch.eval.model.ubi.event.Position;
 import org.opensearch.eval.model.ubi.event.UbiEvent;
 import org.opensearch.eval.model.ubi.query.UbiQuery;
 import org.opensearch.eval.runners.QueryResult;
-import org.opensearch.eval.runners.QuerySetRunResult;
+import org.opensearch.eval.runners.QueryTemplate;
+import org.opensearch.eval.utils.BoundedCache;
 import org.opensearch.eval.utils.TimeUtils;
 
 import java.io.ByteArrayInputStream;
@@ -78,19 +87,26 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 import static org.opensearch.eval.judgments.clickmodel.coec.CoecClickModel.EVENT_CLICK;
 import static org.opensearch.eval.judgments.clickmodel.coec.CoecClickModel.EVENT_IMPRESSION;
-import static org.opensearch.eval.runners.OpenSearchQuerySetRunner.QUERY_PLACEHOLDER;
 
 /**
  * Functionality for interacting with OpenSearch.
@@ -99,13 +115,39 @@ public class OpenSearchEngine extends SearchEngine {
 
     private static final Logger LOGGER = LogManager.getLogger(OpenSearchEngine.class.getName());
 
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
     private static final String USER_QUERY_FIELD = "user_query";
     private static final String APPLICATION_FIELD = "application";
 
+    // The number of buckets to retrieve in each page of a composite aggregation.
+    private static final int COMPOSITE_AGGREGATION_PAGE_SIZE = 10000;
+
+    // The UBI event fields needed to calculate click statistics.
+    private static final List<String> EVENT_SOURCE_FIELDS = List.of("query_id", "user_query", "action_name",
+            "event_attributes.object.object_id", "event_attributes.position.ordinal", "timestamp");
+
+    // The UBI query fields needed to join events to their user queries.
+    private static final List<String> QUERY_SOURCE_FIELDS = List.of("query_id", "user_query");
+
+    // The name of the stored search template parameter that holds the user query.
+    private static final String SEARCH_TEMPLATE_PARAMETER = "user_query";
+
+    // The judgment fields needed to look up judgments.
+    private static final List<String> JUDGMENT_SOURCE_FIELDS = List.of("user_query", "document", "judgment");
+
     private final OpenSearchClient client;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final PointInTimeReader pointInTimeReader;
+
+    // The max number of compiled query templates to cache.
+    private static final int QUERY_TEMPLATE_CACHE_SIZE = 100;
+
+    // Used to cache the compiled query templates so each template is only parsed once.
+    private final BoundedCache<String, QueryTemplate> queryTemplateCache = new BoundedCache<>(QUERY_TEMPLATE_CACHE_SIZE);
 
-    // Used to cache the query ID->user_query to avoid unnecessary lookups to OpenSearch.
-    private static final Map<String, String> userQueryCache = new HashMap<>();
+    // Whether each judgment set was indexed with judgment IDs derived from the user query and document.
+    private final Map<String, Boolean> judgmentSetsWithJudgmentIds = new ConcurrentHashMap<>();
 
     public OpenSearchEngine(final URI uri) {
 
@@ -118,10 +160,23 @@ public class OpenSearchEngine extends SearchEngine {
                 .setMapper(new JacksonJsonpMapper())
                 .build();
 
-        this.client = new OpenSearchClient(transport);
+        // All requests to OpenSearch go through the limiter so it can adapt to how busy the cluster is.
+        this.concurrencyLimiter = new AdaptiveConcurrencyLimiter();
+        this.client = new OpenSearchClient(new AdaptiveTransport(transport, concurrencyLimiter));
+        this.pointInTimeReader = new PointInTimeReader(client, Runtime.getRuntime().availableProcessors());
 
     }
 
+    @Override
+    public AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    @Override
+    public BoundedCache<String, QueryTemplate> getQueryTemplateCache() {
+        return queryTemplateCache;
+    }
+
     @Override
     public boolean doesIndexExist(final String index) throws IOException {
 
@@ -196,37 +251,181 @@ public class OpenSearchEngine extends SearchEngine {
     @Override
     public Double getJudgmentValue(final String judgmentsId, final String userQuery, final String documentId) throws Exception {
 
+        if (hasJudgmentIds(judgmentsId)) {
+            return getJudgmentValues(judgmentsId, userQuery, List.of(documentId))[0];
+        }
+
+        // Judgment sets indexed before judgment IDs were derived from the user query and document have to be searched.
         var boolQuery = BoolQuery.of(bq -> bq
-                .must(
+                .filter(
                         List.of(
-                                MatchQuery.of(mq -> mq.query(FieldValue.of(judgmentsId)).field("judgment_set_id")).toQuery(),
-                                MatchQuery.of(mq -> mq.query(FieldValue.of(userQuery)).field("query")).toQuery(),
-                                MatchQuery.of(mq -> mq.query(FieldValue.of(documentId)).field("document")).toQuery()
+                                TermQuery.of(tq -> tq.field("judgment_set_id").value(FieldValue.of(judgmentsId))).toQuery(),
+                                TermQuery.of(tq -> tq.field(USER_QUERY_FIELD).value(FieldValue.of(userQuery))).toQuery(),
+                                TermQuery.of(tq -> tq.field("document").value(FieldValue.of(documentId))).toQuery()
                         )
                 )
         );
 
         final Query query = Query.of(q -> q.bool(boolQuery));
 
-        // TODO: Make sure the query being run here is correct.
-        //System.out.println(query.);
-
         final SearchResponse<Judgment> searchResponse = client.search(s -> s.index(Constants.JUDGMENTS_INDEX_NAME)
                         .query(query)
+                        .source(src -> src.filter(f -> f.includes(JUDGMENT_SOURCE_FIELDS)))
                         .from(0)
                         .size(1),
                 Judgment.class);
 
-        if (!searchResponse.hits().hits().isEmpty()) {
-            System.out.println("Number of judgments: " + searchResponse.hits().hits().size());
-        }
-
         if (searchResponse.hits().hits().isEmpty()) {
             return Double.NaN;
         } else {
-            return searchResponse.hits().hits().getFirst().source().getJudgment();
+            return searchResponse.hits().hits().get(0).source().getJudgment();
+        }
+
+    }
+
+    @Override
+    public double[] getJudgmentValues(final String judgmentsId, final String userQuery, final List<String> documentIds) throws Exception {
+
+        final double[] judgmentValues = new double[documentIds.size()];
+
+        if (documentIds.isEmpty()) {
+            return judgmentValues;
+        }
+
+        if (!hasJudgmentIds(judgmentsId)) {
+
+            final Map<String, Double> searchedJudgmentValues = searchJudgmentValues(judgmentsId, userQuery, new LinkedHashSet<>(documentIds));
+
+            for (int i = 0; i < judgmentValues.length; i++) {
+                judgmentValues[i] = searchedJudgmentValues.getOrDefault(documentIds.get(i), Double.NaN);
+            }
+
+            return judgmentValues;
+
+        }
+
+        // Get all the judgments by their IDs in one request.
+        final List<String> ids = new ArrayList<>(documentIds.size());
+        for (final String documentId : documentIds) {
+            ids.add(Judgment.getJudgmentId(judgmentsId, userQuery, documentId));
+        }
+
+        final MgetResponse<Judgment> mgetResponse = client.mget(m -> m.index(Constants.JUDGMENTS_INDEX_NAME)
+                        .ids(ids)
+                        .sourceIncludes(JUDGMENT_SOURCE_FIELDS),
+                Judgment.class);
+
+        final Set<String> missingDocumentIds = new LinkedHashSet<>();
+
+        // The documents are returned in the order of the IDs.
+        for (int i = 0; i < judgmentValues.length; i++) {
+
+            final MultiGetResponseItem<Judgment> item = mgetResponse.docs().get(i);
+
+            if (item.isFailure()) {
+                throw new IOException("Unable to get judgment " + ids.get(i) + ": " + item.failure().error().reason());
+            }
+
+            if (item.result().found()) {
+                judgmentValues[i] = item.result().source().getJudgment();
+            } else {
+                judgmentValues[i] = Double.NaN;
+                missingDocumentIds.add(documentIds.get(i));
+            }
+
+        }
+
+        // Whether a judgment set has judgment IDs is decided from one of its judgments, so a judgment indexed
+        // with another ID is searched for before it is treated as missing.
+        if (!missingDocumentIds.isEmpty()) {
+
+            final Map<String, Double> searchedJudgmentValues = searchJudgmentValues(judgmentsId, userQuery, missingDocumentIds);
+
+            for (int i = 0; i < judgmentValues.length; i++) {
+                if (Double.isNaN(judgmentValues[i])) {
+                    judgmentValues[i] = searchedJudgmentValues.getOrDefault(documentIds.get(i), Double.NaN);
+                }
+            }
+
+        }
+
+        return judgmentValues;
+
+    }
+
+    /**
+     * Searches for the judgments of a user query and documents by their fields rather than their IDs.
+     * @param judgmentsId The judgment set ID.
+     * @param userQuery The user query.
+     * @param documentIds The document IDs.
+     * @return A map of document ID to judgment for the documents that have a judgment.
+     * @throws IOException Thrown if the judgments cannot be searched.
+     */
+    private Map<String, Double> searchJudgmentValues(final String judgmentsId, final String userQuery, final Set<String> documentIds) throws IOException {
+
+        final List<FieldValue> documentValues = new ArrayList<>(documentIds.size());
+        for (final String documentId : documentIds) {
+            documentValues.add(FieldValue.of(documentId));
+        }
+
+        final Query query = BoolQuery.of(bq -> bq
+                .filter(
+                        List.of(
+                                TermQuery.of(tq -> tq.field("judgment_set_id").value(FieldValue.of(judgmentsId))).toQuery(),
+                                TermQuery.of(tq -> tq.field(USER_QUERY_FIELD).value(FieldValue.of(userQuery))).toQuery(),
+                                TermsQuery.of(tq -> tq.field("document").terms(t -> t.value(documentValues))).toQuery()
+                        )
+                )
+        ).toQuery();
+
+        final SearchResponse<Judgment> searchResponse = client.search(s -> s.index(Constants.JUDGMENTS_INDEX_NAME)
+                        .query(query)
+                        .source(src -> src.filter(f -> f.includes(JUDGMENT_SOURCE_FIELDS)))
+                        .size(documentIds.size()),
+                Judgment.class);
+
+        final Map<String, Double> judgmentValues = new HashMap<>();
+
+        for (final Hit<Judgment> hit : searchResponse.hits().hits()) {
+            judgmentValues.putIfAbsent(hit.source().getDocument(), hit.source().getJudgment());
+        }
+
+        return judgmentValues;
+
+    }
+
+    /**
+     * Gets whether a judgment set was indexed with judgment IDs derived from the user query and document
+     * by checking the ID of one of its judgments. This only decides which lookup is tried first, since the
+     * judgments not found by their IDs are still searched for.
+     * @param judgmentsId The judgment set ID.
+     * @return <code>true</code> if the judgments can be fetched by their IDs.
+     * @throws IOException Thrown if the judgment set cannot be searched.
+     */
+    private boolean hasJudgmentIds(final String judgmentsId) throws IOException {
+
+        final Boolean cached = judgmentSetsWithJudgmentIds.get(judgmentsId);
+
+        if (cached != null) {
+            return cached;
         }
 
+        final Query query = Query.of(q -> q.term(m -> m.field("judgment_set_id").value(FieldValue.of(judgmentsId))));
+
+        final SearchResponse<Judgment> searchResponse = client.search(s -> s.index(Constants.JUDGMENTS_INDEX_NAME)
+                        .query(query)
+                        .source(src -> src.filter(f -> f.includes(JUDGMENT_SOURCE_FIELDS)))
+                        .size(1),
+                Judgment.class);
+
+        // An empty judgment set has no judgments to find either way.
+        final boolean hasJudgmentIds = searchResponse.hits().hits().isEmpty() || searchResponse.hits().hits().stream()
+                .allMatch(hit -> hit.id().equals(Judgment.getJudgmentId(judgmentsId, hit.source().getUserQuery(), hit.source().getDocument())));
+
+        judgmentSetsWithJudgmentIds.put(judgmentsId, hasJudgmentIds);
+
+        return hasJudgmentIds;
+
     }
 
     @Override
@@ -303,81 +502,15 @@ public class OpenSearchEngine extends SearchEngine {
     }
 
     @Override
-    public Collection<UbiQuery> getUbiQueries(final String application, final TimeFilter timeFilter) throws IOException {
+    public Collection<UbiQuery> getUbiQueries(final String application, final TimeFilter timeFilter) throws Exception {
 
         final Collection<UbiQuery> ubiQueries = new ArrayList<>();
 
-        final Time scrollTime = new Time.Builder().time("10m").build();
-
-        final List<Query> mustQueries = new ArrayList<>();
-        mustQueries.add(new MatchAllQuery.Builder().build().toQuery());
-
-        if(StringUtils.isNotEmpty(application)) {
-            // Just a certain application.
-            LOGGER.info("Filtering UBI queries by application: {}", application);
-            final TermQuery applicationQuery = TermQuery.of(tq -> tq.field("application").value(FieldValue.of(application)));
-            mustQueries.add(applicationQuery.toQuery());
-        }
-
-        if(StringUtils.isNotEmpty(timeFilter.getStartTimestamp()) && StringUtils.isEmpty(timeFilter.getEndTimestamp())) {
-            // Just a start timestamp.
-            LOGGER.info("Filtering queries with time filter: {}", timeFilter);
-            final RangeQuery timestampQuery = RangeQuery.of(q -> q.field("timestamp").gte(JsonData.of(timeFilter.getStartTimestamp())));
-            mustQueries.add(timestampQuery.toQuery());
-        }
-
-        if(StringUtils.isEmpty(timeFilter.getStartTimestamp()) && StringUtils.isNotEmpty(timeFilter.getEndTimestamp())) {
-            // Just an end timestamp.
-            LOGGER.info("Filtering queries with time filter: {}", timeFilter);
-            final RangeQuery timestampQuery = RangeQuery.of(q -> q.field("timestamp").lte(JsonData.of(timeFilter.getEndTimestamp())));
-            mustQueries.add(timestampQuery.toQuery());
-        }
-
-        if(StringUtils.isNotEmpty(timeFilter.getStartTimestamp()) && StringUtils.isNotEmpty(timeFilter.getEndTimestamp())) {
-            // Both start and end timestamps.
-            LOGGER.info("Filtering queries with time filter: {}", timeFilter);
-            final RangeQuery timestampQuery = RangeQuery.of(q -> q.field("timestamp").gte(JsonData.of(timeFilter.getStartTimestamp())).lte(JsonData.of(timeFilter.getEndTimestamp())));
-            mustQueries.add(timestampQuery.toQuery());
-        }
-
-        final BoolQuery boolQuery = new BoolQuery.Builder()
-                .must(mustQueries)
-                .mustNot(q -> q.term(m -> m.field(USER_QUERY_FIELD).value(FieldValue.of(""))))
-                .build();
-
-        final SearchResponse<UbiQuery> searchResponse = client.search(s -> s
-                .index(Constants.UBI_QUERIES_INDEX_NAME)
-                .query(boolQuery.toQuery())
-                .size(1000)
-                .scroll(scrollTime), UbiQuery.class);
-
-        String scrollId = searchResponse.scrollId();
-        List<Hit<UbiQuery>> searchHits = searchResponse.hits().hits();
-
-        while (searchHits != null && !searchHits.isEmpty()) {
-
-            for (int i = 0; i < searchResponse.hits().hits().size(); i++) {
-                final UbiQuery ubiQuery = searchResponse.hits().hits().get(i).source();
-                if (StringUtils.isNotEmpty(ubiQuery.getUserQuery())) {
-                    ubiQueries.add(ubiQuery);
-                }
-            }
-
-            if (scrollId != null) {
-                final ScrollRequest scrollRequest = new ScrollRequest.Builder().scrollId(scrollId).build();
-                final ScrollResponse<UbiQuery> scrollResponse = client.scroll(scrollRequest, UbiQuery.class);
-
-                scrollId = scrollResponse.scrollId();
-                searchHits = scrollResponse.hits().hits();
-            } else {
-                break;
+        pointInTimeReader.read(Constants.UBI_QUERIES_INDEX_NAME, getUbiQueriesQuery(application, timeFilter), null, UbiQuery.class, ubiQuery -> {
+            if (ubiQuery != null && StringUtils.isNotEmpty(ubiQuery.getUserQuery())) {
+                ubiQueries.add(ubiQuery);
             }
-
-        }
-
-        // TODO: Clear the scroll.
-        // final ClearScrollRequest clearScrollRequest = new ClearScrollRequest.Builder().scrollId(scrollId).build();
-        // client.clearScroll(clearScrollRequest);
+        });
 
         return ubiQueries;
 
@@ -493,32 +626,22 @@ public class OpenSearchEngine extends SearchEngine {
     }
 
     @Override
-    public Collection<Judgment> getJudgments() throws IOException {
+    public Collection<Judgment> getJudgments() throws Exception {
 
         final Collection<Judgment> judgments = new ArrayList<>();
 
-        final Time scrollTime = new Time.Builder().time("10m").build();
-
-        final SearchResponse<Judgment> searchResponse = client.search(s -> s.index(Constants.JUDGMENTS_INDEX_NAME).size(1000).scroll(scrollTime), Judgment.class);
-
-        String scrollId = searchResponse.scrollId();
-        List<Hit<Judgment>> searchHits = searchResponse.hits().hits();
+        pointInTimeReader.read(Constants.JUDGMENTS_INDEX_NAME, MatchAllQuery.of(q -> q).toQuery(), null, Judgment.class, judgments::add);
 
-        while (searchHits != null && !searchHits.isEmpty()) {
-
-            for (int i = 0; i < searchResponse.hits().hits().size(); i++) {
-                judgments.add(searchResponse.hits().hits().get(i).source());
-            }
+        return judgments;
 
-            final ScrollRequest scrollRequest = new ScrollRequest.Builder().scrollId(scrollId).build();
-            final ScrollResponse<Judgment> scrollResponse = client.scroll(scrollRequest, Judgment.class);
+    }
 
-            scrollId = scrollResponse.scrollId();
-            searchHits = scrollResponse.hits().hits();
+    @Override
+    public long forEachJudgment(final String judgmentsSetId, final Consumer<Judgment> consumer) throws Exception {
 
-        }
+        final Query query = Query.of(q -> q.term(m -> m.field("judgment_set_id").value(FieldValue.of(judgmentsSetId))));
 
-        return judgments;
+        return pointInTimeReader.read(Constants.JUDGMENTS_INDEX_NAME, query, JUDGMENT_SOURCE_FIELDS, Judgment.class, consumer::accept);
 
     }
 
@@ -532,25 +655,15 @@ public class OpenSearchEngine extends SearchEngine {
     @Override
     public String getUserQuery(final String queryId) throws Exception {
 
-        // If it's in the cache just get it and return it.
-        if (userQueryCache.containsKey(queryId)) {
-            return userQueryCache.get(queryId);
+        if (queryId == null) {
+            return null;
         }
 
-        // Cache it and return it.
+        // The click statistics join events to their user queries with a UserQueryTable, so a lookup here is not cached.
         final UbiQuery ubiQuery = getQueryFromQueryId(queryId);
 
         // ubiQuery will be null if the query does not exist.
-        if (ubiQuery != null) {
-
-            userQueryCache.put(queryId, ubiQuery.getUserQuery());
-            return ubiQuery.getUserQuery();
-
-        } else {
-
-            return null;
-
-        }
+        return ubiQuery != null ? ubiQuery.getUserQuery() : null;
 
     }
 
@@ -596,7 +709,7 @@ public class OpenSearchEngine extends SearchEngine {
     public QueryRun runQuery(final String index, final String query, final int k, final String userQuery, final String idField, final String pipeline) throws IOException {
 
         // Replace the query placeholder with the user query.
-        final String parsedQuery = query.replace(QUERY_PLACEHOLDER, userQuery);
+        final String parsedQuery = getQueryTemplate("", query, () -> QueryTemplate.compile(query)).render(userQuery);
 
         LOGGER.debug("Running query on index {}, k = {}, userQuery = {}, idField = {}, pipeline = {}, query = {}", index, k, userQuery, idField, pipeline, parsedQuery);
 
@@ -613,177 +726,388 @@ public class OpenSearchEngine extends SearchEngine {
         params.put("size", String.valueOf(k));
         params.put("track_total_hits", "true");
 
-        final Response searchResponse = genericClient.execute(
+        // Only the ID field is needed from each hit.
+        if (SearchResponseParser.ID_FIELD.equals(idField)) {
+            params.put("_source", "false");
+        } else {
+            params.put("_source_includes", idField);
+        }
+
+        try (final Response searchResponse = genericClient.execute(
                 Requests.builder()
                         .endpoint(index + "/_search")
                         .method("GET")
                         .json(parsedQuery)
                         .query(params)
-                        .build());
+                        .build())) {
 
-        final JsonNode json = searchResponse.getBody()
-                .map(b -> Bodies.json(b, JsonNode.class, client._transport().jsonpMapper()))
-                .orElse(null);
+            final Body responseBody = searchResponse.getBody()
+                    .orElseThrow(() -> new IOException("The search response has no body."));
 
-        final int numberOfResults = json.get("hits").get("total").get("value").asInt();
+            return new SearchResponseParser(idField).parseSearchResponse(responseBody.body());
 
-        final List<String> orderedDocumentIds = new ArrayList<>();
+        }
 
-        final JsonNode hits = json.get("hits").get("hits");
+    }
 
-        for (int i = 0; i < hits.size(); i++) {
+    @Override
+    public List<QueryRun> runQueries(final String index, final String query, final int k, final List<String> userQueries, final String idField, final String pipeline) throws IOException {
 
-            if (hits.get(i).get("_source").get(idField) != null) {
-                orderedDocumentIds.add(hits.get(i).get("_source").get(idField).asText());
-            } else {
-                LOGGER.info("The requested idField {} does not exist.", idField);
-            }
+        LOGGER.debug("Running {} queries on index {}, k = {}, idField = {}, pipeline = {}", userQueries.size(), index, k, idField, pipeline);
 
+        // The size, track_total_hits, and _source are part of the template since they cannot be passed as URL parameters to each search.
+        final QueryTemplate searchTemplate = getSearchTemplate(query, k, idField);
+
+        // Build the newline-delimited body with a header and a search for each user query.
+        final String header = OBJECT_MAPPER.writeValueAsString(Map.of("index", index));
+        final StringBuilder body = new StringBuilder();
+
+        for (final String userQuery : userQueries) {
+            body.append(header).append('\n');
+            searchTemplate.render(userQuery, body);
+            body.append('\n');
         }
 
-        searchResponse.close();
+        // Use a generic client to get around https://github.com/opensearch-project/OpenSearch/issues/16829
+        final OpenSearchGenericClient genericClient = client.generic().withClientOptions(OpenSearchGenericClient.ClientOptions.throwOnHttpErrors());
 
-        return new QueryRun(orderedDocumentIds, numberOfResults);
+        final Map<String, String> params = new HashMap<>();
 
-    }
+        if (!pipeline.isEmpty()) {
+            params.put("search_pipeline", pipeline);
+        }
 
-    @Override
-    public Map<String, Set<ClickthroughRate>> getClickthroughRate(final int maxRank) throws Exception {
+        final List<QueryRun> queryRuns;
 
-        final Map<String, Set<ClickthroughRate>> queriesToClickthroughRates = new HashMap<>();
+        try (final Response searchResponse = genericClient.execute(
+                Requests.builder()
+                        .endpoint(index + "/_msearch")
+                        .method("POST")
+                        .body(Body.from(body.toString().getBytes(StandardCharsets.UTF_8), "application/x-ndjson"))
+                        .query(params)
+                        .build())) {
 
-        // For each query:
-        // - Get each document returned in that query (in the QueryResponse object).
-        // - Calculate the click-through rate for the document. (clicks/impressions)
+            final Body responseBody = searchResponse.getBody()
+                    .orElseThrow(() -> new IOException("The multi-search response has no body."));
 
-        // TODO: Allow for a time period and for a specific application.
+            queryRuns = new SearchResponseParser(idField).parseMultiSearchResponse(responseBody.body());
 
-        final String query = "{\n" +
-                "                \"bool\": {\n" +
-                "                  \"should\": [\n" +
-                "                    {\n" +
-                "                      \"term\": {\n" +
-                "                        \"action_name\": \"click\"\n" +
-                "                      }\n" +
-                "                    },\n" +
-                "                    {\n" +
-                "                      \"term\": {\n" +
-                "                        \"action_name\": \"impression\"\n" +
-                "                      }\n" +
-                "                    }\n" +
-                "                  ],\n" +
-                "                  \"must\": [\n" +
-                "                    {\n" +
-                "                      \"range\": {\n" +
-                "                        \"event_attributes.position.ordinal\": {\n" +
-                "                          \"lte\": " + maxRank + "\n" +
-                "                        }\n" +
-                "                      }\n" +
-                "                    }\n" +
-                "                  ]\n" +
-                "                }\n" +
-                "              }";
+        }
 
-        final String encodedQuery = Base64.getEncoder().encodeToString(query.getBytes(StandardCharsets.UTF_8));
+        // The responses are in the same order as the searches.
+        if (queryRuns.size() != userQueries.size()) {
+            throw new IOException("Expected " + userQueries.size() + " responses to the multi-search request.");
+        }
 
-        final WrapperQuery wrapperQuery = new WrapperQuery.Builder()
-                .query(encodedQuery)
-                .build();
+        for (int i = 0; i < queryRuns.size(); i++) {
+            if (queryRuns.get(i).hasError()) {
+                LOGGER.warn("Query for user query {} failed: {}", userQueries.get(i), queryRuns.get(i).getError());
+            }
+        }
 
-        final Time scrollTime = new Time.Builder().time("10m").build();
+        return queryRuns;
 
-        final SearchRequest searchRequest = new SearchRequest.Builder()
-                .index(Constants.UBI_EVENTS_INDEX_NAME)
-                .query(q -> q.wrapper(wrapperQuery))
-                .from(0)
-                .size(1000)
-                .scroll(scrollTime)
-                .build();
+    }
+
+    @Override
+    public String createSearchTemplate(final String query, final int k, final String idField) throws IOException {
 
-        // Use the generic client to send the raw json.
-        // https://code.dblock.org/2023/10/16/making-raw-json-rest-requests-to-opensearch.html#:~:text=build()%3B,Here's%20a%20search%20example.&See%20the%20updated%20documentation%20and%20working%20demo%20for%20more%20information.
+        // Mustache escapes the parameter for JSON since the placeholder is inside a JSON string.
+        final String source = getSearchTemplate(query, k, idField).replacePlaceholders("{{" + SEARCH_TEMPLATE_PARAMETER + "}}");
 
-        final SearchResponse<UbiEvent> searchResponse = client.search(searchRequest, UbiEvent.class);
+        // The ID is derived from the source so each run of the same query uses the same stored template.
+        final String templateId = "srw-" + UUID.nameUUIDFromBytes(source.getBytes(StandardCharsets.UTF_8));
 
-        String scrollId = searchResponse.scrollId();
-        List<Hit<UbiEvent>> searchHits = searchResponse.hits().hits();
+        final OpenSearchGenericClient genericClient = client.generic().withClientOptions(OpenSearchGenericClient.ClientOptions.throwOnHttpErrors());
 
-        while (searchHits != null && !searchHits.isEmpty()) {
+        final String script = OBJECT_MAPPER.writeValueAsString(Map.of("script", Map.of("lang", "mustache", "source", source)));
 
-            for (int i = 0; i < searchResponse.hits().hits().size(); i++) {
+        try (final Response scriptResponse = genericClient.execute(
+                Requests.builder()
+                        .endpoint("_scripts/" + templateId)
+                        .method("PUT")
+                        .json(script)
+                        .build())) {
 
-                final UbiEvent ubiEvent = searchResponse.hits().hits().get(i).source();
+            if (scriptResponse.getStatus() >= 300) {
+                throw new IOException("Unable to store search template " + templateId + ": " + scriptResponse.getStatus() + " " + scriptResponse.getReason());
+            }
 
-                // We need to the hash of the query_id because two users can both search
-                // for "computer" and those searches will have different query IDs, but they are the same search.
-                final String userQuery = getUserQuery(ubiEvent.getQueryId());
+            LOGGER.info("Stored search template {}", templateId);
 
-                // userQuery will be null if there is not a query for this event in ubi_queries.
-                if (userQuery != null) {
+        }
 
-                    // Get the clicks for this queryId from the map, or an empty list if this is a new query.
-                    final Set<ClickthroughRate> clickthroughRates = queriesToClickthroughRates.getOrDefault(userQuery, new LinkedHashSet<>());
+        return templateId;
 
-                    // Get the ClickthroughRate object for the object that was interacted with.
-                    final ClickthroughRate clickthroughRate = clickthroughRates.stream().filter(p -> p.getObjectId().equals(ubiEvent.getEventAttributes().getObject().getObjectId())).findFirst().orElse(new ClickthroughRate(ubiEvent.getEventAttributes().getObject().getObjectId()));
+    }
 
-                    if (EVENT_CLICK.equalsIgnoreCase(ubiEvent.getActionName())) {
-                        //LOGGER.info("Logging a CLICK on " + ubiEvent.getEventAttributes().getObject().getObjectId());
-                        clickthroughRate.logClick();
-                    } else if (EVENT_IMPRESSION.equalsIgnoreCase(ubiEvent.getActionName())) {
-                        //LOGGER.info("Logging an IMPRESSION on " + ubiEvent.getEventAttributes().getObject().getObjectId());
-                        clickthroughRate.logImpression();
-                    } else {
-                        LOGGER.warn("Invalid event action name: {}", ubiEvent.getActionName());
-                    }
+    @Override
+    public List<QueryRun> runSearchTemplateQueries(final String index, final String templateId, final List<String> userQueries, final String idField,
+                                                   final String pipeline) throws IOException {
 
-                    // Safeguard to avoid having clicks without events.
-                    // When the clicks is > 0 and impressions == 0, set the impressions to the number of clicks.
-                    if (clickthroughRate.getClicks() > 0 && clickthroughRate.getImpressions() == 0) {
-                        clickthroughRate.setImpressions(clickthroughRate.getClicks());
-                    }
+        LOGGER.debug("Running {} queries on index {} with search template {}, idField = {}, pipeline = {}", userQueries.size(), index, templateId, idField, pipeline);
 
-                    clickthroughRates.add(clickthroughRate);
-                    queriesToClickthroughRates.put(userQuery, clickthroughRates);
-                    // LOGGER.debug("clickthroughRate = {}", queriesToClickthroughRates.size());
+        // Each search only carries the template ID and the user query.
+        final String header = OBJECT_MAPPER.writeValueAsString(Map.of("index", index));
+        final StringBuilder body = new StringBuilder();
 
-                }
+        for (final String userQuery : userQueries) {
+            body.append(header).append('\n');
+            body.append(OBJECT_MAPPER.writeValueAsString(Map.of("id", templateId, "params", Map.of(SEARCH_TEMPLATE_PARAMETER, userQuery)))).append('\n');
+        }
 
-            }
+        final OpenSearchGenericClient genericClient = client.generic().withClientOptions(OpenSearchGenericClient.ClientOptions.throwOnHttpErrors());
 
-            //LOGGER.info("Doing scroll to next results");
-            // TODO: Getting a warning in the log that "QueryGroup _id can't be null, It should be set before accessing it. This is abnormal behaviour"
-            // I don't remember seeing this prior to 2.18.0 but it's possible I just didn't see it.
-            // https://github.com/opensearch-project/OpenSearch/blob/f105e4eb2ede1556b5dd3c743bea1ab9686ebccf/server/src/main/java/org/opensearch/wlm/QueryGroupTask.java#L73
+        final Map<String, String> params = new HashMap<>();
 
-            if (scrollId == null) {
-                break;
-            }
+        if (!pipeline.isEmpty()) {
+            params.put("search_pipeline", pipeline);
+        }
+
+        final List<QueryRun> queryRuns;
 
-            final ScrollRequest scrollRequest = new ScrollRequest.Builder().scrollId(scrollId).build();
-            final ScrollResponse<UbiEvent> scrollResponse = client.scroll(scrollRequest, UbiEvent.class);
+        try (final Response searchResponse = genericClient.execute(
+                Requests.builder()
+                        .endpoint(index + "/_msearch/template")
+                        .method("POST")
+                        .body(Body.from(body.toString().getBytes(StandardCharsets.UTF_8), "application/x-ndjson"))
+                        .query(params)
+                        .build())) {
 
-            scrollId = scrollResponse.scrollId();
-            searchHits = scrollResponse.hits().hits();
+            final Body responseBody = searchResponse.getBody()
+                    .orElseThrow(() -> new IOException("The multi-search template response has no body."));
+
+            queryRuns = new SearchResponseParser(idField).parseMultiSearchResponse(responseBody.body());
 
         }
 
-        indexClickthroughRates(queriesToClickthroughRates);
+        if (queryRuns.size() != userQueries.size()) {
+            throw new IOException("Expected " + userQueries.size() + " responses to the multi-search template request.");
+        }
 
-        return queriesToClickthroughRates;
+        for (int i = 0; i < queryRuns.size(); i++) {
+            if (queryRuns.get(i).hasError()) {
+                LOGGER.warn("Query for user query {} failed: {}", userQueries.get(i), queryRuns.get(i).getError());
+            }
+        }
+
+        return queryRuns;
 
     }
 
-    @Override
-    public Map<Integer, Double> getRankAggregatedClickThrough(final int maxRank) throws Exception {
+    // Gets the compiled template for a query with the size, track_total_hits, and _source set so the rendered query can be sent as is.
+    private QueryTemplate getSearchTemplate(final String query, final int k, final String idField) throws IOException {
 
-        final Map<Integer, Double> rankAggregatedClickThrough = new HashMap<>();
+        return getQueryTemplate(k + "\0" + idField, query, () -> {
 
-        final RangeQuery rangeQuery = RangeQuery.of(r -> r
+            final ObjectNode search = (ObjectNode) OBJECT_MAPPER.readTree(query);
+
+            search.put("size", k);
+            search.put("track_total_hits", true);
+
+            // Only the ID field is needed from each hit.
+            if (SearchResponseParser.ID_FIELD.equals(idField)) {
+                search.put("_source", false);
+            } else {
+                search.putArray("_source").add(idField);
+            }
+
+            return QueryTemplate.compile(OBJECT_MAPPER.writeValueAsString(search));
+
+        });
+
+    }
+
+    private QueryTemplate getQueryTemplate(final String variant, final String query, final Callable<QueryTemplate> compiler) throws IOException {
+
+        try {
+            return queryTemplateCache.get(variant + "\0" + query, key -> compiler.call());
+        } catch (IOException | RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new IOException("Unable to compile the query template.", ex);
+        }
+
+    }
+
+    @Override
+    public String getIndexFingerprint(final String index) throws IOException {
+
+        final OpenSearchGenericClient genericClient = client.generic().withClientOptions(OpenSearchGenericClient.ClientOptions.throwOnHttpErrors());
+
+        final JsonNode stats;
+
+        try (final Response statsResponse = genericClient.execute(
+                Requests.builder()
+                        .endpoint(index + "/_stats/docs")
+                        .method("GET")
+                        .query(Map.of("level", "shards"))
+                        .build())) {
+
+            final Body responseBody = statsResponse.getBody()
+                    .orElseThrow(() -> new IOException("The index stats response has no body."));
+
+            stats = OBJECT_MAPPER.readTree(responseBody.body());
+
+        }
+
+        final JsonNode indices = stats.get("indices");
+
+        if (indices == null || indices.isEmpty()) {
+            throw new IOException("No indexes found for " + index);
+        }
+
+        // The index names are sorted so the fingerprint does not depend on the order of the response.
+        final List<String> indexNames = new ArrayList<>();
+        indices.fieldNames().forEachRemaining(indexNames::add);
+        Collections.sort(indexNames);
+
+        final StringBuilder fingerprint = new StringBuilder();
+
+        for (final String indexName : indexNames) {
+
+            final JsonNode indexStats = indices.get(indexName);
+
+            // The UUID changes when the index is recreated, the document count when documents are added or
+            // deleted, and the max sequence number of each primary shard on every write.
+            fingerprint.append(indexName)
+                    .append('/').append(indexStats.path("uuid").asText())
+                    .append('/').append(indexStats.path("primaries").path("docs").path("count").asLong());
+
+            final List<String> shardIds = new ArrayList<>();
+            indexStats.path("shards").fieldNames().forEachRemaining(shardIds::add);
+            Collections.sort(shardIds);
+
+            for (final String shardId : shardIds) {
+                for (final JsonNode shard : indexStats.path("shards").get(shardId)) {
+                    if (shard.path("routing").path("primary").asBoolean()) {
+                        fingerprint.append('/').append(shardId).append(':').append(shard.path("seq_no").path("max_seq_no").asLong());
+                    }
+                }
+            }
+
+            fingerprint.append(';');
+
+        }
+
+        return fingerprint.toString();
+
+    }
+
+    @Override
+    public Map<String, Set<ClickthroughRate>> getClickthroughRate(final int maxRank, final String application, final TimeFilter timeFilter) throws Exception {
+
+        // Map of user_query to a map of object_id to its clickthrough rate, so each event finds its counter without a scan.
+        final Map<String, Map<String, ClickthroughRate>> queriesToObjectClickthroughRates = new HashMap<>();
+
+        // For each query:
+        // - Get each document returned in that query (in the QueryResponse object).
+        // - Calculate the click-through rate for the document. (clicks/impressions)
+
+        final String query = "{\n" +
+                "                \"bool\": {\n" +
+                "                  \"should\": [\n" +
+                "                    {\n" +
+                "                      \"term\": {\n" +
+                "                        \"action_name\": \"click\"\n" +
+                "                      }\n" +
+                "                    },\n" +
+                "                    {\n" +
+                "                      \"term\": {\n" +
+                "                        \"action_name\": \"impression\"\n" +
+                "                      }\n" +
+                "                    }\n" +
+                "                  ],\n" +
+                "                  \"must\": [\n" +
+                "                    {\n" +
+                "                      \"range\": {\n" +
+                "                        \"event_attributes.position.ordinal\": {\n" +
+                "                          \"lte\": " + maxRank + "\n" +
+                "                        }\n" +
+                "                      }\n" +
+                "                    }\n" +
+                "                  ]\n" +
+                "                }\n" +
+                "              }";
+
+        final String encodedQuery = Base64.getEncoder().encodeToString(query.getBytes(StandardCharsets.UTF_8));
+
+        final WrapperQuery wrapperQuery = new WrapperQuery.Builder()
+                .query(encodedQuery)
+                .build();
+
+        final BoolQuery eventsQuery = new BoolQuery.Builder()
+                .must(wrapperQuery.toQuery())
+                .filter(getEventFilterQueries(application, timeFilter))
+                .build();
+
+        // Join the events to their user queries in memory rather than looking up the user query for each event.
+        final UserQueryTable userQueryTable = getEventUserQueryTable(application, timeFilter, null, null);
+
+        pointInTimeReader.read(Constants.UBI_EVENTS_INDEX_NAME, eventsQuery.toQuery(), null, UbiEvent.class, ubiEvent -> {
+
+            // We need to the hash of the query_id because two users can both search
+            // for "computer" and those searches will have different query IDs, but they are the same search.
+            final String userQuery = userQueryTable.resolve(ubiEvent);
+
+            // userQuery will be null if there is not a query for this event in ubi_queries.
+            if (userQuery != null) {
+
+                // Get the ClickthroughRate object for the object that was interacted with.
+                final String objectId = ubiEvent.getEventAttributes().getObject().getObjectId();
+                // The impressions are tracked by rank so the judgments do not need to count them with a query per rank.
+                final ClickthroughRate clickthroughRate = queriesToObjectClickthroughRates
+                        .computeIfAbsent(userQuery, k -> new LinkedHashMap<>())
+                        .computeIfAbsent(objectId, id -> new ClickthroughRate(id, maxRank));
+
+                if (EVENT_CLICK.equalsIgnoreCase(ubiEvent.getActionName())) {
+                    //LOGGER.info("Logging a CLICK on " + ubiEvent.getEventAttributes().getObject().getObjectId());
+                    clickthroughRate.logClick();
+                } else if (EVENT_IMPRESSION.equalsIgnoreCase(ubiEvent.getActionName())) {
+                    //LOGGER.info("Logging an IMPRESSION on " + ubiEvent.getEventAttributes().getObject().getObjectId());
+                    final Position position = ubiEvent.getEventAttributes().getPosition();
+                    clickthroughRate.logImpression(position != null ? position.getOrdinal() : -1);
+                } else {
+                    LOGGER.warn("Invalid event action name: {}", ubiEvent.getActionName());
+                }
+
+                // Safeguard to avoid having clicks without events.
+                // When the clicks is > 0 and impressions == 0, set the impressions to the number of clicks.
+                if (clickthroughRate.getClicks() > 0 && clickthroughRate.getImpressions() == 0) {
+                    clickthroughRate.setImpressions(clickthroughRate.getClicks());
+                }
+
+            }
+
+        });
+
+        final Map<String, Set<ClickthroughRate>> queriesToClickthroughRates = new HashMap<>();
+
+        for (final Map.Entry<String, Map<String, ClickthroughRate>> entry : queriesToObjectClickthroughRates.entrySet()) {
+            queriesToClickthroughRates.put(entry.getKey(), new LinkedHashSet<>(entry.getValue().values()));
+        }
+
+        indexClickthroughRates(queriesToClickthroughRates);
+
+        return queriesToClickthroughRates;
+
+    }
+
+    @Override
+    public Map<Integer, Double> getRankAggregatedClickThrough(final int maxRank, final String application, final TimeFilter timeFilter) throws Exception {
+
+        final Map<Integer, Double> rankAggregatedClickThrough = new HashMap<>();
+
+        final RangeQuery rangeQuery = RangeQuery.of(r -> r
                 .field("event_attributes.position.ordinal")
                 .lte(JsonData.of(maxRank))
         );
 
+        final BoolQuery eventsQuery = new BoolQuery.Builder()
+                .must(rangeQuery.toQuery())
+                .filter(getEventFilterQueries(application, timeFilter))
+                .build();
+
         // TODO: Is this the same as: final BucketOrder bucketOrder = BucketOrder.key(true);
         final List<Map<String, SortOrder>> sort = new ArrayList<>();
         sort.add(Map.of("_key", SortOrder.Asc));
@@ -807,11 +1131,10 @@ public class OpenSearchEngine extends SearchEngine {
         final Map<String, Aggregation> aggregations = new HashMap<>();
         aggregations.put("By_Action", actionNameAggregation);
 
-        // TODO: Allow for a time period and for a specific application.
         final SearchRequest searchRequest = new SearchRequest.Builder()
                 .index(Constants.UBI_EVENTS_INDEX_NAME)
                 .aggregations(aggregations)
-                .query(q -> q.range(rangeQuery))
+                .query(q -> q.bool(eventsQuery))
                 .from(0)
                 .size(0)
                 .build();
@@ -892,6 +1215,390 @@ public class OpenSearchEngine extends SearchEngine {
 
     }
 
+    @Override
+    public ClickStatistics getClickStatistics(final int maxRank, final String application, final TimeFilter timeFilter) throws Exception {
+
+        final ClickStatisticsSnapshot clickStatisticsSnapshot = new ClickStatisticsSnapshot(maxRank);
+        // A new snapshot has no watermark, so all the queries are read and the lookback is not used.
+        updateClickStatistics(clickStatisticsSnapshot, application, timeFilter, Duration.ZERO);
+
+        return clickStatisticsSnapshot.getClickStatistics();
+
+    }
+
+    @Override
+    public void updateClickStatistics(final ClickStatisticsSnapshot clickStatisticsSnapshot, final String application, final TimeFilter timeFilter,
+                                      final Duration queryLookback) throws Exception {
+
+        final ClickStatistics clickStatistics = clickStatisticsSnapshot.getClickStatistics();
+
+        final Query query = getClickEventsQuery(clickStatistics.getMaxRank(), application, timeFilter, clickStatisticsSnapshot.getWatermark());
+
+        // Join the events to their user queries in memory rather than looking up the user query for each event.
+        // Only the queries the events after the watermark can be for are read.
+        final String watermark = clickStatisticsSnapshot.getWatermark();
+        final UserQueryTable userQueryTable = getEventUserQueryTable(application, timeFilter, watermark, queryLookback);
+
+        // The events that could not be joined, such as those whose query is older than the lookback.
+        final LongAdder unjoinedEventCount = new LongAdder();
+
+        // Only the fields needed to calculate the statistics are retrieved.
+        final long eventCount = pointInTimeReader.read(Constants.UBI_EVENTS_INDEX_NAME, query, EVENT_SOURCE_FIELDS, UbiEvent.class, ubiEvent -> {
+
+            if (ubiEvent == null || ubiEvent.getEventAttributes() == null
+                    || ubiEvent.getEventAttributes().getObject() == null
+                    || ubiEvent.getEventAttributes().getPosition() == null) {
+                return;
+            }
+
+            final int rank = ubiEvent.getEventAttributes().getPosition().getOrdinal();
+
+            clickStatisticsSnapshot.advanceWatermark(ubiEvent.getTimestamp());
+
+            // Every event counts toward the rank-aggregated clickthrough.
+            clickStatistics.logRankEvent(ubiEvent.getActionName(), rank);
+
+            // userQuery will be null if there is not a query for this event in ubi_queries.
+            final String userQuery = userQueryTable.resolve(ubiEvent);
+
+            if (userQuery != null) {
+                clickStatistics.logEvent(userQuery, ubiEvent.getEventAttributes().getObject().getObjectId(), ubiEvent.getActionName(), rank);
+            } else {
+                unjoinedEventCount.increment();
+            }
+
+        });
+
+        LOGGER.info("Read {} events to calculate the click statistics. Watermark: {}", eventCount, clickStatisticsSnapshot.getWatermark());
+
+        if (unjoinedEventCount.sum() > 0 && watermark != null) {
+            LOGGER.warn("{} events could not be joined to a user query and are only counted in the rank-aggregated clickthrough. "
+                    + "Their queries may be more than {} hours before the watermark {}.", unjoinedEventCount.sum(), queryLookback.toHours(), watermark);
+        } else if (unjoinedEventCount.sum() > 0) {
+            LOGGER.info("{} events could not be joined to a user query and are only counted in the rank-aggregated clickthrough.", unjoinedEventCount.sum());
+        }
+
+    }
+
+    @Override
+    public void updateClickStatistics(final SpillingClickStatistics spillingClickStatistics, final String application, final TimeFilter timeFilter) throws Exception {
+
+        final Query query = getClickEventsQuery(spillingClickStatistics.getMaxRank(), application, timeFilter, null);
+
+        // Join the events to their user queries in memory rather than looking up the user query for each event.
+        final UserQueryTable userQueryTable = getEventUserQueryTable(application, timeFilter, null, null);
+
+        // The join table is held while the events are read so it counts toward the memory budget.
+        spillingClickStatistics.setReservedBytes(userQueryTable.getSizeInBytes());
+
+        final long eventCount;
+
+        try {
+
+            // Only the fields needed to calculate the statistics are retrieved.
+            eventCount = pointInTimeReader.read(Constants.UBI_EVENTS_INDEX_NAME, query, EVENT_SOURCE_FIELDS, UbiEvent.class, ubiEvent -> {
+
+                if (ubiEvent == null || ubiEvent.getEventAttributes() == null
+                        || ubiEvent.getEventAttributes().getObject() == null
+                        || ubiEvent.getEventAttributes().getPosition() == null) {
+                    return;
+                }
+
+                final int rank = ubiEvent.getEventAttributes().getPosition().getOrdinal();
+
+                // Every event counts toward the rank-aggregated clickthrough.
+                spillingClickStatistics.logRankEvent(ubiEvent.getActionName(), rank);
+
+                // userQuery will be null if there is not a query for this event in ubi_queries.
+                final String userQuery = userQueryTable.resolve(ubiEvent);
+
+                if (userQuery != null) {
+                    spillingClickStatistics.logEvent(userQuery, ubiEvent.getEventAttributes().getObject().getObjectId(), ubiEvent.getActionName(), rank);
+                }
+
+            });
+
+        } finally {
+            spillingClickStatistics.setReservedBytes(0);
+        }
+
+        LOGGER.info("Read {} events to calculate the click statistics with {} spills to disk.", eventCount, spillingClickStatistics.getSpillCount());
+
+    }
+
+    @Override
+    public ClickStatistics getAggregatedClickStatistics(final int maxRank, final String aggregationKey, final String application, final TimeFilter timeFilter) throws Exception {
+
+        if (!"query_id".equals(aggregationKey) && !USER_QUERY_FIELD.equals(aggregationKey)) {
+            throw new IllegalArgumentException("Invalid aggregation key: " + aggregationKey);
+        }
+
+        final ClickStatistics clickStatistics = new ClickStatistics(maxRank);
+
+        final Query query = getClickEventsQuery(maxRank, application, timeFilter, null);
+
+        // The order of the sources is the order of the buckets.
+        final List<Map<String, CompositeAggregationSource>> sources = List.of(
+                Map.of(aggregationKey, CompositeAggregationSource.of(c -> c.terms(t -> t.field(aggregationKey)))),
+                Map.of("object_id", CompositeAggregationSource.of(c -> c.terms(t -> t.field("event_attributes.object.object_id")))),
+                Map.of("action_name", CompositeAggregationSource.of(c -> c.terms(t -> t.field("action_name")))),
+                Map.of("position", CompositeAggregationSource.of(c -> c.terms(t -> t.field("event_attributes.position.ordinal"))))
+        );
+
+        // Aggregating by query_id requires joining the buckets to their user queries.
+        final UserQueryTable userQueryTable = USER_QUERY_FIELD.equals(aggregationKey) ? null : getEventUserQueryTable(application, timeFilter, null, null);
+
+        Map<String, String> afterKey = null;
+        long bucketCount = 0;
+
+        do {
+
+            final Map<String, String> after = afterKey;
+
+            final Aggregation compositeAggregation = Aggregation.of(a -> a
+                    .composite(c -> {
+                        c.size(COMPOSITE_AGGREGATION_PAGE_SIZE).sources(sources);
+                        if (after != null) {
+                            c.after(after);
+                        }
+                        return c;
+                    })
+            );
+
+            final SearchRequest searchRequest = new SearchRequest.Builder()
+                    .index(Constants.UBI_EVENTS_INDEX_NAME)
+                    .query(query)
+                    .aggregations(Map.of("By_Query_Object_Action_Position", compositeAggregation))
+                    .size(0)
+                    .build();
+
+            final SearchResponse<Void> searchResponse = client.search(searchRequest, Void.class);
+
+            final CompositeAggregate compositeAggregate = searchResponse.aggregations().get("By_Query_Object_Action_Position").composite();
+            final List<CompositeBucket> buckets = compositeAggregate.buckets().array();
+
+            for (final CompositeBucket bucket : buckets) {
+
+                final String key = getCompositeKeyValue(bucket.key().get(aggregationKey));
+                final String objectId = getCompositeKeyValue(bucket.key().get("object_id"));
+                final String actionName = getCompositeKeyValue(bucket.key().get("action_name"));
+                final int rank = (int) Double.parseDouble(getCompositeKeyValue(bucket.key().get("position")));
+                final long count = bucket.docCount();
+
+                // Every event counts toward the rank-aggregated clickthrough.
+                clickStatistics.logRankEvents(actionName, rank, count);
+
+                // userQuery will be null if there is not a query for this event in ubi_queries.
+                final String userQuery = userQueryTable == null ? key : userQueryTable.get(key);
+
+                if (StringUtils.isNotEmpty(userQuery)) {
+                    clickStatistics.logEvents(userQuery, objectId, actionName, rank, count);
+                }
+
+            }
+
+            bucketCount += buckets.size();
+
+            // The after key is only present when there may be more buckets.
+            if (buckets.isEmpty() || compositeAggregate.afterKey() == null || compositeAggregate.afterKey().isEmpty()) {
+                afterKey = null;
+            } else {
+                afterKey = new HashMap<>();
+                for (final Map.Entry<String, JsonData> entry : compositeAggregate.afterKey().entrySet()) {
+                    afterKey.put(entry.getKey(), getCompositeKeyValue(entry.getValue()));
+                }
+            }
+
+        } while (afterKey != null);
+
+        // The click bucket of a pair comes before its impression buckets, so the safeguard can only be applied to the totals.
+        clickStatistics.applyClickSafeguard();
+
+        LOGGER.info("Read {} aggregation buckets to calculate the click statistics.", bucketCount);
+
+        return clickStatistics;
+
+    }
+
+    /**
+     * Gets the query for the UBI queries of an application within a time period.
+     * @param application The application, or <code>""</code> for all applications.
+     * @param timeFilter The {@link TimeFilter}.
+     * @return The query for the UBI queries.
+     */
+    private Query getUbiQueriesQuery(final String application, final TimeFilter timeFilter) {
+
+        final List<Query> mustQueries = new ArrayList<>();
+        mustQueries.add(new MatchAllQuery.Builder().build().toQuery());
+
+        if(StringUtils.isNotEmpty(application)) {
+            // Just a certain application.
+            LOGGER.info("Filtering UBI queries by application: {}", application);
+            final TermQuery applicationQuery = TermQuery.of(tq -> tq.field("application").value(FieldValue.of(application)));
+            mustQueries.add(applicationQuery.toQuery());
+        }
+
+        if(StringUtils.isNotEmpty(timeFilter.getStartTimestamp()) && StringUtils.isEmpty(timeFilter.getEndTimestamp())) {
+            // Just a start timestamp.
+            LOGGER.info("Filtering queries with time filter: {}", timeFilter);
+            final RangeQuery timestampQuery = RangeQuery.of(q -> q.field("timestamp").gte(JsonData.of(timeFilter.getStartTimestamp())));
+            mustQueries.add(timestampQuery.toQuery());
+        }
+
+        if(StringUtils.isEmpty(timeFilter.getStartTimestamp()) && StringUtils.isNotEmpty(timeFilter.getEndTimestamp())) {
+            // Just an end timestamp.
+            LOGGER.info("Filtering queries with time filter: {}", timeFilter);
+            final RangeQuery timestampQuery = RangeQuery.of(q -> q.field("timestamp").lte(JsonData.of(timeFilter.getEndTimestamp())));
+            mustQueries.add(timestampQuery.toQuery());
+        }
+
+        if(StringUtils.isNotEmpty(timeFilter.getStartTimestamp()) && StringUtils.isNotEmpty(timeFilter.getEndTimestamp())) {
+            // Both start and end timestamps.
+            LOGGER.info("Filtering queries with time filter: {}", timeFilter);
+            final RangeQuery timestampQuery = RangeQuery.of(q -> q.field("timestamp").gte(JsonData.of(timeFilter.getStartTimestamp())).lte(JsonData.of(timeFilter.getEndTimestamp())));
+            mustQueries.add(timestampQuery.toQuery());
+        }
+
+        final BoolQuery boolQuery = new BoolQuery.Builder()
+                .must(mustQueries)
+                .mustNot(q -> q.term(m -> m.field(USER_QUERY_FIELD).value(FieldValue.of(""))))
+                .build();
+
+        return boolQuery.toQuery();
+
+    }
+
+    /**
+     * Gets the filters that limit the UBI events to an application and a time period.
+     * @param application The application, or <code>""</code> for all applications.
+     * @param timeFilter The {@link TimeFilter}.
+     * @return The filter queries, which may be empty.
+     */
+    private List<Query> getEventFilterQueries(final String application, final TimeFilter timeFilter) {
+
+        final List<Query> filterQueries = new ArrayList<>();
+
+        if(StringUtils.isNotEmpty(application)) {
+            // Just a certain application.
+            LOGGER.info("Filtering UBI events by application: {}", application);
+            final TermQuery applicationQuery = TermQuery.of(tq -> tq.field(APPLICATION_FIELD).value(FieldValue.of(application)));
+            filterQueries.add(applicationQuery.toQuery());
+        }
+
+        if(StringUtils.isNotEmpty(timeFilter.getStartTimestamp()) || StringUtils.isNotEmpty(timeFilter.getEndTimestamp())) {
+
+            LOGGER.info("Filtering events with time filter: {}", timeFilter);
+
+            final RangeQuery timestampQuery = RangeQuery.of(q -> {
+                q.field("timestamp");
+                if(StringUtils.isNotEmpty(timeFilter.getStartTimestamp())) {
+                    q.gte(JsonData.of(timeFilter.getStartTimestamp()));
+                }
+                if(StringUtils.isNotEmpty(timeFilter.getEndTimestamp())) {
+                    q.lte(JsonData.of(timeFilter.getEndTimestamp()));
+                }
+                return q;
+            });
+
+            filterQueries.add(timestampQuery.toQuery());
+
+        }
+
+        return filterQueries;
+
+    }
+
+    /**
+     * Builds the table of query IDs to user queries needed to join the UBI events of an application and a time period.
+     * A query comes before its events, so the queries are only limited by the end of the time period. A query before
+     * the start of the time period can still have events within it. When only the events after a watermark are read,
+     * the queries are limited to those within a lookback before the watermark, so the events of a query that are
+     * more than that long after it are not joined.
+     * @param application The application, or <code>""</code> for all applications.
+     * @param timeFilter The {@link TimeFilter} for the events.
+     * @param watermark The timestamp the events are after, or <code>null</code> for all events.
+     * @param queryLookback How long before the watermark the queries are read. Not used without a watermark.
+     * @return A {@link UserQueryTable}.
+     * @throws Exception Thrown if the UBI queries cannot be read.
+     */
+    private UserQueryTable getEventUserQueryTable(final String application, final TimeFilter timeFilter, final String watermark,
+                                                  final Duration queryLookback) throws Exception {
+
+        final String startTimestamp = watermark != null ? Instant.parse(watermark).minus(queryLookback).toString() : "";
+        final String endTimestamp = StringUtils.isNotEmpty(timeFilter.getEndTimestamp()) ? timeFilter.getEndTimestamp() : "";
+
+        return getUserQueryTable(application, new TimeFilter(startTimestamp, endTimestamp));
+
+    }
+
+    /**
+     * Builds a table of query IDs to user queries by reading the UBI queries once.
+     * @param application The application, or <code>""</code> for all applications.
+     * @param timeFilter The {@link TimeFilter}.
+     * @return A {@link UserQueryTable}.
+     * @throws Exception Thrown if the UBI queries cannot be read.
+     */
+    private UserQueryTable getUserQueryTable(final String application, final TimeFilter timeFilter) throws Exception {
+
+        final UserQueryTable userQueryTable = new UserQueryTable();
+
+        pointInTimeReader.read(Constants.UBI_QUERIES_INDEX_NAME, getUbiQueriesQuery(application, timeFilter), QUERY_SOURCE_FIELDS, UbiQuery.class, ubiQuery -> {
+            if (ubiQuery != null) {
+                userQueryTable.put(ubiQuery.getQueryId(), ubiQuery.getUserQuery());
+            }
+        });
+
+        LOGGER.info("Read {} query IDs having {} distinct user queries.", userQueryTable.size(), userQueryTable.getUserQueryCount());
+
+        return userQueryTable;
+
+    }
+
+    /**
+     * Gets the query for the click and impression events up to a max rank.
+     * @param maxRank The max rank.
+     * @param application The application, or <code>""</code> for all applications.
+     * @param timeFilter The {@link TimeFilter}.
+     * @param watermark Only events with a timestamp after this one are matched, or <code>null</code> for all events.
+     * @return The query for the click and impression events.
+     */
+    private Query getClickEventsQuery(final int maxRank, final String application, final TimeFilter timeFilter, final String watermark) {
+
+        final BoolQuery.Builder boolQuery = new BoolQuery.Builder()
+                .filter(TermsQuery.of(t -> t
+                        .field("action_name")
+                        .terms(f -> f.value(List.of(FieldValue.of(EVENT_CLICK), FieldValue.of(EVENT_IMPRESSION))))).toQuery())
+                .filter(RangeQuery.of(r -> r
+                        .field("event_attributes.position.ordinal")
+                        .lte(JsonData.of(maxRank))).toQuery())
+                .filter(getEventFilterQueries(application, timeFilter));
+
+        if (watermark != null) {
+            LOGGER.info("Filtering events after the watermark: {}", watermark);
+            boolQuery.filter(RangeQuery.of(r -> r.field("timestamp").gt(JsonData.of(watermark))).toQuery());
+        }
+
+        return boolQuery.build().toQuery();
+
+    }
+
+    /**
+     * Gets the value of a composite aggregation key as a string.
+     * @param value The value of the key.
+     * @return The value as a string.
+     */
+    private String getCompositeKeyValue(final JsonData value) {
+
+        final JsonValue jsonValue = value.toJson();
+
+        if (jsonValue instanceof JsonString) {
+            return ((JsonString) jsonValue).getString();
+        } else {
+            return jsonValue.toString();
+        }
+
+    }
+
     private Collection<String> getQueryIdsHavingUserQuery(final String userQuery) throws Exception {
 
         final SearchRequest searchRequest = new SearchRequest.Builder().query(q -> q.match(m -> m.field(USER_QUERY_FIELD).query(FieldValue.of(userQuery))))
@@ -911,7 +1618,8 @@ public class OpenSearchEngine extends SearchEngine {
     }
 
     @Override
-    public long getCountOfQueriesForUserQueryHavingResultInRankR(final String userQuery, final String objectId, final int rank) throws Exception {
+    public long getCountOfQueriesForUserQueryHavingResultInRankR(final String userQuery, final String objectId, final int rank,
+                                                                 final String application, final TimeFilter timeFilter) throws Exception {
 
         long countOfTimesShownAtRank = 0;
 
@@ -954,9 +1662,15 @@ public class OpenSearchEngine extends SearchEngine {
                     .query(encodedQuery)
                     .build();
 
+            // Only the impressions of the same application and time period as the clicks are counted.
+            final BoolQuery impressionsQuery = new BoolQuery.Builder()
+                    .must(wrapperQuery.toQuery())
+                    .filter(getEventFilterQueries(application, timeFilter))
+                    .build();
+
             final SearchRequest searchRequest = new SearchRequest.Builder()
                     .index(Constants.UBI_EVENTS_INDEX_NAME)
-                    .query(q -> q.wrapper(wrapperQuery))
+                    .query(impressionsQuery.toQuery())
                     .size(0)
                     .trackTotalHits(TrackHits.of(t -> t.enabled(true)))
                     .build();
@@ -1031,30 +1745,51 @@ public class OpenSearchEngine extends SearchEngine {
             for (final String userQuery : clickthroughRates.keySet()) {
 
                 for (final ClickthroughRate clickthroughRate : clickthroughRates.get(userQuery)) {
+                    indexClickthroughRate(userQuery, clickthroughRate.getObjectId(), clickthroughRate.getClicks(), clickthroughRate.getImpressions());
+                }
 
-                    final String id = UUID.randomUUID().toString();
+            }
 
-                    final ClickThroughRate ctr = new ClickThroughRate(id);
-                    ctr.setUserQuery(userQuery);
-                    ctr.setClicks(clickthroughRate.getClicks());
-                    ctr.setEvents(clickthroughRate.getImpressions());
-                    ctr.setCtr(clickthroughRate.getClickthroughRate());
-                    ctr.setObjectId(clickthroughRate.getObjectId());
+        }
 
-                    LOGGER.debug("Clickthrough rate: {}", ctr);
+    }
 
-                    // TODO: This index needs created.
-                    final IndexRequest<ClickThroughRate> indexRequest = new IndexRequest.Builder<ClickThroughRate>().index(Constants.COEC_CTR_INDEX_NAME).id(id).document(ctr).build();
-                    client.index(indexRequest);
+    @Override
+    public void indexClickthroughRates(final ClickStatistics clickStatistics) throws Exception {
 
-                }
+        if (clickStatistics.getPairCount() > 0) {
+
+            createIndexIfNotExists(Constants.COEC_CTR_INDEX_NAME, Constants.COEC_CTR_INDEX_MAPPING);
 
+            // Read the counts of each pair directly instead of creating a ClickthroughRate for every pair.
+            for (int pair = 0; pair < clickStatistics.getPairCount(); pair++) {
+                indexClickthroughRate(clickStatistics.getUserQuery(clickStatistics.getUserQueryId(pair)), clickStatistics.getObjectId(pair),
+                        clickStatistics.getClicks(pair), clickStatistics.getImpressions(pair));
             }
 
         }
 
     }
 
+    private void indexClickthroughRate(final String userQuery, final String objectId, final long clicks, final long impressions) throws Exception {
+
+        final String id = UUID.randomUUID().toString();
+
+        final ClickThroughRate ctr = new ClickThroughRate(id);
+        ctr.setUserQuery(userQuery);
+        ctr.setClicks(clicks);
+        ctr.setEvents(impressions);
+        ctr.setCtr((double) clicks / impressions);
+        ctr.setObjectId(objectId);
+
+        LOGGER.debug("Clickthrough rate: {}", ctr);
+
+        // TODO: This index needs created.
+        final IndexRequest<ClickThroughRate> indexRequest = new IndexRequest.Builder<ClickThroughRate>().index(Constants.COEC_CTR_INDEX_NAME).id(id).document(ctr).build();
+        client.index(indexRequest);
+
+    }
+
     /**
      * Index the judgments.
      *
@@ -1065,31 +1800,74 @@ public class OpenSearchEngine extends SearchEngine {
     @Override
     public String indexJudgments(final Collection<Judgment> judgments) throws Exception {
 
-        final String judgmentsId = UUID.randomUUID().toString();
+        final JudgmentWriter judgmentWriter = getJudgmentWriter(null, BulkIndexer.DEFAULT_MAX_BATCH_DOCUMENTS,
+                BulkIndexer.DEFAULT_MAX_BATCH_BYTES, BulkIndexer.DEFAULT_MAX_IN_FLIGHT_REQUESTS);
+
+        try (judgmentWriter) {
+
+            for (final Judgment judgment : judgments) {
+                judgmentWriter.write(judgment);
+            }
+
+        }
+
+        return judgmentWriter.getJudgmentSetId();
+
+    }
+
+    @Override
+    public JudgmentWriter getJudgmentWriter(final String judgmentSetId, final int maxBatchDocuments, final long maxBatchBytes, final int maxInFlightRequests) {
+
+        final String id = judgmentSetId != null ? judgmentSetId : UUID.randomUUID().toString();
         final String timestamp = TimeUtils.getTimestamp();
 
-        // TODO: Use bulk imports.
+        final BulkIndexer bulkIndexer = new BulkIndexer(client, maxBatchDocuments, maxBatchBytes, maxInFlightRequests, BulkIndexer.DEFAULT_MAX_RETRIES);
 
-        for (final Judgment judgment : judgments) {
+        return new JudgmentWriter() {
 
-            judgment.setJudgmentSetId(judgmentsId);
-            judgment.setTimestamp(timestamp);
+            private long count = 0;
 
-            final IndexRequest<Judgment> indexRequest = new IndexRequest.Builder<Judgment>().index(Constants.JUDGMENTS_INDEX_NAME).id(judgment.getId()).document(judgment).build();
-            client.index(indexRequest);
+            @Override
+            public void write(final Judgment judgment) throws Exception {
 
-        }
+                judgment.setId(Judgment.getJudgmentId(id, judgment.getUserQuery(), judgment.getDocument()));
+                judgment.setJudgmentSetId(id);
+                judgment.setTimestamp(timestamp);
+
+                bulkIndexer.index(Constants.JUDGMENTS_INDEX_NAME, judgment.getId(), judgment);
+                count++;
+
+            }
+
+            @Override
+            public String getJudgmentSetId() {
+                return id;
+            }
+
+            @Override
+            public long getCount() {
+                return count;
+            }
+
+            @Override
+            public void close() throws IOException {
+                bulkIndexer.close();
+            }
 
-        return judgmentsId;
+        };
 
     }
 
     @Override
-    public long indexQueryRunResult(final QuerySetRunResult querySetRunResult) throws Exception {
+    public QueryResultWriter getQueryResultWriter(final String runId, final QuerySetRunParameters querySetRunParameters) throws Exception {
+
+        return getQueryResultWriter(runId, querySetRunParameters.getQuerySetId(), querySetRunParameters.getApplication(),
+                querySetRunParameters.getSearchConfig(), querySetRunParameters.getRefreshPolicy());
 
-        LOGGER.info("Indexing query run results...");
+    }
 
-        long indexedCount = 0;
+    private QueryResultWriter getQueryResultWriter(final String runId, final String querySetId, final String application,
+                                                   final String searchConfig, final String refreshPolicy) throws Exception {
 
         // Index the metrics as expected by the dashboards.
 
@@ -1099,61 +1877,90 @@ public class OpenSearchEngine extends SearchEngine {
         createIndexIfNotExists(Constants.METRICS_INDEX_NAME, Constants.METRICS_INDEX_MAPPING);
         createIndexIfNotExists(Constants.QUERY_RESULTS_INDEX_NAME, Constants.QUERY_RESULTS_MAPPING);
 
+        final Refresh refresh;
+        final boolean refreshAtEnd;
+
+        if (refreshPolicy == null || QuerySetRunParameters.REFRESH_POLICY_END.equalsIgnoreCase(refreshPolicy)) {
+            refresh = null;
+            refreshAtEnd = true;
+        } else if (QuerySetRunParameters.REFRESH_POLICY_WAIT_FOR.equalsIgnoreCase(refreshPolicy)) {
+            refresh = Refresh.WaitFor;
+            refreshAtEnd = false;
+        } else if (QuerySetRunParameters.REFRESH_POLICY_TRUE.equalsIgnoreCase(refreshPolicy)) {
+            refresh = Refresh.True;
+            refreshAtEnd = false;
+        } else if (QuerySetRunParameters.REFRESH_POLICY_FALSE.equalsIgnoreCase(refreshPolicy)) {
+            refresh = null;
+            refreshAtEnd = false;
+        } else {
+            throw new IllegalArgumentException("Invalid refresh policy: " + refreshPolicy);
+        }
+
         final String timestamp = TimeUtils.getTimestamp();
 
-        for (final QueryResult queryResult : querySetRunResult.getQueryResults()) {
+        // The metrics and the query results are indexed in the same bulk requests.
+        final BulkIndexer bulkIndexer = new BulkIndexer(client, BulkIndexer.DEFAULT_MAX_BATCH_DOCUMENTS, BulkIndexer.DEFAULT_MAX_BATCH_BYTES,
+                BulkIndexer.DEFAULT_MAX_IN_FLIGHT_REQUESTS, BulkIndexer.DEFAULT_MAX_RETRIES, refresh);
 
-            final List<BulkOperation> bulkOperations = new ArrayList<>();
+        return new QueryResultWriter() {
 
-            for (final SearchMetric searchMetric : queryResult.getSearchMetrics()) {
+            @Override
+            public void write(final QueryResult queryResult) throws Exception {
 
-                final QueryRunMetric queryRunMetric = new QueryRunMetric();
-                queryRunMetric.setQuerySetRunId(querySetRunResult.getRunId());
-                queryRunMetric.setTimestamp(timestamp);
-                queryRunMetric.setSearchConfig(querySetRunResult.getSearchConfig());
-                queryRunMetric.setQuerySetId(querySetRunResult.getQuerySetId());
-                queryRunMetric.setUserQuery(queryResult.getQuery());
-                queryRunMetric.setMetric(searchMetric.getName());
-                queryRunMetric.setValue(searchMetric.getValue());
-                queryRunMetric.setApplication(querySetRunResult.getApplication());
-                queryRunMetric.setEvaluationId(querySetRunResult.getRunId());
-                queryRunMetric.setFrogsPercent(queryResult.getFrogs());
+                for (final SearchMetric searchMetric : queryResult.getSearchMetrics()) {
 
-                bulkOperations.add(new BulkOperation.Builder().index(
-                        IndexOperation.of(io -> io
-                                .index(Constants.METRICS_INDEX_NAME)
-                                .id(queryRunMetric.getId())
-                                .document(queryRunMetric)))
-                        .build());
+                    final QueryRunMetric queryRunMetric = new QueryRunMetric(QueryRunMetric.getQueryRunMetricId(runId, queryResult.getQuery(), searchMetric.getName()));
+                    queryRunMetric.setQuerySetRunId(runId);
+                    queryRunMetric.setTimestamp(timestamp);
+                    queryRunMetric.setSearchConfig(searchConfig);
+                    queryRunMetric.setQuerySetId(querySetId);
+                    queryRunMetric.setUserQuery(queryResult.getQuery());
+                    queryRunMetric.setMetric(searchMetric.getName());
+                    queryRunMetric.setValue(searchMetric.getValue());
+                    queryRunMetric.setApplication(application);
+                    queryRunMetric.setEvaluationId(runId);
+                    queryRunMetric.setFrogsPercent(queryResult.getFrogs());
+
+                    bulkIndexer.index(Constants.METRICS_INDEX_NAME, queryRunMetric.getId(), queryRunMetric);
+
+                }
+
+                // Index the query result.
+                final QueryRunResults queryRunResults = new QueryRunResults(QueryRunResults.getQueryRunResultsId(runId, queryResult.getQuery()));
+                queryRunResults.setQuerySetId(querySetId);
+                queryRunResults.setResultSet(queryResult.getOrderedDocumentIds());
+                queryRunResults.setUserQuery(queryResult.getQuery());
+                queryRunResults.setTimestamp(timestamp);
+                queryRunResults.setEvaluationId(runId);
+                queryRunResults.setNumberOfResults(queryResult.getNumberOfResults());
+
+                bulkIndexer.index(Constants.QUERY_RESULTS_INDEX_NAME, queryRunResults.getId(), queryRunResults);
 
             }
 
-            // Index the query result.
-            final QueryRunResults queryRunResults = new QueryRunResults();
-            queryRunResults.setQuerySetId(querySetRunResult.getQuerySetId());
-            queryRunResults.setResultSet(queryResult.getOrderedDocumentIds());
-            queryRunResults.setUserQuery(queryResult.getQuery());
-            queryRunResults.setTimestamp(timestamp);
-            queryRunResults.setEvaluationId(querySetRunResult.getRunId());
-            queryRunResults.setNumberOfResults(queryResult.getNumberOfResults());
-
-            final IndexRequest<QueryRunResults> ir = new IndexRequest.Builder<QueryRunResults>().index(Constants.QUERY_RESULTS_INDEX_NAME).id(queryRunResults.getId()).document(queryRunResults).build();
-            client.index(ir);
-
-            // Index the metrics and the query results.
-            final BulkRequest bulkRequest = new BulkRequest.Builder()
-                    .index(Constants.METRICS_INDEX_NAME)
-                    .operations(bulkOperations)
-                    .refresh(Refresh.True)
-                    .build();
+            @Override
+            public void flush() throws Exception {
+                bulkIndexer.flushAndWait();
+            }
 
-            final BulkResponse bulkResponse = client.bulk(bulkRequest);
+            @Override
+            public long getIndexedCount() {
+                return bulkIndexer.getIndexedCount();
+            }
 
-            indexedCount += bulkResponse.items().size();
+            @Override
+            public void close() throws IOException {
 
-        }
+                bulkIndexer.close();
 
-        return indexedCount;
+                // Make all the results visible at once rather than refreshing for each query.
+                if (refreshAtEnd) {
+                    client.indices().refresh(r -> r.index(Constants.METRICS_INDEX_NAME, Constants.QUERY_RESULTS_INDEX_NAME));
+                }
+
+            }
+
+        };
 
     }
 
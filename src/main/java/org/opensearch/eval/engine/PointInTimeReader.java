@@ -0,0 +1,223 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.engine;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.opensearch.client.opensearch.OpenSearchClient;
+import org.opensearch.client.opensearch._types.FieldValue;
+import org.opensearch.client.opensearch._types.SortOptions;
+import org.opensearch.client.opensearch._types.SortOrder;
+import org.opensearch.client.opensearch._types.query_dsl.Query;
+import org.opensearch.client.opensearch.core.SearchRequest;
+import org.opensearch.client.opensearch.core.SearchResponse;
+import org.opensearch.client.opensearch.core.pit.CreatePitResponse;
+import org.opensearch.client.opensearch.core.search.Hit;
+import org.opensearch.client.opensearch.core.search.Pit;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads all documents matching a query from an index using a point in time (PIT) and <code>search_after</code>.
+ * The PIT is split into one slice per shard and the slices are read concurrently by a bounded pool of workers.
+ * The PIT is always deleted when the read completes, whether it succeeds or fails.
+ */
+public class PointInTimeReader {
+
+    private static final Logger LOGGER = LogManager.getLogger(PointInTimeReader.class);
+
+    /**
+     * The default number of documents to retrieve in each page.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+
+    /**
+     * The default time to keep the PIT alive between pages.
+     */
+    public static final String DEFAULT_KEEP_ALIVE = "10m";
+
+    private final OpenSearchClient client;
+    private final int maxConcurrency;
+    private final int pageSize;
+    private final String keepAlive;
+
+    /**
+     * A consumer of the documents read from the index.
+     * @param <T> The type of document.
+     */
+    @FunctionalInterface
+    public interface DocumentConsumer<T> {
+
+        /**
+         * Consumes a document.
+         * @param document The document.
+         * @throws Exception Thrown if the document cannot be consumed.
+         */
+        void accept(T document) throws Exception;
+
+    }
+
+    /**
+     * Creates a new reader.
+     * @param client The {@link OpenSearchClient}.
+     * @param maxConcurrency The max number of slices to read at the same time.
+     */
+    public PointInTimeReader(final OpenSearchClient client, final int maxConcurrency) {
+        this(client, maxConcurrency, DEFAULT_PAGE_SIZE, DEFAULT_KEEP_ALIVE);
+    }
+
+    /**
+     * Creates a new reader.
+     * @param client The {@link OpenSearchClient}.
+     * @param maxConcurrency The max number of slices to read at the same time.
+     * @param pageSize The number of documents to retrieve in each page.
+     * @param keepAlive The time to keep the PIT alive between pages, e.g. <code>10m</code>.
+     */
+    public PointInTimeReader(final OpenSearchClient client, final int maxConcurrency, final int pageSize, final String keepAlive) {
+        this.client = client;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.pageSize = pageSize;
+        this.keepAlive = keepAlive;
+    }
+
+    /**
+     * Reads all documents matching a query. The documents are read concurrently, but calls to the
+     * consumer are serialized so the consumer does not need to be thread-safe.
+     * @param index The name of the index.
+     * @param query The query.
+     * @param sourceIncludes The fields to include in the documents, or <code>null</code> to include all fields.
+     * @param clazz The class of the documents.
+     * @param consumer The {@link DocumentConsumer} for each document.
+     * @param <T> The type of document.
+     * @return The count of documents read.
+     * @throws Exception Thrown if the documents cannot be read or consumed.
+     */
+    public <T> long read(final String index, final Query query, final List<String> sourceIncludes,
+                         final Class<T> clazz, final DocumentConsumer<T> consumer) throws Exception {
+
+        final CreatePitResponse createPitResponse = client.createPit(r -> r.targetIndexes(index).keepAlive(k -> k.time(keepAlive)));
+        final String pitId = createPitResponse.pitId();
+
+        // Using one slice per shard means each slice reads exactly one shard, so _doc uniquely identifies
+        // the position in the slice and can safely be used with search_after.
+        final int slices = Math.max(1, createPitResponse.shards().total().intValue());
+        final int workers = Math.min(slices, maxConcurrency);
+
+        LOGGER.debug("Reading index {} with {} slices and {} workers", index, slices, workers);
+
+        final AtomicLong count = new AtomicLong();
+        final Object consumerLock = new Object();
+        final ExecutorService executorService = Executors.newFixedThreadPool(workers);
+
+        try {
+
+            final List<Future<?>> futures = new ArrayList<>();
+
+            for (int slice = 0; slice < slices; slice++) {
+
+                final int sliceId = slice;
+
+                futures.add(executorService.submit(() -> {
+
+                    List<FieldValue> searchAfter = null;
+
+                    while (true) {
+
+                        final SearchResponse<T> searchResponse = client.search(getSearchRequest(pitId, query, sourceIncludes, sliceId, slices, searchAfter), clazz);
+                        final List<Hit<T>> hits = searchResponse.hits().hits();
+
+                        if (hits == null || hits.isEmpty()) {
+                            break;
+                        }
+
+                        synchronized (consumerLock) {
+                            for (final Hit<T> hit : hits) {
+                                consumer.accept(hit.source());
+                            }
+                        }
+
+                        count.addAndGet(hits.size());
+
+                        if (hits.size() < pageSize) {
+                            break;
+                        }
+
+                        searchAfter = hits.get(hits.size() - 1).sortVals();
+
+                    }
+
+                    return null;
+
+                }));
+
+            }
+
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+
+        } catch (ExecutionException ex) {
+
+            if (ex.getCause() instanceof Exception) {
+                throw (Exception) ex.getCause();
+            }
+
+            throw ex;
+
+        } finally {
+
+            executorService.shutdownNow();
+
+            try {
+                client.deletePit(r -> r.pitId(List.of(pitId)));
+            } catch (IOException | RuntimeException ex) {
+                LOGGER.warn("Unable to delete point in time {}", pitId, ex);
+            }
+
+        }
+
+        return count.get();
+
+    }
+
+    private SearchRequest getSearchRequest(final String pitId, final Query query, final List<String> sourceIncludes,
+                                           final int sliceId, final int slices, final List<FieldValue> searchAfter) {
+
+        final SearchRequest.Builder builder = new SearchRequest.Builder()
+                .pit(new Pit.Builder().id(pitId).keepAlive(keepAlive).build())
+                .query(query)
+                .size(pageSize)
+                .trackTotalHits(t -> t.enabled(false))
+                .sort(SortOptions.of(s -> s.field(f -> f.field("_doc").order(SortOrder.Asc))));
+
+        if (sourceIncludes != null) {
+            builder.source(sc -> sc.filter(sf -> sf.includes(sourceIncludes)));
+        }
+
+        // Slicing requires at least two slices.
+        if (slices > 1) {
+            builder.slice(s -> s.id(sliceId).max(slices));
+        }
+
+        if (searchAfter != null) {
+            builder.searchAfterVals(searchAfter);
+        }
+
+        return builder.build();
+
+    }
+
+}
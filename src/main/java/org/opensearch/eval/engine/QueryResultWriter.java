@@ -0,0 +1,48 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.engine;
+
+import org.opensearch.eval.runners.QueryResult;
+
+import java.io.IOException;
+
+/**
+ * Writes the results and metrics of each query in a query set run as the run progresses.
+ * Closing the writer waits until all results are written. Writing the result of a query
+ * again in the same run replaces the earlier result, so a resumed run does not duplicate results.
+ */
+public interface QueryResultWriter extends AutoCloseable {
+
+    /**
+     * Writes the result and metrics of a query.
+     * @param queryResult The {@link QueryResult}.
+     * @throws Exception Thrown if the result cannot be written.
+     */
+    void write(QueryResult queryResult) throws Exception;
+
+    /**
+     * Waits until the results written so far are indexed.
+     * @throws Exception Thrown if a result could not be indexed.
+     */
+    void flush() throws Exception;
+
+    /**
+     * Gets the number of documents indexed. This is only complete once the writer is closed.
+     * @return The number of documents indexed.
+     */
+    long getIndexedCount();
+
+    /**
+     * Waits until all the results are indexed and releases the writer's resources.
+     * @throws IOException Thrown if a result could not be indexed.
+     */
+    @Override
+    void close() throws IOException;
+
+}
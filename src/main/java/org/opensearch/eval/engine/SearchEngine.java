@@ -8,25 +8,44 @@
  */
 package org.opensearch.eval.engine;
 
+import org.opensearch.eval.model.ClickStatistics;
+import org.opensearch.eval.model.ClickStatisticsSnapshot;
+import org.opensearch.eval.model.SpillingClickStatistics;
 import org.opensearch.eval.model.ClickthroughRate;
 import org.opensearch.eval.model.QueryRun;
 import org.opensearch.eval.model.TimeFilter;
 import org.opensearch.eval.model.dao.judgments.Judgment;
 import org.opensearch.eval.model.dao.querysets.QuerySet;
+import org.opensearch.eval.model.dao.querysets.QuerySetRunParameters;
 import org.opensearch.eval.model.ubi.query.UbiQuery;
-import org.opensearch.eval.runners.QueryResult;
-import org.opensearch.eval.runners.QuerySetRunResult;
+import org.opensearch.eval.utils.BoundedCache;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Abstract class for the underlying search engine functionality.
  */
 public abstract class SearchEngine {
 
+    /**
+     * Gets the limiter of the number of concurrent requests to the search engine, so its current limit and
+     * the number of requests in flight can be reported.
+     * @return The {@link AdaptiveConcurrencyLimiter}.
+     */
+    public abstract AdaptiveConcurrencyLimiter getConcurrencyLimiter();
+
+    /**
+     * Gets the cache of compiled query templates, so its hits, misses, and evictions can be reported.
+     * @return The {@link BoundedCache} of query templates.
+     */
+    public abstract BoundedCache<String, ?> getQueryTemplateCache();
+
     /**
      * Determines if an index exists.
      * @param index The name of the index.
@@ -65,10 +84,13 @@ public abstract class SearchEngine {
      * @param userQuery The user query.
      * @param objectId The document ID.
      * @param rank The rank R.
+     * @param application The application the impressions are limited to, or <code>""</code> for all applications.
+     * @param timeFilter The {@link TimeFilter} the impressions are limited to.
      * @return A count of queries for a user query that have a specific document in rank R.
      * @throws Exception Thrown if the count cannot be retrieved.
      */
-    public abstract long getCountOfQueriesForUserQueryHavingResultInRankR(final String userQuery, final String objectId, final int rank) throws Exception;
+    public abstract long getCountOfQueriesForUserQueryHavingResultInRankR(final String userQuery, final String objectId, final int rank,
+                                                                          final String application, final TimeFilter timeFilter) throws Exception;
 
     /**
      * Index the rank-aggregated clickthrough values.
@@ -84,6 +106,13 @@ public abstract class SearchEngine {
      */
     public abstract void indexClickthroughRates(final Map<String, Set<ClickthroughRate>> clickthroughRates) throws Exception;
 
+    /**
+     * Index the clickthrough rates of each user query and object pair in click statistics.
+     * @param clickStatistics The {@link ClickStatistics}.
+     * @throws Exception Thrown if the clickthrough rates cannot be indexed.
+     */
+    public abstract void indexClickthroughRates(final ClickStatistics clickStatistics) throws Exception;
+
     /**
      * Index the judgments.
      * @param judgments A collection of {@link Judgment}.
@@ -92,12 +121,33 @@ public abstract class SearchEngine {
      */
     public abstract String indexJudgments(final Collection<Judgment> judgments) throws Exception;
 
+    /**
+     * Gets a writer for a judgment set that indexes the judgments in batches as they are written.
+     * Writing to an existing judgment set replaces the judgments with the same user query and document.
+     * @param judgmentSetId The judgment set ID, or <code>null</code> to create a new judgment set with a random ID.
+     * @param maxBatchDocuments The max number of judgments in each batch.
+     * @param maxBatchBytes The max size of each batch in bytes.
+     * @param maxInFlightRequests The max number of batches being indexed at the same time.
+     * @return A {@link JudgmentWriter}.
+     * @throws Exception Thrown if the writer cannot be created.
+     */
+    public abstract JudgmentWriter getJudgmentWriter(final String judgmentSetId, final int maxBatchDocuments, final long maxBatchBytes, final int maxInFlightRequests) throws Exception;
+
     /**
      * Get all judgments.
      * @return A collection of {@link Judgment}.
-     * @throws IOException Thrown if the judgments cannot be retrieved.
+     * @throws Exception Thrown if the judgments cannot be retrieved.
      */
-    public abstract Collection<Judgment> getJudgments() throws IOException;
+    public abstract Collection<Judgment> getJudgments() throws Exception;
+
+    /**
+     * Reads each judgment in a judgment set. Only the user query, document, and judgment are populated.
+     * @param judgmentsSetId The judgment set ID.
+     * @param consumer A {@link Consumer} that receives each {@link Judgment}.
+     * @return The number of judgments read.
+     * @throws Exception Thrown if the judgments cannot be retrieved.
+     */
+    public abstract long forEachJudgment(final String judgmentsSetId, final Consumer<Judgment> consumer) throws Exception;
 
     /**
      * Get the count of judgments for a given judgment set.
@@ -120,6 +170,53 @@ public abstract class SearchEngine {
      */
     public abstract QueryRun runQuery(final String index, final String query, final int k, final String userQuery, final String idField, final String pipeline) throws IOException;
 
+    /**
+     * Run multiple user queries from a query set in a single request.
+     * @param index The index to run the queries against.
+     * @param query The search engine query that will be run for each user query.
+     * @param k The value of k (the depth of the search results).
+     * @param userQueries The user queries.
+     * @param idField The field in the index that uniquely identifies each document in the index.
+     * @param pipeline The search pipeline. Pass <code>""</code> to not use a search pipeline.
+     * @return A {@link QueryRun} for each user query in the same order as the user queries. A query that
+     * failed has a {@link QueryRun} with an error.
+     * @throws IOException Thrown if the queries cannot be run.
+     */
+    public abstract List<QueryRun> runQueries(final String index, final String query, final int k, final List<String> userQueries, final String idField, final String pipeline) throws IOException;
+
+    /**
+     * Gets a value that changes whenever the documents in an index change. Query results for an
+     * index with the same fingerprint can be reused.
+     * @param index The index, alias, or index pattern.
+     * @return The fingerprint of the index.
+     * @throws IOException Thrown if the index statistics cannot be retrieved.
+     */
+    public abstract String getIndexFingerprint(final String index) throws IOException;
+
+    /**
+     * Stores a query as a search template so each search only needs to send the user query.
+     * @param query The search engine query with the user query placeholder.
+     * @param k The value of k (the depth of the search results).
+     * @param idField The field in the index that uniquely identifies each document in the index.
+     * @return The ID of the stored search template.
+     * @throws IOException Thrown if the search template cannot be stored.
+     */
+    public abstract String createSearchTemplate(final String query, final int k, final String idField) throws IOException;
+
+    /**
+     * Run multiple user queries with a stored search template in a single request.
+     * @param index The index to run the queries against.
+     * @param templateId The ID of the search template created by {@link #createSearchTemplate(String, int, String)}.
+     * @param userQueries The user queries.
+     * @param idField The field in the index that uniquely identifies each document in the index.
+     * @param pipeline The search pipeline. Pass <code>""</code> to not use a search pipeline.
+     * @return A {@link QueryRun} for each user query in the same order as the user queries. A query that
+     * failed has a {@link QueryRun} with an error.
+     * @throws IOException Thrown if the queries cannot be run.
+     */
+    public abstract List<QueryRun> runSearchTemplateQueries(final String index, final String templateId, final List<String> userQueries,
+                                                            final String idField, final String pipeline) throws IOException;
+
     /**
      * Index a query set.
      * @param querySet The {@link QuerySet} to index.
@@ -139,9 +236,9 @@ public abstract class SearchEngine {
     /**
      * Get all UBI queries.
      * @return The user queries with their frequencies.
-     * @throws IOException Thrown if the UBI queries cannot be retrieved.
+     * @throws Exception Thrown if the UBI queries cannot be retrieved.
      */
-    public abstract Collection<UbiQuery>  getUbiQueries(final String application, final TimeFilter timeFilter) throws IOException;
+    public abstract Collection<UbiQuery>  getUbiQueries(final String application, final TimeFilter timeFilter) throws Exception;
 
     /**
      * Get random UBI queries.
@@ -159,12 +256,13 @@ public abstract class SearchEngine {
     public abstract long getUserQueryCount(final String userQuery);
 
     /**
-     * Index a query set run result.
-     * @param querySetRunResult The {@link QuerySetRunResult} to index.
-     * @return The count of {@link QueryResult} objects indexed.
-     * @throws Exception Thrown if the query set run result cannot be indexed.
+     * Gets a writer that indexes the results and metrics of each query in a query set run as the run progresses.
+     * @param runId The query set run ID.
+     * @param querySetRunParameters The {@link QuerySetRunParameters} of the run.
+     * @return A {@link QueryResultWriter}.
+     * @throws Exception Thrown if the writer cannot be created.
      */
-    public abstract long indexQueryRunResult(final QuerySetRunResult querySetRunResult) throws Exception;
+    public abstract QueryResultWriter getQueryResultWriter(final String runId, final QuerySetRunParameters querySetRunParameters) throws Exception;
 
     /**
      * Gets a query set from the index.
@@ -191,18 +289,78 @@ public abstract class SearchEngine {
      */
     public abstract Double getJudgmentValue(final String judgmentsId, final String query, final String documentId) throws Exception;
 
+    /**
+     * Gets the judgments for a user query and a list of documents from the index.
+     * @param judgmentsId The ID of the judgments to find.
+     * @param query The user query.
+     * @param documentIds The document IDs.
+     * @return The value of each judgment in the same order as the documents, or <code>NaN</code> for a document without a judgment.
+     * @throws Exception Thrown if the judgments cannot be retrieved.
+     */
+    public abstract double[] getJudgmentValues(final String judgmentsId, final String query, final List<String> documentIds) throws Exception;
+
     /**
      * Gets the clickthrough rates for each query and its results.
+     * @param application The application, or <code>""</code> for all applications.
+     * @param timeFilter The {@link TimeFilter} for the events.
      * @return A map of user_query to the clickthrough rate for each query result.
      * @throws IOException Thrown when a problem accessing OpenSearch.
      */
-    public abstract Map<String, Set<ClickthroughRate>> getClickthroughRate(final int maxRank) throws Exception;
+    public abstract Map<String, Set<ClickthroughRate>> getClickthroughRate(final int maxRank, final String application, final TimeFilter timeFilter) throws Exception;
 
     /**
      * Calculate the rank-aggregated click through from the UBI events.
+     * @param application The application, or <code>""</code> for all applications.
+     * @param timeFilter The {@link TimeFilter} for the events.
      * @return A map of positions to clickthrough rates.
      * @throws IOException Thrown when a problem accessing OpenSearch.
      */
-    public abstract Map<Integer, Double> getRankAggregatedClickThrough(int maxRank) throws Exception;
+    public abstract Map<Integer, Double> getRankAggregatedClickThrough(int maxRank, String application, TimeFilter timeFilter) throws Exception;
+
+    /**
+     * Gets the click statistics needed to calculate COEC judgments from a single pass over the UBI events.
+     * This includes the clicks, impressions, and impressions at each rank for each user query and result,
+     * and the counts needed to calculate the rank-aggregated clickthrough.
+     * @param maxRank The max rank.
+     * @param application The application, or <code>""</code> for all applications.
+     * @param timeFilter The {@link TimeFilter} for the events.
+     * @return The {@link ClickStatistics}.
+     * @throws Exception Thrown when a problem accessing OpenSearch.
+     */
+    public abstract ClickStatistics getClickStatistics(int maxRank, String application, TimeFilter timeFilter) throws Exception;
+
+    /**
+     * Adds the UBI events after the watermark of a snapshot to its click statistics in a single pass,
+     * and advances the watermark to the latest event read. Only the UBI queries within a lookback before the
+     * watermark are read to join the events to their user queries.
+     * @param clickStatisticsSnapshot The {@link ClickStatisticsSnapshot}.
+     * @param application The application, or <code>""</code> for all applications.
+     * @param timeFilter The {@link TimeFilter} for the events.
+     * @param queryLookback How long before the watermark the UBI queries are read.
+     * @throws Exception Thrown when a problem accessing OpenSearch.
+     */
+    public abstract void updateClickStatistics(ClickStatisticsSnapshot clickStatisticsSnapshot, String application, TimeFilter timeFilter,
+                                               Duration queryLookback) throws Exception;
+
+    /**
+     * Adds the UBI events to click statistics that spill to disk in a single pass.
+     * @param spillingClickStatistics The {@link SpillingClickStatistics}.
+     * @param application The application, or <code>""</code> for all applications.
+     * @param timeFilter The {@link TimeFilter} for the events.
+     * @throws Exception Thrown when a problem accessing OpenSearch.
+     */
+    public abstract void updateClickStatistics(SpillingClickStatistics spillingClickStatistics, String application, TimeFilter timeFilter) throws Exception;
+
+    /**
+     * Gets the click statistics needed to calculate COEC judgments from an aggregation of the UBI events
+     * so that only the counts of events are retrieved instead of the events themselves.
+     * @param maxRank The max rank.
+     * @param aggregationKey The event field identifying the query, either <code>query_id</code> or <code>user_query</code>.
+     * @param application The application, or <code>""</code> for all applications.
+     * @param timeFilter The {@link TimeFilter} for the events.
+     * @return The {@link ClickStatistics}.
+     * @throws Exception Thrown when a problem accessing OpenSearch.
+     */
+    public abstract ClickStatistics getAggregatedClickStatistics(int maxRank, String aggregationKey, String application, TimeFilter timeFilter) throws Exception;
 
 }
@@ -0,0 +1,304 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.engine;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.opensearch.eval.model.QueryRun;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses search and multi-search responses into {@link QueryRun query runs} with a streaming parser.
+ * Only the total hits and the ID field of each hit are read. Everything else in the response, such as
+ * large vectors in the <code>_source</code>, is skipped without being built into objects.
+ */
+public class SearchResponseParser {
+
+    private static final Logger LOGGER = LogManager.getLogger(SearchResponseParser.class);
+
+    /**
+     * The name of the field that holds the ID of a document.
+     */
+    public static final String ID_FIELD = "_id";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final String idField;
+
+    /**
+     * Creates a new parser.
+     * @param idField The field to read from each hit to identify the document. This can be <code>_id</code>,
+     *                a field in the <code>_source</code>, or a field in the hit's <code>fields</code>.
+     */
+    public SearchResponseParser(final String idField) {
+        this.idField = idField;
+    }
+
+    /**
+     * Parses a search response.
+     * @param inputStream The response body.
+     * @return A {@link QueryRun}.
+     * @throws IOException Thrown if the response cannot be parsed.
+     */
+    public QueryRun parseSearchResponse(final InputStream inputStream) throws IOException {
+
+        try (final JsonParser parser = JSON_FACTORY.createParser(inputStream)) {
+
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            return parseSearch(parser);
+
+        }
+
+    }
+
+    /**
+     * Parses a multi-search response.
+     * @param inputStream The response body.
+     * @return A {@link QueryRun} for each search in the same order as the searches. A search that failed has an error.
+     * @throws IOException Thrown if the response cannot be parsed.
+     */
+    public List<QueryRun> parseMultiSearchResponse(final InputStream inputStream) throws IOException {
+
+        final List<QueryRun> queryRuns = new ArrayList<>();
+
+        try (final JsonParser parser = JSON_FACTORY.createParser(inputStream)) {
+
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+
+                final String name = parser.currentName();
+                final JsonToken token = parser.nextToken();
+
+                if ("responses".equals(name) && token == JsonToken.START_ARRAY) {
+
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        queryRuns.add(parseSearch(parser));
+                    }
+
+                } else {
+
+                    parser.skipChildren();
+
+                }
+
+            }
+
+        }
+
+        return queryRuns;
+
+    }
+
+    // Parses a search response. The parser is at the start of the response's object.
+    private QueryRun parseSearch(final JsonParser parser) throws IOException {
+
+        final List<String> orderedDocumentIds = new ArrayList<>();
+        int numberOfResults = 0;
+        String error = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+
+            final String name = parser.currentName();
+            final JsonToken token = parser.nextToken();
+
+            if ("hits".equals(name) && token == JsonToken.START_OBJECT) {
+
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+
+                    final String hitsName = parser.currentName();
+                    final JsonToken hitsToken = parser.nextToken();
+
+                    if ("total".equals(hitsName)) {
+                        numberOfResults = parseTotal(parser, hitsToken);
+                    } else if ("hits".equals(hitsName) && hitsToken == JsonToken.START_ARRAY) {
+                        parseHits(parser, orderedDocumentIds);
+                    } else {
+                        parser.skipChildren();
+                    }
+
+                }
+
+            } else if ("error".equals(name)) {
+
+                error = parseError(parser, token);
+
+            } else {
+
+                parser.skipChildren();
+
+            }
+
+        }
+
+        if (error != null) {
+            return new QueryRun(error);
+        }
+
+        return new QueryRun(orderedDocumentIds, numberOfResults);
+
+    }
+
+    // The total is an object with a value, or a number when rest_total_hits_as_int is set.
+    private int parseTotal(final JsonParser parser, final JsonToken token) throws IOException {
+
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getIntValue();
+        }
+
+        int total = 0;
+
+        if (token == JsonToken.START_OBJECT) {
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+
+                final String name = parser.currentName();
+                parser.nextToken();
+
+                if ("value".equals(name)) {
+                    total = parser.getIntValue();
+                } else {
+                    parser.skipChildren();
+                }
+
+            }
+
+        } else {
+
+            parser.skipChildren();
+
+        }
+
+        return total;
+
+    }
+
+    private void parseHits(final JsonParser parser, final List<String> orderedDocumentIds) throws IOException {
+
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+
+            String id = null;
+            String sourceId = null;
+            String fieldsId = null;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+
+                final String name = parser.currentName();
+                final JsonToken token = parser.nextToken();
+
+                if (ID_FIELD.equals(name)) {
+                    id = parser.getValueAsString();
+                } else if ("_source".equals(name) && token == JsonToken.START_OBJECT) {
+                    sourceId = parseField(parser, false);
+                } else if ("fields".equals(name) && token == JsonToken.START_OBJECT) {
+                    fieldsId = parseField(parser, true);
+                } else {
+                    parser.skipChildren();
+                }
+
+            }
+
+            final String documentId = ID_FIELD.equals(idField) ? id : sourceId != null ? sourceId : fieldsId;
+
+            if (documentId != null) {
+                orderedDocumentIds.add(documentId);
+            } else {
+                LOGGER.info("The requested idField {} does not exist.", idField);
+            }
+
+        }
+
+    }
+
+    // Reads the ID field from an object, skipping every other field. The values in a hit's fields are arrays.
+    private String parseField(final JsonParser parser, final boolean array) throws IOException {
+
+        String value = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+
+            final String name = parser.currentName();
+            final JsonToken token = parser.nextToken();
+
+            if (idField.equals(name) && !array && token.isScalarValue()) {
+                value = parser.getValueAsString();
+            } else if (idField.equals(name) && array && token == JsonToken.START_ARRAY) {
+
+                if (parser.nextToken().isScalarValue()) {
+                    value = parser.getValueAsString();
+                }
+
+                // Skip any remaining values.
+                while (parser.currentToken() != JsonToken.END_ARRAY) {
+                    parser.skipChildren();
+                    parser.nextToken();
+                }
+
+            } else {
+                parser.skipChildren();
+            }
+
+        }
+
+        return value;
+
+    }
+
+    private String parseError(final JsonParser parser, final JsonToken token) throws IOException {
+
+        if (token.isScalarValue()) {
+            return parser.getValueAsString();
+        }
+
+        String reason = null;
+        String type = null;
+
+        if (token == JsonToken.START_OBJECT) {
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+
+                final String name = parser.currentName();
+                parser.nextToken();
+
+                if ("reason".equals(name)) {
+                    reason = parser.getValueAsString();
+                } else if ("type".equals(name)) {
+                    type = parser.getValueAsString();
+                } else {
+                    parser.skipChildren();
+                }
+
+            }
+
+        } else {
+
+            parser.skipChildren();
+
+        }
+
+        return reason != null ? reason : type != null ? type : "Unknown error";
+
+    }
+
+    private static void expect(final JsonToken actual, final JsonToken expected) throws IOException {
+
+        if (actual != expected) {
+            throw new IOException("Unable to parse the search response: expected " + expected + " but found " + actual);
+        }
+
+    }
+
+}
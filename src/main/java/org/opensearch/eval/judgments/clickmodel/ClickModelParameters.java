@@ -8,8 +8,47 @@
  */
 package org.opensearch.eval.judgments.clickmodel;
 
+import org.opensearch.eval.engine.BulkIndexer;
+import org.opensearch.eval.model.TimeFilter;
+
 public abstract class ClickModelParameters {
 
+    /**
+     * The name of the judgment set parameter that sets the max number of judgments indexed in each bulk request.
+     */
+    public static final String BULK_MAX_DOCUMENTS_PARAMETER = "bulk_max_documents";
+
+    /**
+     * The name of the judgment set parameter that sets the max size in bytes of each bulk request.
+     */
+    public static final String BULK_MAX_BYTES_PARAMETER = "bulk_max_bytes";
+
+    /**
+     * The name of the judgment set parameter that sets the max number of bulk requests in flight at the same time.
+     */
+    public static final String BULK_MAX_IN_FLIGHT_PARAMETER = "bulk_max_in_flight";
+
+    /**
+     * The name of the judgment set parameter that sets the ID of the judgment set. Generating a judgment set
+     * again with the same ID replaces its judgments instead of creating a new judgment set.
+     */
+    public static final String JUDGMENT_SET_ID_PARAMETER = "judgment_set_id";
+
+    /**
+     * The name of the judgment set parameter that limits the UBI events used to one application.
+     */
+    public static final String APPLICATION_PARAMETER = "application";
+
+    /**
+     * The name of the judgment set parameter that limits the UBI events used to those at or after a timestamp.
+     */
+    public static final String START_TIMESTAMP_PARAMETER = "start_timestamp";
+
+    /**
+     * The name of the judgment set parameter that limits the UBI events used to those at or before a timestamp.
+     */
+    public static final String END_TIMESTAMP_PARAMETER = "end_timestamp";
+
     final JudgmentParameters judgmentParameters;
 
     public ClickModelParameters(final JudgmentParameters judgmentParameters) {
@@ -20,4 +59,53 @@ public abstract class ClickModelParameters {
         return judgmentParameters;
     }
 
+    /**
+     * Gets the ID of the judgment set.
+     * @return The ID of the judgment set, or <code>null</code> if a new ID should be generated.
+     */
+    public String getJudgmentSetId() {
+        return judgmentParameters.getJudgmentSetParameter(JUDGMENT_SET_ID_PARAMETER, null);
+    }
+
+    /**
+     * Gets the application the UBI events are limited to.
+     * @return The application, or <code>""</code> for all applications.
+     */
+    public String getApplication() {
+        return judgmentParameters.getJudgmentSetParameter(APPLICATION_PARAMETER, "");
+    }
+
+    /**
+     * Gets the time period the UBI events are limited to.
+     * @return The {@link TimeFilter}, which is not active if neither a start nor an end timestamp is set.
+     */
+    public TimeFilter getTimeFilter() {
+        return TimeFilter.fromTimestamps(judgmentParameters.getJudgmentSetParameter(START_TIMESTAMP_PARAMETER, ""),
+                judgmentParameters.getJudgmentSetParameter(END_TIMESTAMP_PARAMETER, ""));
+    }
+
+    /**
+     * Gets the max number of judgments indexed in each bulk request.
+     * @return The max number of judgments indexed in each bulk request.
+     */
+    public int getBulkMaxDocuments() {
+        return judgmentParameters.getJudgmentSetParameter(BULK_MAX_DOCUMENTS_PARAMETER, BulkIndexer.DEFAULT_MAX_BATCH_DOCUMENTS);
+    }
+
+    /**
+     * Gets the max size in bytes of each bulk request.
+     * @return The max size in bytes of each bulk request.
+     */
+    public long getBulkMaxBytes() {
+        return judgmentParameters.getJudgmentSetParameter(BULK_MAX_BYTES_PARAMETER, (int) BulkIndexer.DEFAULT_MAX_BATCH_BYTES);
+    }
+
+    /**
+     * Gets the max number of bulk requests in flight at the same time.
+     * @return The max number of bulk requests in flight at the same time.
+     */
+    public int getBulkMaxInFlight() {
+        return judgmentParameters.getJudgmentSetParameter(BULK_MAX_IN_FLIGHT_PARAMETER, BulkIndexer.DEFAULT_MAX_IN_FLIGHT_REQUESTS);
+    }
+
 }
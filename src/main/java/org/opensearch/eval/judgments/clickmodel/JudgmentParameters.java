@@ -56,4 +56,45 @@ public class JudgmentParameters {
         return judgmentSetParameters;
     }
 
+    /**
+     * Gets a judgment set parameter as a string.
+     * @param name The name of the parameter.
+     * @param defaultValue The value to return if the parameter is not set.
+     * @return The value of the parameter, or the default value if the parameter is not set.
+     */
+    public String getJudgmentSetParameter(final String name, final String defaultValue) {
+
+        if(judgmentSetParameters != null && judgmentSetParameters.get(name) != null) {
+            return String.valueOf(judgmentSetParameters.get(name));
+        }
+
+        return defaultValue;
+
+    }
+
+    /**
+     * Gets a judgment set parameter as an integer.
+     * @param name The name of the parameter.
+     * @param defaultValue The value to return if the parameter is not set.
+     * @return The value of the parameter, or the default value if the parameter is not set.
+     */
+    public int getJudgmentSetParameter(final String name, final int defaultValue) {
+
+        if(judgmentSetParameters != null && judgmentSetParameters.get(name) != null) {
+
+            final Object value = judgmentSetParameters.get(name);
+
+            // Gson deserializes JSON numbers in a map as doubles.
+            if(value instanceof Number) {
+                return ((Number) value).intValue();
+            } else {
+                return Integer.parseInt(String.valueOf(value));
+            }
+
+        }
+
+        return defaultValue;
+
+    }
+
 }
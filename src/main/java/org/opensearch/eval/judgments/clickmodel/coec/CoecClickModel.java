@@ -10,17 +10,31 @@ package org.opensearch.eval.judgments.clickmodel.coec;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.opensearch.eval.engine.JudgmentWriter;
 import org.opensearch.eval.engine.SearchEngine;
 import org.opensearch.eval.judgments.clickmodel.ClickModel;
 import org.opensearch.eval.judgments.queryhash.IncrementalUserQueryHash;
+import org.opensearch.eval.model.ClickStatistics;
+import org.opensearch.eval.model.ClickStatisticsSnapshot;
 import org.opensearch.eval.model.ClickthroughRate;
+import org.opensearch.eval.model.SpillingClickStatistics;
+import org.opensearch.eval.model.TimeFilter;
 import org.opensearch.eval.model.dao.judgments.Judgment;
 import org.opensearch.eval.utils.MathUtils;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedList;
+import java.util.Deque;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 public class CoecClickModel extends ClickModel {
 
@@ -30,6 +44,9 @@ public class CoecClickModel extends ClickModel {
     public static final String EVENT_CLICK = "click";
     public static final String EVENT_IMPRESSION = "impression";
 
+    // The max number of user query and result pairs in each partition when the judgments are calculated in parallel.
+    private static final int PARTITION_PAIRS = 4096;
+
     private final CoecClickModelParameters parameters;
 
     private final IncrementalUserQueryHash incrementalUserQueryHash = new IncrementalUserQueryHash();
@@ -47,17 +64,89 @@ public class CoecClickModel extends ClickModel {
     @Override
     public String calculateJudgments() throws Exception {
 
+        final String judgmentSetId = calculateJudgmentsForMode();
+
+        LOGGER.info("Search engine concurrency: {}", searchEngine.getConcurrencyLimiter());
+
+        return judgmentSetId;
+
+    }
+
+    // Calculates the judgments with the configured mode.
+    private String calculateJudgmentsForMode() throws Exception {
+
         final int maxRank = parameters.getMaxRank();
 
+        // The events can be limited to one application and a time period.
+        final String application = parameters.getApplication();
+        final TimeFilter timeFilter = parameters.getTimeFilter();
+
+        if(CoecClickModelParameters.MODE_SINGLE_PASS.equalsIgnoreCase(parameters.getMode())
+                || CoecClickModelParameters.MODE_AGGREGATION.equalsIgnoreCase(parameters.getMode())) {
+
+            LOGGER.info("Beginning calculation of click statistics.");
+            final ClickStatistics clickStatistics;
+            final ClickStatisticsSnapshot clickStatisticsSnapshot;
+
+            if(CoecClickModelParameters.MODE_AGGREGATION.equalsIgnoreCase(parameters.getMode())) {
+                if(parameters.getStateFile() != null) {
+                    throw new IllegalArgumentException("The " + CoecClickModelParameters.STATE_FILE_PARAMETER + " parameter is only supported in the "
+                            + CoecClickModelParameters.MODE_SINGLE_PASS + " mode.");
+                }
+                // Have OpenSearch count the events and only retrieve the counts.
+                clickStatistics = searchEngine.getAggregatedClickStatistics(maxRank, parameters.getAggregationKey(), application, timeFilter);
+                clickStatisticsSnapshot = null;
+            } else if(parameters.getMaxMemoryMb() > 0) {
+                if(parameters.getStateFile() != null) {
+                    throw new IllegalArgumentException("The " + CoecClickModelParameters.STATE_FILE_PARAMETER + " and "
+                            + CoecClickModelParameters.MAX_MEMORY_MB_PARAMETER + " parameters cannot be used together.");
+                }
+                // The click statistics may not fit in memory, so they are spilled to disk and merged.
+                return calculateCoecWithSpilling(maxRank, application, timeFilter);
+            } else if(parameters.getStateFile() != null) {
+                // Only read the events after the ones already in the state file.
+                clickStatisticsSnapshot = readClickStatisticsSnapshot(Path.of(parameters.getStateFile()), maxRank, application, timeFilter);
+                searchEngine.updateClickStatistics(clickStatisticsSnapshot, application, timeFilter, Duration.ofHours(parameters.getQueryLookbackHours()));
+                clickStatistics = clickStatisticsSnapshot.getClickStatistics();
+            } else {
+                clickStatisticsSnapshot = null;
+                // Gather all the click statistics in a single pass over the events.
+                clickStatistics = searchEngine.getClickStatistics(maxRank, application, timeFilter);
+            }
+
+            final Map<Integer, Double> rankAggregatedClickThrough = clickStatistics.getRankAggregatedClickThrough();
+            LOGGER.info("Rank-aggregated clickthrough positions: {}", rankAggregatedClickThrough.size());
+            showRankAggregatedClickThrough(rankAggregatedClickThrough);
+            searchEngine.indexRankAggregatedClickthrough(rankAggregatedClickThrough);
+
+            LOGGER.info("Clickthrough rates for number of queries: {}", clickStatistics.getUserQueryCount());
+            searchEngine.indexClickthroughRates(clickStatistics);
+
+            // Generate and index the implicit judgments.
+            LOGGER.info("Beginning calculation of implicit judgments.");
+            final String judgmentSetId = calculateCoec(rankAggregatedClickThrough, clickStatistics);
+
+            // The state is only saved once the judgments are indexed so a failed run reads the same events again.
+            if(clickStatisticsSnapshot != null) {
+                clickStatisticsSnapshot.write(Path.of(parameters.getStateFile()));
+                LOGGER.info("Saved the click statistics of {} events to {}", clickStatisticsSnapshot.getEventCount(), parameters.getStateFile());
+            }
+
+            return judgmentSetId;
+
+        } else if(!CoecClickModelParameters.MODE_PER_QUERY.equalsIgnoreCase(parameters.getMode())) {
+            throw new IllegalArgumentException("Invalid COEC mode: " + parameters.getMode());
+        }
+
         // Calculate and index the rank-aggregated click-through.
         LOGGER.info("Beginning calculation of rank-aggregated click-through.");
-        final Map<Integer, Double> rankAggregatedClickThrough = searchEngine.getRankAggregatedClickThrough(maxRank);
+        final Map<Integer, Double> rankAggregatedClickThrough = searchEngine.getRankAggregatedClickThrough(maxRank, application, timeFilter);
         LOGGER.info("Rank-aggregated clickthrough positions: {}", rankAggregatedClickThrough.size());
         showRankAggregatedClickThrough(rankAggregatedClickThrough);
 
         // Calculate and index the click-through rate for query/doc pairs.
         LOGGER.info("Beginning calculation of clickthrough rates.");
-        final Map<String, Set<ClickthroughRate>> clickthroughRates = searchEngine.getClickthroughRate(maxRank);
+        final Map<String, Set<ClickthroughRate>> clickthroughRates = searchEngine.getClickthroughRate(maxRank, application, timeFilter);
         LOGGER.info("Clickthrough rates for number of queries: {}", clickthroughRates.size());
         showClickthroughRates(clickthroughRates);
 
@@ -67,6 +156,247 @@ public class CoecClickModel extends ClickModel {
 
     }
 
+    /**
+     * Calculates and indexes the COEC judgments from click statistics. The counts of each user query and
+     * object pair are read by their integer IDs, and the query ID of each judgment is the user query's ID + 1.
+     * @param rankAggregatedClickThrough The rank-aggregated clickthrough.
+     * @param clickStatistics The {@link ClickStatistics}.
+     * @return The judgment set ID, or <code>null</code> if there are no judgments.
+     * @throws Exception Thrown if the judgments cannot be indexed.
+     */
+    public String calculateCoec(final Map<Integer, Double> rankAggregatedClickThrough, final ClickStatistics clickStatistics) throws Exception {
+
+        final JudgmentWriter judgmentWriter = searchEngine.getJudgmentWriter(parameters.getJudgmentSetId(), parameters.getBulkMaxDocuments(),
+                parameters.getBulkMaxBytes(), parameters.getBulkMaxInFlight());
+
+        LOGGER.info("Count of queries: {}", clickStatistics.getUserQueryCount());
+
+        try (judgmentWriter) {
+            calculateCoec(rankAggregatedClickThrough, clickStatistics, judgmentWriter);
+        }
+
+        LOGGER.info("Count of user queries: {}", clickStatistics.getUserQueryCount());
+        LOGGER.info("Count of judgments: {}", judgmentWriter.getCount());
+
+        return judgmentWriter.getCount() > 0 ? judgmentWriter.getJudgmentSetId() : null;
+
+    }
+
+    /**
+     * Calculates the COEC judgments from click statistics and writes them to a writer. With a parallelism greater
+     * than <code>1</code> the judgments are calculated in parallel but still written in user query order, so the
+     * judgments and their order are the same as with a parallelism of <code>1</code>.
+     * @param rankAggregatedClickThrough The rank-aggregated clickthrough.
+     * @param clickStatistics The {@link ClickStatistics}.
+     * @param judgmentWriter The {@link JudgmentWriter}. The writer is not closed.
+     * @throws Exception Thrown if the judgments cannot be written.
+     */
+    public void calculateCoec(final Map<Integer, Double> rankAggregatedClickThrough, final ClickStatistics clickStatistics,
+                              final JudgmentWriter judgmentWriter) throws Exception {
+        calculateCoec(rankAggregatedClickThrough, clickStatistics, judgmentWriter, 0);
+    }
+
+    /**
+     * Calculates the COEC judgments from click statistics that are spilled to disk when they exceed the memory budget.
+     * The judgments are calculated from each merged chunk of user queries as it is read.
+     * @param maxRank The max rank.
+     * @param application The application, or <code>""</code> for all applications.
+     * @param timeFilter The {@link TimeFilter} for the events.
+     * @return The judgment set ID, or <code>null</code> if there are no judgments.
+     * @throws Exception Thrown if the events cannot be read or the judgments cannot be indexed.
+     */
+    private String calculateCoecWithSpilling(final int maxRank, final String application, final TimeFilter timeFilter) throws Exception {
+
+        final long maxBytes = parameters.getMaxMemoryMb() * 1024L * 1024L;
+
+        try (final SpillingClickStatistics spillingClickStatistics = new SpillingClickStatistics(maxRank, maxBytes, Path.of(parameters.getSpillDirectory()))) {
+
+            searchEngine.updateClickStatistics(spillingClickStatistics, application, timeFilter);
+
+            final Map<Integer, Double> rankAggregatedClickThrough = spillingClickStatistics.getRankAggregatedClickThrough();
+            LOGGER.info("Rank-aggregated clickthrough positions: {}", rankAggregatedClickThrough.size());
+            showRankAggregatedClickThrough(rankAggregatedClickThrough);
+            searchEngine.indexRankAggregatedClickthrough(rankAggregatedClickThrough);
+
+            final JudgmentWriter judgmentWriter = searchEngine.getJudgmentWriter(parameters.getJudgmentSetId(), parameters.getBulkMaxDocuments(),
+                    parameters.getBulkMaxBytes(), parameters.getBulkMaxInFlight());
+
+            // Generate and index the clickthrough rates and implicit judgments one chunk at a time.
+            LOGGER.info("Beginning calculation of implicit judgments.");
+
+            try (judgmentWriter) {
+                spillingClickStatistics.merge((clickStatistics, userQueryOffset) -> {
+                    searchEngine.indexClickthroughRates(clickStatistics);
+                    calculateCoec(rankAggregatedClickThrough, clickStatistics, judgmentWriter, userQueryOffset);
+                });
+            }
+
+            LOGGER.info("Count of judgments: {}", judgmentWriter.getCount());
+
+            return judgmentWriter.getCount() > 0 ? judgmentWriter.getJudgmentSetId() : null;
+
+        }
+
+    }
+
+    // Calculates the judgments of click statistics whose user query IDs start after an offset.
+    private void calculateCoec(final Map<Integer, Double> rankAggregatedClickThrough, final ClickStatistics clickStatistics,
+                               final JudgmentWriter judgmentWriter, final int userQueryOffset) throws Exception {
+
+        final int maxRank = parameters.getMaxRank();
+
+        // The mean CTR at each rank.
+        final double[] meanCtrAtRank = new double[maxRank];
+        for (int rank = 0; rank < maxRank; rank++) {
+            meanCtrAtRank[rank] = rankAggregatedClickThrough.getOrDefault(rank, 0.0);
+        }
+
+        final int[][] pairsByUserQuery = clickStatistics.getPairsByUserQuery();
+
+        if (parameters.getParallelism() > 1) {
+
+            // The judgments of each user query only depend on the query's own counts and the rank-aggregated
+            // clickthrough, so partitions of the user queries are calculated across a fork/join pool. The workers
+            // only calculate. The judgments are written here, in partition order, so a worker never waits on the writer.
+            final List<Integer> partitionStarts = getPartitionStarts(pairsByUserQuery);
+            final int maxPendingPartitions = parameters.getParallelism() * 2;
+            final ForkJoinPool forkJoinPool = new ForkJoinPool(parameters.getParallelism());
+
+            try {
+
+                final Deque<Future<List<Judgment>>> pendingPartitions = new ArrayDeque<>();
+                int submitted = 0;
+
+                for (int partition = 0; partition < partitionStarts.size() - 1; partition++) {
+
+                    // Only a window of partitions is calculated ahead of the writer so their judgments are not all held at once.
+                    while (submitted < partitionStarts.size() - 1 && submitted < partition + maxPendingPartitions) {
+
+                        final int fromUserQueryId = partitionStarts.get(submitted);
+                        final int toUserQueryId = partitionStarts.get(submitted + 1);
+
+                        pendingPartitions.add(forkJoinPool.submit(() -> {
+
+                            final List<Judgment> judgments = new ArrayList<>();
+
+                            for (int userQueryId = fromUserQueryId; userQueryId < toUserQueryId; userQueryId++) {
+                                judgments.addAll(calculateCoec(meanCtrAtRank, clickStatistics, userQueryOffset, userQueryId, pairsByUserQuery[userQueryId]));
+                            }
+
+                            return judgments;
+
+                        }));
+
+                        submitted++;
+
+                    }
+
+                    for (final Judgment judgment : pendingPartitions.poll().get()) {
+                        judgmentWriter.write(judgment);
+                    }
+
+                }
+
+            } finally {
+                forkJoinPool.shutdownNow();
+            }
+
+        } else {
+
+            for (int userQueryId = 0; userQueryId < pairsByUserQuery.length; userQueryId++) {
+                for (final Judgment judgment : calculateCoec(meanCtrAtRank, clickStatistics, userQueryOffset, userQueryId, pairsByUserQuery[userQueryId])) {
+                    judgmentWriter.write(judgment);
+                }
+            }
+
+        }
+
+    }
+
+    // Reads the click statistics saved by a previous run, or starts new click statistics if there are none.
+    private ClickStatisticsSnapshot readClickStatisticsSnapshot(final Path path, final int maxRank, final String application,
+                                                                final TimeFilter timeFilter) throws Exception {
+
+        if(!Files.exists(path)) {
+            LOGGER.info("No click statistics at {}. Reading all events.", path);
+            return new ClickStatisticsSnapshot(maxRank, application, timeFilter.getStartTimestamp());
+        }
+
+        final ClickStatisticsSnapshot clickStatisticsSnapshot = ClickStatisticsSnapshot.read(path);
+
+        if(clickStatisticsSnapshot.getClickStatistics().getMaxRank() != maxRank) {
+            throw new IllegalArgumentException("The click statistics at " + path + " have a max rank of "
+                    + clickStatisticsSnapshot.getClickStatistics().getMaxRank() + " but the max rank is " + maxRank);
+        }
+
+        // The end timestamp can move forward between runs, but the events must be from the same application and start.
+        if(!Objects.equals(clickStatisticsSnapshot.getApplication(), application)
+                || !Objects.equals(clickStatisticsSnapshot.getStartTimestamp(), timeFilter.getStartTimestamp())) {
+            throw new IllegalArgumentException("The click statistics at " + path + " are for application '" + clickStatisticsSnapshot.getApplication()
+                    + "' and start timestamp '" + clickStatisticsSnapshot.getStartTimestamp() + "' but the application is '" + application
+                    + "' and the start timestamp is '" + timeFilter.getStartTimestamp() + "'");
+        }
+
+        LOGGER.info("Read the click statistics of {} events from {}. Watermark: {}", clickStatisticsSnapshot.getEventCount(),
+                path, clickStatisticsSnapshot.getWatermark());
+
+        return clickStatisticsSnapshot;
+
+    }
+
+    // Calculates the judgments of one user query.
+    private List<Judgment> calculateCoec(final double[] meanCtrAtRank, final ClickStatistics clickStatistics, final int userQueryOffset,
+                                         final int userQueryId, final int[] pairs) {
+
+        final String userQuery = clickStatistics.getUserQuery(userQueryId);
+        final List<Judgment> judgments = new ArrayList<>(pairs.length);
+
+        for (final int pair : pairs) {
+
+            double denominatorSum = 0;
+
+            for (int rank = 0; rank < meanCtrAtRank.length; rank++) {
+                denominatorSum += (meanCtrAtRank[rank] * clickStatistics.getImpressionsAtRank(pair, rank));
+            }
+
+            final double judgmentValue = denominatorSum == 0 ? 0.0 : clickStatistics.getClicks(pair) / denominatorSum;
+
+            judgments.add(getJudgment(userQueryOffset + userQueryId + 1, userQuery, clickStatistics.getObjectId(pair), judgmentValue));
+
+        }
+
+        return judgments;
+
+    }
+
+    // Splits the user queries into partitions of about PARTITION_PAIRS pairs. Returns the first user query ID of each
+    // partition followed by the number of user queries. A user query with more pairs is a partition of its own.
+    private static List<Integer> getPartitionStarts(final int[][] pairsByUserQuery) {
+
+        final List<Integer> partitionStarts = new ArrayList<>();
+        partitionStarts.add(0);
+
+        long partitionPairs = 0;
+
+        for (int userQueryId = 0; userQueryId < pairsByUserQuery.length; userQueryId++) {
+
+            if (partitionPairs > 0 && partitionPairs + pairsByUserQuery[userQueryId].length > PARTITION_PAIRS) {
+                partitionStarts.add(userQueryId);
+                partitionPairs = 0;
+            }
+
+            partitionPairs += pairsByUserQuery[userQueryId].length;
+
+        }
+
+        if (pairsByUserQuery.length > 0) {
+            partitionStarts.add(pairsByUserQuery.length);
+        }
+
+        return partitionStarts;
+
+    }
+
     public String calculateCoec(final Map<Integer, Double> rankAggregatedClickThrough,
                                 final Map<String, Set<ClickthroughRate>> clickthroughRates) throws Exception {
 
@@ -76,84 +406,96 @@ public class CoecClickModel extends ClickModel {
         // and CTR is the average CTR for each position in the results page (up to R) computed over all queries and results.
 
         // Format: query_id, query, document, judgment
-        final Collection<Judgment> judgments = new LinkedList<>();
+        // The judgments are indexed as they are calculated rather than being collected first.
+        final JudgmentWriter judgmentWriter = searchEngine.getJudgmentWriter(parameters.getJudgmentSetId(), parameters.getBulkMaxDocuments(),
+                parameters.getBulkMaxBytes(), parameters.getBulkMaxInFlight());
 
         LOGGER.info("Count of queries: {}", clickthroughRates.size());
 
-        for(final String userQuery : clickthroughRates.keySet()) {
+        try (judgmentWriter) {
 
-            // The clickthrough rates for this one query.
-            // A ClickthroughRate is a document with counts of impressions and clicks.
-            final Collection<ClickthroughRate> ctrs = clickthroughRates.get(userQuery);
+            for(final String userQuery : clickthroughRates.keySet()) {
 
-            // Go through each clickthrough rate for this query.
-            for(final ClickthroughRate ctr : ctrs) {
+                // The clickthrough rates for this one query.
+                // A ClickthroughRate is a document with counts of impressions and clicks.
+                final Collection<ClickthroughRate> ctrs = clickthroughRates.get(userQuery);
 
-                double denominatorSum = 0;
+                // Go through each clickthrough rate for this query.
+                for(final ClickthroughRate ctr : ctrs) {
 
-                for(int rank = 0; rank < parameters.getMaxRank(); rank++) {
+                    double denominatorSum = 0;
 
-                    // The document's mean CTR at the rank.
-                    final double meanCtrAtRank = rankAggregatedClickThrough.getOrDefault(rank, 0.0);
+                    for(int rank = 0; rank < parameters.getMaxRank(); rank++) {
 
-                    // The number of times this document was shown as this rank.
-                    final long countOfTimesShownAtRank = searchEngine.getCountOfQueriesForUserQueryHavingResultInRankR(userQuery, ctr.getObjectId(), rank);
+                        // The document's mean CTR at the rank.
+                        final double meanCtrAtRank = rankAggregatedClickThrough.getOrDefault(rank, 0.0);
 
-                    denominatorSum += (meanCtrAtRank * countOfTimesShownAtRank);
+                        // The number of times this document was shown as this rank.
+                        // When the impressions were tracked by rank the count is already known and OpenSearch does not need queried.
+                        final long countOfTimesShownAtRank;
 
-                }
+                        if(ctr.hasImpressionsAtRank()) {
+                            countOfTimesShownAtRank = ctr.getImpressionsAtRank(rank);
+                        } else {
+                            countOfTimesShownAtRank = searchEngine.getCountOfQueriesForUserQueryHavingResultInRankR(userQuery, ctr.getObjectId(), rank,
+                                    parameters.getApplication(), parameters.getTimeFilter());
+                        }
 
-                // Numerator is the sum of clicks at all ranks up to the maxRank.
-                final long totalNumberClicksForQueryResult = ctr.getClicks();
+                        denominatorSum += (meanCtrAtRank * countOfTimesShownAtRank);
 
-                // Divide the numerator by the denominator (value).
-                final double judgmentValue;
+                    }
 
-                if(denominatorSum == 0) {
-                    judgmentValue = 0.0;
-                } else {
-                    judgmentValue = totalNumberClicksForQueryResult / denominatorSum;
-                }
+                    // Numerator is the sum of clicks at all ranks up to the maxRank.
+                    final long totalNumberClicksForQueryResult = ctr.getClicks();
+
+                    // Divide the numerator by the denominator (value).
+                    final double judgmentValue;
 
-                // Hash the user query to get a query ID.
-                final int queryId = incrementalUserQueryHash.getHash(userQuery);
+                    if(denominatorSum == 0) {
+                        judgmentValue = 0.0;
+                    } else {
+                        judgmentValue = totalNumberClicksForQueryResult / denominatorSum;
+                    }
 
-                // Add the judgment to the list.
-                // TODO: What to do for query ID when the values are per user_query instead?
-                final Judgment judgment = new Judgment();
-                judgment.setQueryId(String.valueOf(queryId));
-                judgment.setUserQuery(userQuery);
-                judgment.setDocument(ctr.getObjectId());
-                judgment.setJudgment(judgmentValue);
-                judgment.setJudgmentSetType(parameters.getJudgmentParameters().getJudgmentSetType());
-                judgment.setJudgmentSetGenerator(parameters.getJudgmentParameters().getJudgmentSetGenerator());
-                judgment.setJudgmentSetName(parameters.getJudgmentParameters().getJudgmentSetName());
-                judgment.setJudgmentSetParameters(parameters.getJudgmentParameters().getJudgmentSetParameters());
+                    // Hash the user query to get a query ID.
+                    final int queryId = incrementalUserQueryHash.getHash(userQuery);
 
-                judgments.add(judgment);
+                    // Write the judgment.
+                    judgmentWriter.write(getJudgment(queryId, userQuery, ctr.getObjectId(), judgmentValue));
+
+                }
 
             }
 
         }
 
         LOGGER.info("Count of user queries: {}", clickthroughRates.size());
-        LOGGER.info("Count of judgments: {}", judgments.size());
+        LOGGER.info("Count of judgments: {}", judgmentWriter.getCount());
 
-        showJudgments(judgments);
-
-        if(!(judgments.isEmpty())) {
-            return searchEngine.indexJudgments(judgments);
+        if(judgmentWriter.getCount() > 0) {
+            return judgmentWriter.getJudgmentSetId();
         } else {
             return null;
         }
 
     }
 
-    private void showJudgments(final Collection<Judgment> judgments) {
+    private Judgment getJudgment(final int queryId, final String userQuery, final String objectId, final double judgmentValue) {
 
-        for(final Judgment judgment : judgments) {
-            LOGGER.debug(judgment.toJudgmentString());
-        }
+        // TODO: What to do for query ID when the values are per user_query instead?
+        final Judgment judgment = new Judgment();
+        judgment.setQueryId(String.valueOf(queryId));
+        judgment.setUserQuery(userQuery);
+        judgment.setDocument(objectId);
+        judgment.setJudgment(judgmentValue);
+        judgment.setJudgmentSetType(parameters.getJudgmentParameters().getJudgmentSetType());
+        judgment.setJudgmentSetGenerator(parameters.getJudgmentParameters().getJudgmentSetGenerator());
+        judgment.setJudgmentSetName(parameters.getJudgmentParameters().getJudgmentSetName());
+        judgment.setJudgmentSetParameters(parameters.getJudgmentParameters().getJudgmentSetParameters());
+
+        LOGGER.debug(judgment.toJudgmentString());
+
+        return judgment;
 
     }
 
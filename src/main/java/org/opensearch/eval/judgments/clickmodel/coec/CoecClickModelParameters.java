@@ -16,6 +16,64 @@ import org.opensearch.eval.judgments.clickmodel.JudgmentParameters;
  */
 public class CoecClickModelParameters extends ClickModelParameters {
 
+    /**
+     * Calculates the judgments from click statistics gathered in a single pass over the UBI events.
+     */
+    public static final String MODE_SINGLE_PASS = "single_pass";
+
+    /**
+     * Calculates the judgments by querying the count of impressions for each user query, result, and rank.
+     */
+    public static final String MODE_PER_QUERY = "per_query";
+
+    /**
+     * Calculates the judgments from click statistics aggregated by OpenSearch.
+     */
+    public static final String MODE_AGGREGATION = "aggregation";
+
+    /**
+     * The name of the judgment set parameter that sets the mode.
+     */
+    public static final String MODE_PARAMETER = "mode";
+
+    /**
+     * The name of the judgment set parameter that sets the event field used to identify the query
+     * when aggregating. Either <code>query_id</code> or <code>user_query</code>.
+     */
+    public static final String AGGREGATION_KEY_PARAMETER = "aggregation_key";
+
+    /**
+     * The name of the judgment set parameter that sets the number of threads used to calculate the judgments
+     * from click statistics. <code>1</code> calculates the judgments on the calling thread.
+     */
+    public static final String PARALLELISM_PARAMETER = "parallelism";
+
+    /**
+     * The name of the judgment set parameter that sets the path of a local file holding the click statistics
+     * between runs. When set, only the UBI events after the latest event in the file are read, and the judgments
+     * are calculated from all the events. Only used in the {@link #MODE_SINGLE_PASS} mode.
+     */
+    public static final String STATE_FILE_PARAMETER = "state_file";
+
+    /**
+     * The name of the judgment set parameter that sets how many hours before the watermark of the state file the
+     * UBI queries are read, so the events after the watermark can be joined to their user queries. An event whose
+     * query is older than this is not joined. Only used with the {@link #STATE_FILE_PARAMETER} parameter.
+     */
+    public static final String QUERY_LOOKBACK_HOURS_PARAMETER = "query_lookback_hours";
+
+    /**
+     * The name of the judgment set parameter that sets the estimated size in megabytes the click statistics can
+     * grow to in memory before they are spilled to disk. <code>0</code> keeps all the click statistics in memory.
+     * Only used in the {@link #MODE_SINGLE_PASS} mode.
+     */
+    public static final String MAX_MEMORY_MB_PARAMETER = "max_memory_mb";
+
+    /**
+     * The name of the judgment set parameter that sets the directory the click statistics are spilled to.
+     */
+    public static final String SPILL_DIRECTORY_PARAMETER = "spill_directory";
+
     private final int maxRank;
     private int roundingDigits = 3;
 
@@ -55,4 +113,61 @@ public class CoecClickModelParameters extends ClickModelParameters {
         return roundingDigits;
     }
 
+    /**
+     * Gets the mode used to calculate the judgments. Defaults to {@link #MODE_SINGLE_PASS}.
+     * @return The mode used to calculate the judgments.
+     */
+    public String getMode() {
+        return getJudgmentParameters().getJudgmentSetParameter(MODE_PARAMETER, MODE_SINGLE_PASS);
+    }
+
+    /**
+     * Gets the event field used to identify the query when aggregating. Defaults to <code>query_id</code>.
+     * @return The event field used to identify the query when aggregating.
+     */
+    public String getAggregationKey() {
+        return getJudgmentParameters().getJudgmentSetParameter(AGGREGATION_KEY_PARAMETER, "query_id");
+    }
+
+    /**
+     * Gets the number of threads used to calculate the judgments from click statistics. Defaults to <code>1</code>.
+     * @return The number of threads used to calculate the judgments.
+     */
+    public int getParallelism() {
+        return Math.max(1, getJudgmentParameters().getJudgmentSetParameter(PARALLELISM_PARAMETER, 1));
+    }
+
+    /**
+     * Gets the path of the local file holding the click statistics between runs.
+     * @return The path of the state file, or <code>null</code> if the click statistics are calculated from all the events.
+     */
+    public String getStateFile() {
+        return getJudgmentParameters().getJudgmentSetParameter(STATE_FILE_PARAMETER, null);
+    }
+
+    /**
+     * Gets how many hours before the watermark of the state file the UBI queries are read. Defaults to <code>24</code>.
+     * @return The number of hours before the watermark the UBI queries are read.
+     */
+    public int getQueryLookbackHours() {
+        return Math.max(0, getJudgmentParameters().getJudgmentSetParameter(QUERY_LOOKBACK_HOURS_PARAMETER, 24));
+    }
+
+    /**
+     * Gets the estimated size in megabytes the click statistics can grow to in memory before they are spilled to disk.
+     * Defaults to <code>0</code>, which keeps all the click statistics in memory.
+     * @return The max size of the click statistics in memory in megabytes.
+     */
+    public int getMaxMemoryMb() {
+        return Math.max(0, getJudgmentParameters().getJudgmentSetParameter(MAX_MEMORY_MB_PARAMETER, 0));
+    }
+
+    /**
+     * Gets the directory the click statistics are spilled to. Defaults to the system temporary directory.
+     * @return The directory the click statistics are spilled to.
+     */
+    public String getSpillDirectory() {
+        return getJudgmentParameters().getJudgmentSetParameter(SPILL_DIRECTORY_PARAMETER, System.getProperty("java.io.tmpdir"));
+    }
+
 }
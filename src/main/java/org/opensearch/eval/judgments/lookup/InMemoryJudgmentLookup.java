@@ -0,0 +1,241 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.judgments.lookup;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link JudgmentLookup} that holds a judgment set in memory. User queries and documents are
+ * replaced by integer IDs, and each judgment is stored in an open-addressing hash table keyed by
+ * the pair of IDs packed into a <code>long</code>, with the values in a <code>double[]</code>.
+ * The lookup stops accepting judgments once its estimated size exceeds a memory budget.
+ * The lookup is safe to read from multiple threads once it is loaded.
+ */
+public class InMemoryJudgmentLookup implements JudgmentLookup {
+
+    /**
+     * The default memory budget in bytes.
+     */
+    public static final long DEFAULT_MEMORY_BUDGET_BYTES = 256L * 1024 * 1024;
+
+    /**
+     * A rough estimate of the bytes needed for each judgment, including its share of the
+     * dictionaries. Used to check if a judgment set will fit before loading it.
+     */
+    public static final long ESTIMATED_BYTES_PER_JUDGMENT = 96;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final double MAX_LOAD_FACTOR = 0.6;
+
+    // The estimated bytes for each dictionary entry: the HashMap entry, the boxed ID, and the string's overhead.
+    private static final long DICTIONARY_ENTRY_BYTES = 96;
+
+    // An empty slot. IDs start at 1 so a packed key is never 0.
+    private static final long EMPTY = 0;
+
+    private final long memoryBudgetBytes;
+
+    private final Map<String, Integer> userQueryIds = new HashMap<>();
+    private final Map<String, Integer> documentIds = new HashMap<>();
+    private long dictionaryBytes = 0;
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private double[] values = new double[INITIAL_CAPACITY];
+    private int size = 0;
+    private boolean full = false;
+
+    /**
+     * Creates a new lookup with the default memory budget.
+     */
+    public InMemoryJudgmentLookup() {
+        this(DEFAULT_MEMORY_BUDGET_BYTES);
+    }
+
+    /**
+     * Creates a new lookup.
+     * @param memoryBudgetBytes The max estimated size of the lookup in bytes.
+     */
+    public InMemoryJudgmentLookup(final long memoryBudgetBytes) {
+        this.memoryBudgetBytes = memoryBudgetBytes;
+    }
+
+    /**
+     * Adds a judgment. If there is already a judgment for the user query and document it is replaced.
+     * @param userQuery The user query.
+     * @param documentId The document ID.
+     * @param judgment The value of the judgment.
+     * @return <code>true</code> if the judgment was added, <code>false</code> if adding it would exceed the memory budget.
+     */
+    public boolean put(final String userQuery, final String documentId, final double judgment) {
+
+        if (full) {
+            return false;
+        }
+
+        final boolean grow = size + 1 > keys.length * MAX_LOAD_FACTOR;
+        final long tableBytes = getTableBytes(grow ? keys.length * 2 : keys.length);
+        final long newDictionaryBytes = getNewEntryBytes(userQueryIds, userQuery) + getNewEntryBytes(documentIds, documentId);
+
+        if (tableBytes + dictionaryBytes + newDictionaryBytes > memoryBudgetBytes) {
+            full = true;
+            return false;
+        }
+
+        if (grow) {
+            resize(keys.length * 2);
+        }
+
+        final long key = getKey(getOrAddId(userQueryIds, userQuery), getOrAddId(documentIds, documentId));
+
+        int slot = getSlot(key, keys.length);
+
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & (keys.length - 1);
+        }
+
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            size++;
+        }
+
+        values[slot] = judgment;
+
+        return true;
+
+    }
+
+    @Override
+    public double getJudgment(final String userQuery, final String documentId) {
+
+        final Integer userQueryId = userQueryIds.get(userQuery);
+        final Integer docId = documentIds.get(documentId);
+
+        if (userQueryId == null || docId == null) {
+            return Double.NaN;
+        }
+
+        final long key = getKey(userQueryId, docId);
+        int slot = getSlot(key, keys.length);
+
+        while (keys[slot] != EMPTY) {
+
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+
+            slot = (slot + 1) & (keys.length - 1);
+
+        }
+
+        return Double.NaN;
+
+    }
+
+    /**
+     * Gets the number of judgments.
+     * @return The number of judgments.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets whether a judgment was not added because it would exceed the memory budget.
+     * @return <code>true</code> if the memory budget was exceeded.
+     */
+    public boolean isFull() {
+        return full;
+    }
+
+    /**
+     * Gets the estimated size of the lookup in bytes.
+     * @return The estimated size of the lookup in bytes.
+     */
+    public long getEstimatedBytes() {
+        return getTableBytes(keys.length) + dictionaryBytes;
+    }
+
+    private int getOrAddId(final Map<String, Integer> ids, final String value) {
+
+        final Integer id = ids.get(value);
+
+        if (id != null) {
+            return id;
+        }
+
+        dictionaryBytes += getNewEntryBytes(ids, value);
+
+        final int newId = ids.size() + 1;
+        ids.put(value, newId);
+
+        return newId;
+
+    }
+
+    private static long getNewEntryBytes(final Map<String, Integer> ids, final String value) {
+        return ids.containsKey(value) ? 0 : DICTIONARY_ENTRY_BYTES + 2L * value.length();
+    }
+
+    private void resize(final int capacity) {
+
+        final long[] oldKeys = keys;
+        final double[] oldValues = values;
+
+        keys = new long[capacity];
+        values = new double[capacity];
+
+        for (int i = 0; i < oldKeys.length; i++) {
+
+            if (oldKeys[i] != EMPTY) {
+
+                int slot = getSlot(oldKeys[i], capacity);
+
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+
+            }
+
+        }
+
+    }
+
+    private static long getKey(final int userQueryId, final int documentId) {
+        return ((long) userQueryId << 32) | (documentId & 0xFFFFFFFFL);
+    }
+
+    private static int getSlot(final long key, final int capacity) {
+
+        // Mix the bits of the key so consecutive IDs are spread across the table.
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+
+        return (int) h & (capacity - 1);
+
+    }
+
+    private static long getTableBytes(final int capacity) {
+        return (long) capacity * (Long.BYTES + Double.BYTES);
+    }
+
+    @Override
+    public String toString() {
+        return "judgments: " + size + ", user queries: " + userQueryIds.size() + ", documents: " + documentIds.size()
+                + ", estimated bytes: " + getEstimatedBytes() + ", full: " + full;
+    }
+
+}
@@ -0,0 +1,338 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.judgments.lookup;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes a judgment set to a binary judgment file that can be read by a {@link MappedJudgmentLookup}.
+ * <p>
+ * The file starts with a header of the magic number, the format version, the number of user queries,
+ * documents, and judgments, and the offsets of the sections that follow. The judgment set ID follows
+ * the header. The user queries and the documents are each stored as a dictionary of UTF-8 strings
+ * sorted by their bytes, with a table of offsets in front of the strings. A string's ID is its position
+ * in its dictionary. The judgments are stored last as pairs of a <code>long</code> key made of the user
+ * query ID and the document ID, and a <code>double</code> judgment, sorted by key.
+ * <p>
+ * The writer holds 16 bytes per judgment plus the unique user queries and documents on the heap until
+ * the file is written. When the number of judgments is known up front the judgment arrays are allocated once
+ * at that size instead of being grown as judgments are added. If a user query and document are added more
+ * than once, the highest judgment is kept.
+ */
+public class JudgmentFileWriter {
+
+    /**
+     * The magic number at the start of a judgment file.
+     */
+    public static final int MAGIC = 0x53524A46;
+
+    /**
+     * The version of the judgment file format.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The size of the fixed header in bytes.
+     */
+    public static final int HEADER_BYTES = 48;
+
+    /**
+     * The size of each judgment in bytes.
+     */
+    public static final int JUDGMENT_BYTES = Long.BYTES + Double.BYTES;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final String judgmentSetId;
+
+    private final Map<String, Integer> userQueryIds = new HashMap<>();
+    private final Map<String, Integer> documentIds = new HashMap<>();
+
+    // The max length of the judgment arrays.
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private long[] keys;
+    private double[] values;
+    private int size = 0;
+
+    /**
+     * Creates a new writer.
+     * @param judgmentSetId The ID of the judgment set being written.
+     */
+    public JudgmentFileWriter(final String judgmentSetId) {
+        this(judgmentSetId, INITIAL_CAPACITY);
+    }
+
+    /**
+     * Creates a new writer sized for a number of judgments. More judgments can still be added.
+     * @param judgmentSetId The ID of the judgment set being written.
+     * @param expectedJudgmentCount The number of judgments expected to be added.
+     */
+    public JudgmentFileWriter(final String judgmentSetId, final long expectedJudgmentCount) {
+
+        final int capacity = (int) Math.min(MAX_CAPACITY, Math.max(INITIAL_CAPACITY, expectedJudgmentCount));
+
+        this.judgmentSetId = judgmentSetId;
+        this.keys = new long[capacity];
+        this.values = new double[capacity];
+
+    }
+
+    /**
+     * Adds a judgment.
+     * @param userQuery The user query.
+     * @param documentId The document ID.
+     * @param judgment The value of the judgment.
+     */
+    public void add(final String userQuery, final String documentId, final double judgment) {
+
+        if (size == keys.length) {
+
+            if (size == MAX_CAPACITY) {
+                throw new IllegalStateException("A judgment file can hold at most " + MAX_CAPACITY + " judgments.");
+            }
+
+            final int capacity = (int) Math.min(MAX_CAPACITY, keys.length * 2L);
+            keys = Arrays.copyOf(keys, capacity);
+            values = Arrays.copyOf(values, capacity);
+
+        }
+
+        final int userQueryId = userQueryIds.computeIfAbsent(userQuery, k -> userQueryIds.size());
+        final int docId = documentIds.computeIfAbsent(documentId, k -> documentIds.size());
+
+        keys[size] = getKey(userQueryId, docId);
+        values[size] = judgment;
+        size++;
+
+    }
+
+    /**
+     * Writes the judgment file. A writer can only write one file.
+     * @param path The path of the file to write.
+     * @return The number of judgments written.
+     * @throws IOException Thrown if the file cannot be written.
+     */
+    public long write(final Path path) throws IOException {
+
+        // Sort each dictionary and map the IDs assigned when the strings were added to their sorted positions.
+        final byte[][] userQueries = new byte[userQueryIds.size()][];
+        final int[] userQueryIdMap = sortDictionary(userQueryIds, userQueries);
+
+        final byte[][] documents = new byte[documentIds.size()][];
+        final int[] documentIdMap = sortDictionary(documentIds, documents);
+
+        for (int i = 0; i < size; i++) {
+            keys[i] = getKey(userQueryIdMap[(int) (keys[i] >>> 32)], documentIdMap[(int) keys[i]]);
+        }
+
+        sort(keys, values, 0, size - 1);
+        final int count = removeDuplicates();
+
+        final byte[] judgmentSetIdBytes = judgmentSetId.getBytes(StandardCharsets.UTF_8);
+
+        final long userQueriesOffset = HEADER_BYTES + Integer.BYTES + judgmentSetIdBytes.length;
+        final long documentsOffset = userQueriesOffset + getDictionaryBytes(userQueries);
+        final long judgmentsOffset = documentsOffset + getDictionaryBytes(documents);
+
+        try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(userQueries.length);
+            out.writeInt(documents.length);
+            out.writeLong(count);
+            out.writeLong(userQueriesOffset);
+            out.writeLong(documentsOffset);
+            out.writeLong(judgmentsOffset);
+
+            out.writeInt(judgmentSetIdBytes.length);
+            out.write(judgmentSetIdBytes);
+
+            writeDictionary(out, userQueriesOffset, userQueries);
+            writeDictionary(out, documentsOffset, documents);
+
+            for (int i = 0; i < count; i++) {
+                out.writeLong(keys[i]);
+                out.writeDouble(values[i]);
+            }
+
+        }
+
+        return count;
+
+    }
+
+    /**
+     * Gets the number of judgments added.
+     * @return The number of judgments added.
+     */
+    public int size() {
+        return size;
+    }
+
+    static long getKey(final int userQueryId, final int documentId) {
+        return ((long) userQueryId << 32) | (documentId & 0xFFFFFFFFL);
+    }
+
+    private static int[] sortDictionary(final Map<String, Integer> ids, final byte[][] sorted) {
+
+        final String[] strings = new String[ids.size()];
+        for (final Map.Entry<String, Integer> entry : ids.entrySet()) {
+            strings[entry.getValue()] = entry.getKey();
+        }
+
+        final byte[][] bytes = new byte[strings.length][];
+        final Integer[] order = new Integer[strings.length];
+
+        for (int i = 0; i < strings.length; i++) {
+            bytes[i] = strings[i].getBytes(StandardCharsets.UTF_8);
+            order[i] = i;
+        }
+
+        // The reader compares the UTF-8 bytes so the dictionary is sorted the same way.
+        Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(bytes[a], bytes[b]));
+
+        final int[] idMap = new int[strings.length];
+
+        for (int i = 0; i < order.length; i++) {
+            sorted[i] = bytes[order[i]];
+            idMap[order[i]] = i;
+        }
+
+        return idMap;
+
+    }
+
+    private static long getDictionaryBytes(final byte[][] dictionary) {
+
+        long bytes = (long) (dictionary.length + 1) * Long.BYTES;
+
+        for (final byte[] value : dictionary) {
+            bytes += value.length;
+        }
+
+        return bytes;
+
+    }
+
+    private static void writeDictionary(final DataOutputStream out, final long offset, final byte[][] dictionary) throws IOException {
+
+        // The offset of each string followed by the offset of the end of the last string.
+        long position = offset + (long) (dictionary.length + 1) * Long.BYTES;
+
+        for (final byte[] value : dictionary) {
+            out.writeLong(position);
+            position += value.length;
+        }
+
+        out.writeLong(position);
+
+        for (final byte[] value : dictionary) {
+            out.write(value);
+        }
+
+    }
+
+    private int removeDuplicates() {
+
+        if (size == 0) {
+            return 0;
+        }
+
+        int count = 1;
+
+        for (int i = 1; i < size; i++) {
+
+            if (keys[i] == keys[count - 1]) {
+                values[count - 1] = Math.max(values[count - 1], values[i]);
+            } else {
+                keys[count] = keys[i];
+                values[count] = values[i];
+                count++;
+            }
+
+        }
+
+        return count;
+
+    }
+
+    // Sorts the keys and moves the values with them.
+    private static void sort(final long[] keys, final double[] values, int low, int high) {
+
+        while (high - low > 16) {
+
+            final long pivot = medianOfThree(keys[low], keys[low + (high - low) / 2], keys[high]);
+
+            int i = low;
+            int j = high;
+
+            while (i <= j) {
+
+                while (keys[i] < pivot) {
+                    i++;
+                }
+
+                while (keys[j] > pivot) {
+                    j--;
+                }
+
+                if (i <= j) {
+                    swap(keys, values, i, j);
+                    i++;
+                    j--;
+                }
+
+            }
+
+            // Recurse into the smaller side to bound the stack depth.
+            if (j - low < high - i) {
+                sort(keys, values, low, j);
+                low = i;
+            } else {
+                sort(keys, values, i, high);
+                high = j;
+            }
+
+        }
+
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low && keys[j - 1] > keys[j]; j--) {
+                swap(keys, values, j - 1, j);
+            }
+        }
+
+    }
+
+    private static long medianOfThree(final long a, final long b, final long c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    private static void swap(final long[] keys, final double[] values, final int i, final int j) {
+
+        final long key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+
+        final double value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+
+    }
+
+}
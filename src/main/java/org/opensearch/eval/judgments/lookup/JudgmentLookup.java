@@ -0,0 +1,55 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.judgments.lookup;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * An interface for looking up the judgments of a judgment set.
+ */
+public interface JudgmentLookup extends AutoCloseable {
+
+    /**
+     * Gets the judgment for a user query and document.
+     * @param userQuery The user query.
+     * @param documentId The document ID.
+     * @return The value of the judgment, or <code>NaN</code> if there is no judgment.
+     * @throws Exception Thrown if the judgment cannot be looked up.
+     */
+    double getJudgment(String userQuery, String documentId) throws Exception;
+
+    /**
+     * Gets the judgments for a user query and a list of documents.
+     * @param userQuery The user query.
+     * @param documentIds The document IDs.
+     * @return The value of each judgment in the same order as the documents, or <code>NaN</code> for a document without a judgment.
+     * @throws Exception Thrown if the judgments cannot be looked up.
+     */
+    default double[] getJudgments(final String userQuery, final List<String> documentIds) throws Exception {
+
+        final double[] judgments = new double[documentIds.size()];
+
+        for (int i = 0; i < judgments.length; i++) {
+            judgments[i] = getJudgment(userQuery, documentIds.get(i));
+        }
+
+        return judgments;
+
+    }
+
+    /**
+     * Releases any resources held by the lookup.
+     * @throws IOException Thrown if the resources cannot be released.
+     */
+    @Override
+    default void close() throws IOException {
+    }
+
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.judgments.lookup;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * A {@link JudgmentLookup} that memory-maps a judgment file written by a {@link JudgmentFileWriter}.
+ * User queries, documents, and judgments are found with binary searches over the mapped file, so the
+ * judgments are not loaded onto the heap. The lookup is safe to use from multiple threads.
+ */
+public class MappedJudgmentLookup implements JudgmentLookup {
+
+    // Files larger than this are mapped in more than one chunk.
+    private static final long CHUNK_BYTES = 1L << 30;
+
+    // Each chunk overlaps the next so a value that starts in a chunk can always be read from that chunk.
+    private static final long CHUNK_OVERLAP_BYTES = Long.BYTES;
+
+    private final FileChannel fileChannel;
+    private final MappedByteBuffer[] chunks;
+
+    private final String judgmentSetId;
+    private final int userQueryCount;
+    private final int documentCount;
+    private final long judgmentCount;
+    private final long userQueriesOffset;
+    private final long documentsOffset;
+    private final long judgmentsOffset;
+
+    /**
+     * Opens a judgment file.
+     * @param path The path of the judgment file.
+     * @throws IOException Thrown if the file cannot be read or is not a judgment file.
+     */
+    public MappedJudgmentLookup(final Path path) throws IOException {
+
+        this.fileChannel = FileChannel.open(path, StandardOpenOption.READ);
+
+        try {
+
+            final long fileSize = fileChannel.size();
+
+            if (fileSize < JudgmentFileWriter.HEADER_BYTES) {
+                throw new IOException("The file " + path + " is not a judgment file.");
+            }
+
+            final int chunkCount = (int) ((fileSize + CHUNK_BYTES - 1) / CHUNK_BYTES);
+            this.chunks = new MappedByteBuffer[chunkCount];
+
+            for (int i = 0; i < chunkCount; i++) {
+                final long position = i * CHUNK_BYTES;
+                chunks[i] = fileChannel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(CHUNK_BYTES + CHUNK_OVERLAP_BYTES, fileSize - position));
+            }
+
+            if (getInt(0) != JudgmentFileWriter.MAGIC) {
+                throw new IOException("The file " + path + " is not a judgment file.");
+            }
+
+            if (getInt(4) != JudgmentFileWriter.VERSION) {
+                throw new IOException("The judgment file " + path + " has unsupported version " + getInt(4) + ".");
+            }
+
+            this.userQueryCount = getInt(8);
+            this.documentCount = getInt(12);
+            this.judgmentCount = getLong(16);
+            this.userQueriesOffset = getLong(24);
+            this.documentsOffset = getLong(32);
+            this.judgmentsOffset = getLong(40);
+
+            final byte[] judgmentSetIdBytes = new byte[getInt(JudgmentFileWriter.HEADER_BYTES)];
+            for (int i = 0; i < judgmentSetIdBytes.length; i++) {
+                judgmentSetIdBytes[i] = getByte(JudgmentFileWriter.HEADER_BYTES + Integer.BYTES + i);
+            }
+            this.judgmentSetId = new String(judgmentSetIdBytes, StandardCharsets.UTF_8);
+
+        } catch (IOException | RuntimeException ex) {
+            fileChannel.close();
+            throw ex;
+        }
+
+    }
+
+    @Override
+    public double getJudgment(final String userQuery, final String documentId) {
+
+        final int userQueryId = findId(userQueriesOffset, userQueryCount, userQuery);
+
+        if (userQueryId < 0) {
+            return Double.NaN;
+        }
+
+        return getJudgment(userQueryId, documentId);
+
+    }
+
+    @Override
+    public double[] getJudgments(final String userQuery, final List<String> documentIds) {
+
+        final double[] judgments = new double[documentIds.size()];
+
+        // Find the user query once for all the documents.
+        final int userQueryId = findId(userQueriesOffset, userQueryCount, userQuery);
+
+        for (int i = 0; i < judgments.length; i++) {
+            judgments[i] = userQueryId < 0 ? Double.NaN : getJudgment(userQueryId, documentIds.get(i));
+        }
+
+        return judgments;
+
+    }
+
+    /**
+     * Gets the ID of the judgment set in the file.
+     * @return The judgment set ID.
+     */
+    public String getJudgmentSetId() {
+        return judgmentSetId;
+    }
+
+    /**
+     * Gets the number of judgments in the file.
+     * @return The number of judgments.
+     */
+    public long size() {
+        return judgmentCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // The mapped buffers are released when they are garbage collected.
+        fileChannel.close();
+    }
+
+    private double getJudgment(final int userQueryId, final String documentId) {
+
+        final int docId = findId(documentsOffset, documentCount, documentId);
+
+        if (docId < 0) {
+            return Double.NaN;
+        }
+
+        final long key = JudgmentFileWriter.getKey(userQueryId, docId);
+
+        long low = 0;
+        long high = judgmentCount - 1;
+
+        while (low <= high) {
+
+            final long middle = (low + high) >>> 1;
+            final long position = judgmentsOffset + middle * JudgmentFileWriter.JUDGMENT_BYTES;
+            final long middleKey = getLong(position);
+
+            if (middleKey < key) {
+                low = middle + 1;
+            } else if (middleKey > key) {
+                high = middle - 1;
+            } else {
+                return getDouble(position + Long.BYTES);
+            }
+
+        }
+
+        return Double.NaN;
+
+    }
+
+    private int findId(final long dictionaryOffset, final int count, final String value) {
+
+        int low = 0;
+        int high = count - 1;
+
+        while (low <= high) {
+
+            final int middle = (low + high) >>> 1;
+            final int comparison = compare(dictionaryOffset, middle, value);
+
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+
+        }
+
+        return -1;
+
+    }
+
+    // Compares the string at an index in a dictionary to the UTF-8 bytes of the given value the same way as
+    // Arrays.compareUnsigned. The value is encoded as it is compared so a lookup does not allocate.
+    private int compare(final long dictionaryOffset, final int index, final String value) {
+
+        long position = getLong(dictionaryOffset + (long) index * Long.BYTES);
+        final long end = getLong(dictionaryOffset + (long) (index + 1) * Long.BYTES);
+
+        int i = 0;
+
+        while (i < value.length()) {
+
+            int codePoint = value.codePointAt(i);
+            i += Character.charCount(codePoint);
+
+            // String.getBytes replaces an unpaired surrogate with '?', so the dictionary holds it that way.
+            if (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE) {
+                codePoint = '?';
+            }
+
+            final int length = codePoint < 0x80 ? 1 : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+
+            for (int b = 0; b < length; b++) {
+
+                if (position == end) {
+                    // The string in the dictionary is a prefix of the value.
+                    return -1;
+                }
+
+                final int shift = 6 * (length - 1 - b);
+                final int encoded;
+
+                if (length == 1) {
+                    encoded = codePoint;
+                } else if (b == 0) {
+                    encoded = ((0xF00 >> length) & 0xFF) | (codePoint >> shift);
+                } else {
+                    encoded = 0x80 | ((codePoint >> shift) & 0x3F);
+                }
+
+                final int comparison = Byte.compareUnsigned(getByte(position), (byte) encoded);
+
+                if (comparison != 0) {
+                    return comparison;
+                }
+
+                position++;
+
+            }
+
+        }
+
+        return position == end ? 0 : 1;
+
+    }
+
+    private byte getByte(final long position) {
+        return chunks[(int) (position / CHUNK_BYTES)].get((int) (position % CHUNK_BYTES));
+    }
+
+    private int getInt(final long position) {
+        return chunks[(int) (position / CHUNK_BYTES)].getInt((int) (position % CHUNK_BYTES));
+    }
+
+    private long getLong(final long position) {
+        return chunks[(int) (position / CHUNK_BYTES)].getLong((int) (position % CHUNK_BYTES));
+    }
+
+    private double getDouble(final long position) {
+        return chunks[(int) (position / CHUNK_BYTES)].getDouble((int) (position % CHUNK_BYTES));
+    }
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.judgments.lookup;
+
+import org.opensearch.eval.engine.SearchEngine;
+
+import java.util.List;
+
+/**
+ * A {@link JudgmentLookup} that queries the search engine for each judgment.
+ */
+public class SearchEngineJudgmentLookup implements JudgmentLookup {
+
+    private final SearchEngine searchEngine;
+    private final String judgmentSetId;
+
+    /**
+     * Creates a new lookup.
+     * @param searchEngine The {@link SearchEngine}.
+     * @param judgmentSetId The judgment set ID.
+     */
+    public SearchEngineJudgmentLookup(final SearchEngine searchEngine, final String judgmentSetId) {
+        this.searchEngine = searchEngine;
+        this.judgmentSetId = judgmentSetId;
+    }
+
+    @Override
+    public double getJudgment(final String userQuery, final String documentId) throws Exception {
+        return searchEngine.getJudgmentValue(judgmentSetId, userQuery, documentId);
+    }
+
+    @Override
+    public double[] getJudgments(final String userQuery, final List<String> documentIds) throws Exception {
+        return searchEngine.getJudgmentValues(judgmentSetId, userQuery, documentIds);
+    }
+
+}
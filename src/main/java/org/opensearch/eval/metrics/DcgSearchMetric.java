@@ -15,7 +15,7 @@ import java.util.List;
  */
 public class DcgSearchMetric extends SearchMetric {
 
-    protected final List<Double> relevanceScores;
+    protected final double[] relevanceScores;
 
     /**
      * Creates new DCG metrics.
@@ -24,6 +24,20 @@ public class DcgSearchMetric extends SearchMetric {
      */
     public DcgSearchMetric(final int k, final List<Double> relevanceScores) {
         super(k);
+        this.relevanceScores = MetricKernel.toArray(relevanceScores);
+    }
+
+    /**
+     * Creates new DCG metrics from a {@link MetricKernel} that evaluated the relevance scores.
+     * @param metricKernel The {@link MetricKernel}.
+     * @param relevanceScores The relevance scores the kernel evaluated.
+     */
+    public DcgSearchMetric(final MetricKernel metricKernel, final double[] relevanceScores) {
+        this(metricKernel.getK(), relevanceScores, metricKernel.getDcg());
+    }
+
+    protected DcgSearchMetric(final int k, final double[] relevanceScores, final double value) {
+        super(k, value);
         this.relevanceScores = relevanceScores;
     }
 
@@ -34,31 +48,7 @@ public class DcgSearchMetric extends SearchMetric {
 
     @Override
     public double calculate() {
-        return calculateDcg(relevanceScores);
-    }
-
-    protected double calculateDcg(final List<Double> relevanceScores) {
-
-        // k should equal the size of relevanceScores.
-
-        double dcg = 0.0;
-
-        for (int i = 0; i < relevanceScores.size(); i++) {
-
-            double d = log2(i + 2);
-            double n = Math.pow(2, relevanceScores.get(i)) - 1;
-
-            if(d != 0) {
-                dcg += (n / d);
-            }
-
-        }
-        return dcg;
-
-    }
-
-    private double log2(int N) {
-        return Math.log(N) / Math.log(2);
+        return MetricKernel.dcg(relevanceScores, relevanceScores.length);
     }
 
 }
@@ -0,0 +1,206 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.metrics;
+
+import org.apache.commons.math3.stat.descriptive.rank.PSquarePercentile;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Summarizes the values of one search metric across the queries of a query set run as the values arrive.
+ * The count, mean, variance, minimum and maximum are exact and the percentiles are estimated with the
+ * P-square algorithm, so the memory used does not grow with the number of queries.
+ */
+public class MetricAccumulator implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The percentiles estimated when none are given.
+     */
+    public static final double[] DEFAULT_PERCENTILES = {10, 50, 90};
+
+    private final String name;
+    private final double[] percentiles;
+    private final PSquarePercentile[] percentileEstimators;
+
+    private long count = 0;
+    private double sum = 0;
+    private double mean = 0;
+    private double sumOfSquaredDifferences = 0;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    /**
+     * Creates a new accumulator that estimates the {@link #DEFAULT_PERCENTILES default percentiles}.
+     * @param name The name of the metric, i.e. ndcg.
+     */
+    public MetricAccumulator(final String name) {
+        this(name, DEFAULT_PERCENTILES);
+    }
+
+    /**
+     * Creates a new accumulator.
+     * @param name The name of the metric, i.e. ndcg.
+     * @param percentiles The percentiles to estimate, each greater than 0 and at most 100.
+     */
+    public MetricAccumulator(final String name, final double... percentiles) {
+
+        this.name = name;
+        this.percentiles = percentiles.clone();
+        this.percentileEstimators = new PSquarePercentile[percentiles.length];
+
+        for (int i = 0; i < percentiles.length; i++) {
+            percentileEstimators[i] = new PSquarePercentile(percentiles[i]);
+        }
+
+    }
+
+    /**
+     * Adds the value of the metric for one query.
+     * @param value The value of the metric.
+     */
+    public void add(final double value) {
+
+        count++;
+
+        // The mean is reported as the sum divided by the count so it is the same as summing the values
+        // and dividing. The running mean is only used for the variance (Welford's algorithm).
+        sum += value;
+
+        final double delta = value - mean;
+        mean += delta / count;
+        sumOfSquaredDifferences += delta * (value - mean);
+
+        if (count == 1) {
+            min = value;
+            max = value;
+        } else {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        for (final PSquarePercentile percentileEstimator : percentileEstimators) {
+            percentileEstimator.increment(value);
+        }
+
+    }
+
+    /**
+     * Gets the name of the metric.
+     * @return The name of the metric.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the number of values added.
+     * @return The number of values added.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the mean of the values.
+     * @return The mean, or <code>NaN</code> if no values were added.
+     */
+    public double getMean() {
+        return count == 0 ? Double.NaN : sum / count;
+    }
+
+    /**
+     * Gets the sample variance of the values.
+     * @return The sample variance, <code>0</code> if one value was added, or <code>NaN</code> if no values were added.
+     */
+    public double getVariance() {
+
+        if (count == 0) {
+            return Double.NaN;
+        } else if (count == 1) {
+            return 0;
+        }
+
+        return sumOfSquaredDifferences / (count - 1);
+
+    }
+
+    /**
+     * Gets the sample standard deviation of the values.
+     * @return The sample standard deviation.
+     */
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     * Gets the smallest value.
+     * @return The smallest value, or <code>NaN</code> if no values were added.
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * Gets the largest value.
+     * @return The largest value, or <code>NaN</code> if no values were added.
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Gets the percentiles that are estimated.
+     * @return The percentiles that are estimated.
+     */
+    public double[] getPercentiles() {
+        return percentiles.clone();
+    }
+
+    /**
+     * Gets the estimate of a percentile.
+     * @param percentile One of the percentiles given when the accumulator was created.
+     * @return The estimate of the percentile, or <code>NaN</code> if no values were added.
+     */
+    public double getPercentile(final double percentile) {
+
+        for (int i = 0; i < percentiles.length; i++) {
+            if (percentiles[i] == percentile) {
+                return count == 0 ? Double.NaN : percentileEstimators[i].getResult();
+            }
+        }
+
+        throw new IllegalArgumentException("The percentile " + percentile + " is not estimated. Estimated percentiles: " + Arrays.toString(percentiles));
+
+    }
+
+    @Override
+    public String toString() {
+
+        final StringBuilder sb = new StringBuilder();
+        sb.append(name).append(": count=").append(count)
+                .append(", mean=").append(getMean())
+                .append(", stddev=").append(getStandardDeviation())
+                .append(", min=").append(min)
+                .append(", max=").append(max);
+
+        for (final double percentile : percentiles) {
+            sb.append(", p").append(percentile % 1 == 0 ? String.valueOf((long) percentile) : String.valueOf(percentile))
+                    .append('=').append(getPercentile(percentile));
+        }
+
+        return sb.toString();
+
+    }
+
+}
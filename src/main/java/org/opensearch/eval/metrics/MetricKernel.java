@@ -0,0 +1,258 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.metrics;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Calculates DCG, NDCG and precision @ k for the relevance scores of a query in one pass.
+ * The log2 discount of each position and the gain of integer relevance scores are looked up
+ * in tables that are computed once, and the ideal ordering for NDCG is sorted in a buffer that
+ * is reused, so evaluating a query does not allocate. The values are calculated with the same
+ * operations in the same order as the {@link SearchMetric} classes always have, so they are identical.
+ * A kernel is not thread-safe. Use one kernel per thread.
+ */
+public class MetricKernel {
+
+    // The discount of each position, log2(position + 2).
+    private static final double[] DISCOUNTS = new double[1024];
+
+    // The gain of each integer relevance score, 2^relevance - 1.
+    private static final double[] GAINS = new double[32];
+
+    static {
+
+        for (int i = 0; i < DISCOUNTS.length; i++) {
+            DISCOUNTS[i] = log2(i + 2);
+        }
+
+        for (int i = 0; i < GAINS.length; i++) {
+            GAINS[i] = Math.pow(2, i) - 1;
+        }
+
+    }
+
+    private final int k;
+    private final double threshold;
+
+    private double[] idealRelevanceScores;
+
+    private double dcg;
+    private double ndcg;
+    private double precision;
+
+    /**
+     * Creates a new kernel.
+     * @param k The <code>k</code> value.
+     * @param threshold The threshold for precision. Scores greater than or equal to this value are relevant.
+     */
+    public MetricKernel(final int k, final double threshold) {
+        this.k = k;
+        this.threshold = threshold;
+        this.idealRelevanceScores = new double[Math.max(1, k)];
+    }
+
+    /**
+     * Calculates the metrics for the relevance scores of a query. The metrics are available from the getters until
+     * the next call.
+     * @param relevanceScores The relevance scores of the documents in ranked order.
+     * @param length The number of relevance scores in the array to use.
+     */
+    public void evaluate(final double[] relevanceScores, final int length) {
+
+        if (idealRelevanceScores.length < length) {
+            idealRelevanceScores = new double[length];
+        }
+
+        double dcg = 0.0;
+        double numberOfRelevantItems = 0;
+
+        for (int i = 0; i < length; i++) {
+
+            final double relevanceScore = relevanceScores[i];
+
+            dcg += gain(relevanceScore) / discount(i);
+
+            if (relevanceScore >= threshold) {
+                numberOfRelevantItems++;
+            }
+
+            idealRelevanceScores[i] = relevanceScore;
+
+        }
+
+        this.dcg = dcg;
+        this.precision = numberOfRelevantItems / (double) k;
+
+        if (dcg == 0) {
+
+            // The ndcg is 0. No need to sort.
+            this.ndcg = 0;
+
+        } else {
+
+            final double idcg = idealDcg(idealRelevanceScores, length);
+            this.ndcg = idcg == 0 ? 0 : dcg / idcg;
+
+        }
+
+    }
+
+    /**
+     * Gets the DCG of the last evaluated query.
+     * @return The DCG.
+     */
+    public double getDcg() {
+        return dcg;
+    }
+
+    /**
+     * Gets the NDCG of the last evaluated query.
+     * @return The NDCG.
+     */
+    public double getNdcg() {
+        return ndcg;
+    }
+
+    /**
+     * Gets the precision of the last evaluated query.
+     * @return The precision.
+     */
+    public double getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Gets the <code>k</code> value.
+     * @return The <code>k</code> value.
+     */
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * Gets the threshold for precision.
+     * @return The threshold for precision.
+     */
+    public double getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Calculates DCG.
+     * @param relevanceScores The relevance scores of the documents in ranked order.
+     * @param length The number of relevance scores in the array to use.
+     * @return The DCG.
+     */
+    public static double dcg(final double[] relevanceScores, final int length) {
+
+        double dcg = 0.0;
+
+        for (int i = 0; i < length; i++) {
+            dcg += gain(relevanceScores[i]) / discount(i);
+        }
+
+        return dcg;
+
+    }
+
+    /**
+     * Calculates NDCG.
+     * @param relevanceScores The relevance scores of the documents in ranked order.
+     * @param length The number of relevance scores in the array to use.
+     * @return The NDCG.
+     */
+    public static double ndcg(final double[] relevanceScores, final int length) {
+
+        final double dcg = dcg(relevanceScores, length);
+
+        if (dcg == 0) {
+            return 0;
+        }
+
+        final double idcg = idealDcg(Arrays.copyOf(relevanceScores, length), length);
+
+        return idcg == 0 ? 0 : dcg / idcg;
+
+    }
+
+    /**
+     * Calculates precision.
+     * @param relevanceScores The relevance scores of the documents in ranked order.
+     * @param length The number of relevance scores in the array to use.
+     * @param k The <code>k</code> value.
+     * @param threshold Scores greater than or equal to this value are relevant.
+     * @return The precision.
+     */
+    public static double precision(final double[] relevanceScores, final int length, final int k, final double threshold) {
+
+        double numberOfRelevantItems = 0;
+
+        for (int i = 0; i < length; i++) {
+            if (relevanceScores[i] >= threshold) {
+                numberOfRelevantItems++;
+            }
+        }
+
+        return numberOfRelevantItems / (double) k;
+
+    }
+
+    /**
+     * Copies a list of relevance scores to an array.
+     * @param relevanceScores A list of relevance scores.
+     * @return An array of the relevance scores.
+     */
+    public static double[] toArray(final List<Double> relevanceScores) {
+
+        final double[] array = new double[relevanceScores.size()];
+
+        for (int i = 0; i < array.length; i++) {
+            array[i] = relevanceScores.get(i);
+        }
+
+        return array;
+
+    }
+
+    // Sorts the relevance scores in place and calculates the DCG of the scores in descending order.
+    private static double idealDcg(final double[] relevanceScores, final int length) {
+
+        Arrays.sort(relevanceScores, 0, length);
+
+        double idcg = 0.0;
+
+        for (int i = 0; i < length; i++) {
+            idcg += gain(relevanceScores[length - 1 - i]) / discount(i);
+        }
+
+        return idcg;
+
+    }
+
+    private static double gain(final double relevanceScore) {
+
+        if (relevanceScore >= 0 && relevanceScore < GAINS.length && relevanceScore == (int) relevanceScore) {
+            return GAINS[(int) relevanceScore];
+        }
+
+        return Math.pow(2, relevanceScore) - 1;
+
+    }
+
+    private static double discount(final int position) {
+        return position < DISCOUNTS.length ? DISCOUNTS[position] : log2(position + 2);
+    }
+
+    private static double log2(final int n) {
+        return Math.log(n) / Math.log(2);
+    }
+
+}
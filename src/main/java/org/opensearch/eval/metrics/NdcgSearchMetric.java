@@ -8,9 +8,6 @@
  */
 package org.opensearch.eval.metrics;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -27,6 +24,15 @@ public class NdcgSearchMetric extends DcgSearchMetric {
         super(k, relevanceScores);
     }
 
+    /**
+     * Creates new NDCG metrics from a {@link MetricKernel} that evaluated the relevance scores.
+     * @param metricKernel The {@link MetricKernel}.
+     * @param relevanceScores The relevance scores the kernel evaluated.
+     */
+    public NdcgSearchMetric(final MetricKernel metricKernel, final double[] relevanceScores) {
+        super(metricKernel.getK(), relevanceScores, metricKernel.getNdcg());
+    }
+
     @Override
     public String getName() {
         return "ndcg_at_" + k;
@@ -34,29 +40,7 @@ public class NdcgSearchMetric extends DcgSearchMetric {
 
     @Override
     public double calculate() {
-
-        double dcg = super.calculate();
-
-        if(dcg == 0) {
-
-            // The ndcg is 0. No need to continue.
-            return 0;
-
-        } else {
-
-            final List<Double> idealRelevanceScores = new ArrayList<>(relevanceScores);
-            idealRelevanceScores.sort(Collections.reverseOrder());
-
-            double idcg = super.calculateDcg(idealRelevanceScores);
-
-            if(idcg == 0) {
-                return 0;
-            } else {
-                return dcg / idcg;
-            }
-
-        }
-
+        return MetricKernel.ndcg(relevanceScores, relevanceScores.length);
     }
 
 }
@@ -16,7 +16,7 @@ import java.util.List;
 public class PrecisionSearchMetric extends SearchMetric {
 
     private final double threshold;
-    private final List<Double> relevanceScores;
+    private final double[] relevanceScores;
 
     /**
      * Creates new precision metrics.
@@ -29,6 +29,17 @@ public class PrecisionSearchMetric extends SearchMetric {
     public PrecisionSearchMetric(final int k, final double threshold, final List<Double> relevanceScores) {
         super(k);
         this.threshold = threshold;
+        this.relevanceScores = MetricKernel.toArray(relevanceScores);
+    }
+
+    /**
+     * Creates new precision metrics from a {@link MetricKernel} that evaluated the relevance scores.
+     * @param metricKernel The {@link MetricKernel}.
+     * @param relevanceScores The relevance scores the kernel evaluated.
+     */
+    public PrecisionSearchMetric(final MetricKernel metricKernel, final double[] relevanceScores) {
+        super(metricKernel.getK(), metricKernel.getPrecision());
+        this.threshold = metricKernel.getThreshold();
         this.relevanceScores = relevanceScores;
     }
 
@@ -39,17 +50,7 @@ public class PrecisionSearchMetric extends SearchMetric {
 
     @Override
     public double calculate() {
-
-        double numberOfRelevantItems = 0;
-
-        for(final double relevanceScore : relevanceScores) {
-            if(relevanceScore >= threshold) {
-                numberOfRelevantItems++;
-            }
-        }
-
-        return numberOfRelevantItems / (double) k;
-
+        return MetricKernel.precision(relevanceScores, relevanceScores.length, k, threshold);
     }
 
     /**
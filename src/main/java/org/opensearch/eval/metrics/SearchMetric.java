@@ -42,6 +42,16 @@ public abstract class SearchMetric {
         this.k = k;
     }
 
+    /**
+     * Creates the metric with a value that was already calculated, i.e. by a {@link MetricKernel}.
+     * @param k The <code>k</code> value.
+     * @param value The value of the metric.
+     */
+    protected SearchMetric(final int k, final double value) {
+        this.k = k;
+        this.value = value;
+    }
+
     /**
      * Gets the <code>k</code> value.
      * @return The <code>k</code> value.
@@ -0,0 +1,496 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.model;
+
+import org.opensearch.eval.utils.StringDictionary;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.opensearch.eval.judgments.clickmodel.coec.CoecClickModel.EVENT_CLICK;
+import static org.opensearch.eval.judgments.clickmodel.coec.CoecClickModel.EVENT_IMPRESSION;
+
+/**
+ * The click statistics needed to calculate COEC judgments, accumulated in memory
+ * from a single pass over the UBI events.
+ * User queries and object IDs are interned to dense integer IDs once. Each user query and object pair
+ * gets a dense pair index, found through an open-addressing table keyed by the two IDs packed into a
+ * <code>long</code>, and the counts of each pair are held in primitive arrays indexed by the pair.
+ * The statistics are serializable so they can be kept in a {@link ClickStatisticsSnapshot} and added to later.
+ */
+public class ClickStatistics implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final double MAX_LOAD_FACTOR = 0.6;
+
+    // An empty slot in the pair table. The table holds the pair index + 1.
+    private static final int EMPTY = 0;
+
+    private final int maxRank;
+
+    private final StringDictionary userQueries = new StringDictionary();
+    private final StringDictionary objectIds = new StringDictionary();
+
+    // The open-addressing table from a packed user query and object ID to the pair index + 1.
+    private long[] pairKeys = new long[INITIAL_CAPACITY];
+    private int[] pairSlots = new int[INITIAL_CAPACITY];
+
+    // The user query, object, and counts of each pair, indexed by the pair index.
+    private int[] pairUserQueryIds = new int[INITIAL_CAPACITY];
+    private int[] pairObjectIds = new int[INITIAL_CAPACITY];
+    private long[] clicks = new long[INITIAL_CAPACITY];
+    private long[] impressions = new long[INITIAL_CAPACITY];
+    private long[] safeguardImpressions = new long[INITIAL_CAPACITY];
+    private long[] pairImpressionsAtRank;
+    private int pairCount = 0;
+
+    // The counts of clicks and impressions for all queries and results at each rank.
+    private final long[] clicksAtRank;
+    private final long[] impressionsAtRank;
+
+    /**
+     * Creates new click statistics.
+     * @param maxRank The max rank to track clicks and impressions for.
+     */
+    public ClickStatistics(final int maxRank) {
+        this.maxRank = maxRank;
+        this.clicksAtRank = new long[maxRank];
+        this.impressionsAtRank = new long[maxRank];
+        this.pairImpressionsAtRank = new long[INITIAL_CAPACITY * maxRank];
+    }
+
+    /**
+     * Log an event toward the rank-aggregated clickthrough.
+     * @param actionName The event's action name.
+     * @param rank The rank of the object the event was for.
+     */
+    public void logRankEvent(final String actionName, final int rank) {
+        logRankEvents(actionName, rank, 1);
+    }
+
+    /**
+     * Log a count of events toward the rank-aggregated clickthrough.
+     * @param actionName The events' action name.
+     * @param rank The rank of the object the events were for.
+     * @param count The count of events.
+     */
+    public void logRankEvents(final String actionName, final int rank, final long count) {
+
+        if(rank >= 0 && rank < maxRank) {
+
+            if (EVENT_CLICK.equalsIgnoreCase(actionName)) {
+                clicksAtRank[rank] += count;
+            } else if (EVENT_IMPRESSION.equalsIgnoreCase(actionName)) {
+                impressionsAtRank[rank] += count;
+            }
+
+        }
+
+    }
+
+    /**
+     * Log an event toward the clickthrough rate of a user query and object pair.
+     * @param userQuery The user query.
+     * @param objectId The ID of the object the event was for.
+     * @param actionName The event's action name.
+     * @param rank The rank of the object the event was for.
+     * @return <code>true</code> if the event was logged, <code>false</code> if the action name is not a click or an impression.
+     */
+    public boolean logEvent(final String userQuery, final String objectId, final String actionName, final int rank) {
+
+        final int pair = addEvents(userQuery, objectId, actionName, rank, 1);
+
+        if(pair == -1) {
+            return false;
+        }
+
+        // Safeguard to avoid having clicks without events.
+        // When the clicks is > 0 and impressions == 0, set the impressions to the number of clicks.
+        if (clicks[pair] > 0 && impressions[pair] == 0) {
+            impressions[pair] = clicks[pair];
+            safeguardImpressions[pair] = clicks[pair];
+        }
+
+        return true;
+
+    }
+
+    /**
+     * Log a count of events toward the clickthrough rate of a user query and object pair. The counts of an
+     * aggregation arrive in bucket order rather than event order, so the safeguard for clicks without impressions
+     * is not applied here. Call {@link #applyClickSafeguard()} once all the counts are logged.
+     * @param userQuery The user query.
+     * @param objectId The ID of the object the events were for.
+     * @param actionName The events' action name.
+     * @param rank The rank of the object the events were for.
+     * @param count The count of events.
+     * @return <code>true</code> if the events were logged, <code>false</code> if the action name is not a click or an impression.
+     */
+    public boolean logEvents(final String userQuery, final String objectId, final String actionName, final int rank, final long count) {
+        return addEvents(userQuery, objectId, actionName, rank, count) != -1;
+    }
+
+    /**
+     * Sets the impressions of each pair that has clicks but no impressions to its number of clicks.
+     * Used after logging counts with {@link #logEvents(String, String, String, int, long)}.
+     */
+    public void applyClickSafeguard() {
+
+        for (int pair = 0; pair < pairCount; pair++) {
+            if (clicks[pair] > 0 && impressions[pair] == 0) {
+                impressions[pair] = clicks[pair];
+                safeguardImpressions[pair] = clicks[pair];
+            }
+        }
+
+    }
+
+    // Adds a count of events to a pair, returning the pair index, or -1 if the action name is not a click or an impression.
+    private int addEvents(final String userQuery, final String objectId, final String actionName, final int rank, final long count) {
+
+        final boolean isClick = EVENT_CLICK.equalsIgnoreCase(actionName);
+        final boolean isImpression = EVENT_IMPRESSION.equalsIgnoreCase(actionName);
+
+        if(!isClick && !isImpression) {
+            return -1;
+        }
+
+        final int pair = getOrAddPair(userQueries.add(userQuery), objectIds.add(objectId));
+
+        if(isClick) {
+            clicks[pair] += count;
+        } else {
+            impressions[pair] += count;
+            if(rank >= 0 && rank < maxRank) {
+                pairImpressionsAtRank[pair * maxRank + rank] += count;
+            }
+        }
+
+        return pair;
+
+    }
+
+    /**
+     * Adds the counts of a user query and object pair from a later set of events, so the counts are the same as
+     * if the events had been logged here. The safeguard impressions of the later events are only kept if the pair
+     * had no events here, since the safeguard only applies before a pair's first impression.
+     * @param userQuery The user query.
+     * @param objectId The object ID.
+     * @param clicks The count of clicks.
+     * @param impressions The count of impressions, including the safeguard impressions.
+     * @param safeguardImpressions The impressions set by the safeguard when there were clicks before any impressions.
+     * @param impressionsAtRank The count of impressions at each rank up to the max rank.
+     */
+    void mergePair(final String userQuery, final String objectId, final long clicks, final long impressions,
+                   final long safeguardImpressions, final long[] impressionsAtRank) {
+
+        final int pair = getOrAddPair(userQueries.add(userQuery), objectIds.add(objectId));
+
+        if (this.impressions[pair] == 0) {
+            this.impressions[pair] = impressions;
+            this.safeguardImpressions[pair] = safeguardImpressions;
+        } else {
+            this.impressions[pair] += impressions - safeguardImpressions;
+        }
+
+        this.clicks[pair] += clicks;
+
+        for (int rank = 0; rank < maxRank; rank++) {
+            pairImpressionsAtRank[pair * maxRank + rank] += impressionsAtRank[rank];
+        }
+
+    }
+
+    /**
+     * Gets the clickthrough rates for each user query and its results. This creates a {@link ClickthroughRate}
+     * for every user query and object pair, so prefer the methods that read the counts of each pair directly.
+     * @return A map of user_query to the clickthrough rate for each query result.
+     */
+    public Map<String, Set<ClickthroughRate>> getClickthroughRates() {
+
+        final Map<String, Set<ClickthroughRate>> queriesToClickthroughRates = new HashMap<>();
+
+        for (int pair = 0; pair < pairCount; pair++) {
+            queriesToClickthroughRates.computeIfAbsent(userQueries.get(pairUserQueryIds[pair]), k -> new LinkedHashSet<>())
+                    .add(getClickthroughRate(pair));
+        }
+
+        return queriesToClickthroughRates;
+
+    }
+
+    /**
+     * Gets the clickthrough rate of a user query and object pair.
+     * @param pair The pair index.
+     * @return The {@link ClickthroughRate} of the pair.
+     */
+    public ClickthroughRate getClickthroughRate(final int pair) {
+
+        final ClickthroughRate clickthroughRate = new ClickthroughRate(getObjectId(pair), maxRank);
+        clickthroughRate.logClicks(clicks[pair]);
+
+        for (int rank = 0; rank < maxRank; rank++) {
+            clickthroughRate.logImpressions(rank, pairImpressionsAtRank[pair * maxRank + rank]);
+        }
+
+        // The impressions at untracked ranks, and the impressions set by the safeguard, only count toward the total.
+        clickthroughRate.setImpressions(impressions[pair]);
+
+        return clickthroughRate;
+
+    }
+
+    /**
+     * Gets the pair indexes of each user query, in the order the pairs were first seen.
+     * @return An array indexed by user query ID of the pair indexes of the user query.
+     */
+    public int[][] getPairsByUserQuery() {
+
+        final int[] counts = new int[userQueries.size()];
+
+        for (int pair = 0; pair < pairCount; pair++) {
+            counts[pairUserQueryIds[pair]]++;
+        }
+
+        final int[][] pairsByUserQuery = new int[userQueries.size()][];
+
+        for (int userQueryId = 0; userQueryId < pairsByUserQuery.length; userQueryId++) {
+            pairsByUserQuery[userQueryId] = new int[counts[userQueryId]];
+            counts[userQueryId] = 0;
+        }
+
+        for (int pair = 0; pair < pairCount; pair++) {
+            final int userQueryId = pairUserQueryIds[pair];
+            pairsByUserQuery[userQueryId][counts[userQueryId]++] = pair;
+        }
+
+        return pairsByUserQuery;
+
+    }
+
+    /**
+     * Gets the number of distinct user queries.
+     * @return The number of distinct user queries.
+     */
+    public int getUserQueryCount() {
+        return userQueries.size();
+    }
+
+    /**
+     * Gets a user query by its ID. The IDs are dense and assigned in the order the user queries were first seen.
+     * @param userQueryId The user query ID.
+     * @return The user query.
+     */
+    public String getUserQuery(final int userQueryId) {
+        return userQueries.get(userQueryId);
+    }
+
+    /**
+     * Gets the number of user query and object pairs.
+     * @return The number of pairs.
+     */
+    public int getPairCount() {
+        return pairCount;
+    }
+
+    /**
+     * Gets the user query ID of a pair.
+     * @param pair The pair index.
+     * @return The user query ID.
+     */
+    public int getUserQueryId(final int pair) {
+        return pairUserQueryIds[pair];
+    }
+
+    /**
+     * Gets the object ID of a pair.
+     * @param pair The pair index.
+     * @return The object ID.
+     */
+    public String getObjectId(final int pair) {
+        return objectIds.get(pairObjectIds[pair]);
+    }
+
+    /**
+     * Gets the count of clicks of a pair.
+     * @param pair The pair index.
+     * @return The count of clicks.
+     */
+    public long getClicks(final int pair) {
+        return clicks[pair];
+    }
+
+    /**
+     * Gets the count of impressions of a pair.
+     * @param pair The pair index.
+     * @return The count of impressions.
+     */
+    public long getImpressions(final int pair) {
+        return impressions[pair];
+    }
+
+    /**
+     * Gets the count of impressions of a pair that were set by the safeguard for clicks without impressions.
+     * @param pair The pair index.
+     * @return The count of safeguard impressions.
+     */
+    long getSafeguardImpressions(final int pair) {
+        return safeguardImpressions[pair];
+    }
+
+    /**
+     * Gets the count of impressions of a pair at a rank.
+     * @param pair The pair index.
+     * @param rank The rank.
+     * @return The count of impressions at the rank, or <code>0</code> if the rank is not tracked.
+     */
+    public long getImpressionsAtRank(final int pair, final int rank) {
+        if(rank >= 0 && rank < maxRank) {
+            return pairImpressionsAtRank[pair * maxRank + rank];
+        }
+        return 0;
+    }
+
+    /**
+     * Calculates the rank-aggregated clickthrough.
+     * @return A map of positions to clickthrough rates.
+     */
+    public Map<Integer, Double> getRankAggregatedClickThrough() {
+
+        final Map<Integer, Double> rankAggregatedClickThrough = new HashMap<>();
+
+        for (int rank = 0; rank < maxRank; rank++) {
+
+            if (impressionsAtRank[rank] > 0) {
+                rankAggregatedClickThrough.put(rank, (double) clicksAtRank[rank] / impressionsAtRank[rank]);
+            } else {
+                // No impressions so the clickthrough rate is 0.
+                rankAggregatedClickThrough.put(rank, 0.0);
+            }
+
+        }
+
+        return rankAggregatedClickThrough;
+
+    }
+
+    /**
+     * Gets the max rank.
+     * @return The max rank.
+     */
+    public int getMaxRank() {
+        return maxRank;
+    }
+
+    /**
+     * Estimates the heap used by the click statistics from the capacity of its arrays and the size of its strings.
+     * @return The estimated size of the click statistics in bytes.
+     */
+    public long getSizeInBytes() {
+
+        return userQueries.getSizeInBytes() + objectIds.getSizeInBytes()
+                + 12L * pairKeys.length
+                + 8L * pairUserQueryIds.length
+                + 24L * clicks.length
+                + 8L * pairImpressionsAtRank.length
+                + 16L * maxRank;
+
+    }
+
+    private int getOrAddPair(final int userQueryId, final int objectId) {
+
+        final long key = ((long) userQueryId << 32) | (objectId & 0xFFFFFFFFL);
+        int slot = getSlot(key, pairKeys.length);
+
+        while (pairSlots[slot] != EMPTY) {
+
+            if (pairKeys[slot] == key) {
+                return pairSlots[slot] - 1;
+            }
+
+            slot = (slot + 1) & (pairKeys.length - 1);
+
+        }
+
+        final int pair = pairCount++;
+
+        if (pair == pairUserQueryIds.length) {
+            final int capacity = pairUserQueryIds.length * 2;
+            pairUserQueryIds = Arrays.copyOf(pairUserQueryIds, capacity);
+            pairObjectIds = Arrays.copyOf(pairObjectIds, capacity);
+            clicks = Arrays.copyOf(clicks, capacity);
+            impressions = Arrays.copyOf(impressions, capacity);
+            safeguardImpressions = Arrays.copyOf(safeguardImpressions, capacity);
+            pairImpressionsAtRank = Arrays.copyOf(pairImpressionsAtRank, capacity * maxRank);
+        }
+
+        pairUserQueryIds[pair] = userQueryId;
+        pairObjectIds[pair] = objectId;
+
+        pairKeys[slot] = key;
+        pairSlots[slot] = pair + 1;
+
+        if (pairCount > pairKeys.length * MAX_LOAD_FACTOR) {
+            resize(pairKeys.length * 2);
+        }
+
+        return pair;
+
+    }
+
+    private void resize(final int capacity) {
+
+        final long[] oldKeys = pairKeys;
+        final int[] oldSlots = pairSlots;
+
+        pairKeys = new long[capacity];
+        pairSlots = new int[capacity];
+
+        for (int i = 0; i < oldKeys.length; i++) {
+
+            if (oldSlots[i] != EMPTY) {
+
+                int slot = getSlot(oldKeys[i], capacity);
+
+                while (pairSlots[slot] != EMPTY) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+
+                pairKeys[slot] = oldKeys[i];
+                pairSlots[slot] = oldSlots[i];
+
+            }
+
+        }
+
+    }
+
+    private static int getSlot(final long key, final int capacity) {
+
+        // Mix the bits of the key so consecutive IDs are spread across the table.
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+
+        return (int) h & (capacity - 1);
+
+    }
+
+}
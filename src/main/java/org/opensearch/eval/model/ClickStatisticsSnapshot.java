@@ -0,0 +1,181 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.model;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serial;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+/**
+ * The click statistics accumulated from the UBI events up to a watermark, the timestamp of the latest event read.
+ * A snapshot is kept between runs so the next run only reads the events after the watermark and adds them to the
+ * statistics, instead of reading every event again. Events indexed after a run with a timestamp at or before the
+ * watermark are not read. A snapshot records the application and start timestamp its events were limited to,
+ * since adding events of another application or time period to it would mix the two.
+ * The snapshot is written with Java serialization and is only meant to be read by the same version of the application.
+ */
+public class ClickStatisticsSnapshot implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final ClickStatistics clickStatistics;
+    private final String application;
+    private final String startTimestamp;
+
+    private String watermark;
+    private Instant watermarkInstant;
+    private long eventCount;
+
+    /**
+     * Creates a new snapshot with no events.
+     * @param maxRank The max rank to track clicks and impressions for.
+     */
+    public ClickStatisticsSnapshot(final int maxRank) {
+        this(maxRank, "", "");
+    }
+
+    /**
+     * Creates a new snapshot with no events.
+     * @param maxRank The max rank to track clicks and impressions for.
+     * @param application The application the events are limited to, or <code>""</code> for all applications.
+     * @param startTimestamp The timestamp the events are limited to being at or after, or <code>""</code> for no start.
+     */
+    public ClickStatisticsSnapshot(final int maxRank, final String application, final String startTimestamp) {
+        this.clickStatistics = new ClickStatistics(maxRank);
+        this.application = application;
+        this.startTimestamp = startTimestamp;
+    }
+
+    /**
+     * Reads a snapshot.
+     * @param path The path of the snapshot.
+     * @return The {@link ClickStatisticsSnapshot}.
+     * @throws IOException Thrown if the snapshot cannot be read.
+     */
+    public static ClickStatisticsSnapshot read(final Path path) throws IOException {
+
+        try (final InputStream inputStream = Files.newInputStream(path);
+             final ObjectInputStream objectInputStream = new ObjectInputStream(inputStream)) {
+
+            return (ClickStatisticsSnapshot) objectInputStream.readObject();
+
+        } catch (ClassNotFoundException | ClassCastException ex) {
+            throw new IOException("The file " + path + " is not a click statistics snapshot", ex);
+        }
+
+    }
+
+    /**
+     * Writes the snapshot. The snapshot is written to a temporary file and moved into place so a failure
+     * while writing leaves the previous snapshot.
+     * @param path The path of the snapshot.
+     * @throws IOException Thrown if the snapshot cannot be written.
+     */
+    public void write(final Path path) throws IOException {
+
+        Files.createDirectories(path.toAbsolutePath().getParent());
+
+        final Path temporaryPath = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+
+        try {
+
+            try (final OutputStream outputStream = Files.newOutputStream(temporaryPath);
+                 final ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream)) {
+                objectOutputStream.writeObject(this);
+            }
+
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        } finally {
+            Files.deleteIfExists(temporaryPath);
+        }
+
+    }
+
+    /**
+     * Records that an event was added to the click statistics, advancing the watermark if the event is
+     * later than it. An event without a timestamp that can be parsed is rejected since the next run could
+     * not tell whether it was already read.
+     * @param timestamp The timestamp of the event.
+     * @throws IllegalArgumentException Thrown if the timestamp is <code>null</code> or cannot be parsed.
+     */
+    public void advanceWatermark(final String timestamp) {
+
+        if (timestamp == null) {
+            throw new IllegalArgumentException("An event has no timestamp to advance the watermark");
+        }
+
+        final Instant instant;
+
+        try {
+            instant = Instant.parse(timestamp);
+        } catch (DateTimeParseException ex) {
+            throw new IllegalArgumentException("Unable to parse the event timestamp " + timestamp + " to advance the watermark", ex);
+        }
+
+        eventCount++;
+
+        if (watermarkInstant == null || instant.isAfter(watermarkInstant)) {
+            watermark = timestamp;
+            watermarkInstant = instant;
+        }
+
+    }
+
+    /**
+     * Gets the click statistics.
+     * @return The {@link ClickStatistics}.
+     */
+    public ClickStatistics getClickStatistics() {
+        return clickStatistics;
+    }
+
+    /**
+     * Gets the application the events are limited to.
+     * @return The application, or <code>""</code> for all applications.
+     */
+    public String getApplication() {
+        return application;
+    }
+
+    /**
+     * Gets the timestamp the events are limited to being at or after.
+     * @return The start timestamp, or <code>""</code> for no start.
+     */
+    public String getStartTimestamp() {
+        return startTimestamp;
+    }
+
+    /**
+     * Gets the timestamp of the latest event in the click statistics, as it was in the event.
+     * @return The timestamp of the latest event, or <code>null</code> if no events have been read.
+     */
+    public String getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * Gets the number of events read into the click statistics across all runs.
+     * @return The number of events.
+     */
+    public long getEventCount() {
+        return eventCount;
+    }
+
+}
@@ -19,6 +19,9 @@ public class ClickthroughRate {
     private long clicks;
     private long impressions;
 
+    // The count of impressions at each rank. This is null when impressions are not tracked by rank.
+    private final long[] impressionsAtRank;
+
     /**
      * Creates a new clickthrough rate for an object.
      * @param objectId The ID of the object.
@@ -27,6 +30,19 @@ public class ClickthroughRate {
         this.objectId = objectId;
         this.clicks = 0;
         this.impressions = 0;
+        this.impressionsAtRank = null;
+    }
+
+    /**
+     * Creates a new clickthrough rate for an object that also tracks the count of impressions at each rank.
+     * @param objectId The ID of the object.
+     * @param maxRank The max rank to track impressions for.
+     */
+    public ClickthroughRate(final String objectId, final int maxRank) {
+        this.objectId = objectId;
+        this.clicks = 0;
+        this.impressions = 0;
+        this.impressionsAtRank = new long[maxRank];
     }
 
     /**
@@ -39,6 +55,7 @@ public class ClickthroughRate {
         this.objectId = objectId;
         this.clicks = clicks;
         this.impressions = impressions;
+        this.impressionsAtRank = null;
     }
 
     @Override
@@ -61,6 +78,56 @@ public class ClickthroughRate {
         impressions++;
     }
 
+    /**
+     * Log an impression to this object at a rank.
+     * Impressions at ranks outside of the tracked ranks count toward the total impressions only.
+     * @param rank The rank the object was shown at.
+     */
+    public void logImpression(final int rank) {
+        logImpressions(rank, 1);
+    }
+
+    /**
+     * Log a count of clicks to this object.
+     * @param count The count of clicks.
+     */
+    public void logClicks(final long count) {
+        clicks += count;
+    }
+
+    /**
+     * Log a count of impressions to this object at a rank.
+     * Impressions at ranks outside of the tracked ranks count toward the total impressions only.
+     * @param rank The rank the object was shown at.
+     * @param count The count of impressions.
+     */
+    public void logImpressions(final int rank, final long count) {
+        impressions += count;
+        if(impressionsAtRank != null && rank >= 0 && rank < impressionsAtRank.length) {
+            impressionsAtRank[rank] += count;
+        }
+    }
+
+    /**
+     * Determines if the impressions are tracked by rank.
+     * @return <code>true</code> if the impressions are tracked by rank.
+     */
+    public boolean hasImpressionsAtRank() {
+        return impressionsAtRank != null;
+    }
+
+    /**
+     * Gets the count of impressions of this object at a rank.
+     * @param rank The rank.
+     * @return The count of impressions at the rank, or <code>0</code> if the impressions are not tracked for the rank.
+     */
+    public long getImpressionsAtRank(final int rank) {
+        if(impressionsAtRank != null && rank >= 0 && rank < impressionsAtRank.length) {
+            return impressionsAtRank[rank];
+        }
+        return 0;
+    }
+
     public void setImpressions(long impressions) {
         this.impressions = impressions;
     }
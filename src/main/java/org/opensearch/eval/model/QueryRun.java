@@ -14,10 +14,24 @@ public class QueryRun {
 
     private final List<String> documentIds;
     private final int numberOfResults;
+    private final String error;
 
     public QueryRun(final List<String> documentIds, final int numberOfResults) {
+        this(documentIds, numberOfResults, null);
+    }
+
+    /**
+     * Creates a query run for a query that failed.
+     * @param error The reason the query failed.
+     */
+    public QueryRun(final String error) {
+        this(List.of(), 0, error);
+    }
+
+    private QueryRun(final List<String> documentIds, final int numberOfResults, final String error) {
         this.documentIds = documentIds;
         this.numberOfResults = numberOfResults;
+        this.error = error;
     }
 
     public List<String> getDocumentIds() {
@@ -28,4 +42,20 @@ public class QueryRun {
         return numberOfResults;
     }
 
+    /**
+     * Gets the reason the query failed.
+     * @return The reason the query failed, or <code>null</code> if the query succeeded.
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Gets whether the query failed.
+     * @return <code>true</code> if the query failed.
+     */
+    public boolean hasError() {
+        return error != null;
+    }
+
 }
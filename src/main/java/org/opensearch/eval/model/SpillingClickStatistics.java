@@ -0,0 +1,537 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.model;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Click statistics that are accumulated under a heap budget. The events are logged to in-memory {@link ClickStatistics}
+ * and when their estimated size exceeds the budget, the counts of each user query and object pair are sorted and
+ * spilled to a temporary file and the in-memory statistics are started again. Once all the events are logged, the
+ * spilled files are merged and the statistics are handed out in chunks of whole user queries, each chunk about the
+ * size of the budget. At most {@link #DEFAULT_MAX_MERGE_FAN_IN} files are open at once, so when there are more spills
+ * they are first merged into fewer, larger files. The counts of each pair are the same as if all the events had been
+ * logged to one {@link ClickStatistics}. The rank-aggregated clickthrough is always held in memory since it only
+ * has a count for each rank.
+ * The budget covers the click statistics and any memory reserved with {@link #setReservedBytes(long)}, such as the
+ * table used to join the events to their user queries. It does not cover the array of pairs used to sort a spill,
+ * the buffers of the open spill files, or the rest of the heap.
+ */
+public class SpillingClickStatistics implements AutoCloseable {
+
+    private static final Logger LOGGER = LogManager.getLogger(SpillingClickStatistics.class.getName());
+
+    // Orders the records of the spilled files by pair, and the records of the same pair in the order they were spilled.
+    private static final Comparator<SpillReader> SPILL_ORDER = Comparator
+            .comparing((SpillReader r) -> r.userQuery)
+            .thenComparing(r -> r.objectId)
+            .thenComparingInt(r -> r.spill);
+
+    /**
+     * The default max number of spilled files merged at once.
+     */
+    public static final int DEFAULT_MAX_MERGE_FAN_IN = 64;
+
+    private final int maxRank;
+    private final long maxBytes;
+    private final Path directory;
+    private final int maxMergeFanIn;
+
+    // Memory held outside the click statistics that counts toward the budget.
+    private long reservedBytes = 0;
+
+    // The counts for the rank-aggregated clickthrough.
+    private final ClickStatistics rankClickStatistics;
+
+    private ClickStatistics clickStatistics;
+    private final List<Path> spills = new ArrayList<>();
+
+    /**
+     * Handles a chunk of the merged click statistics.
+     */
+    @FunctionalInterface
+    public interface ChunkConsumer {
+
+        /**
+         * Handles a chunk of the merged click statistics.
+         * @param clickStatistics The {@link ClickStatistics} of the chunk. Every user query in the chunk has all its pairs.
+         * @param userQueryOffset The number of user queries in the chunks before this one.
+         * @throws Exception Thrown if the chunk cannot be handled.
+         */
+        void accept(ClickStatistics clickStatistics, int userQueryOffset) throws Exception;
+
+    }
+
+    /**
+     * Creates new click statistics.
+     * @param maxRank The max rank to track clicks and impressions for.
+     * @param maxBytes The estimated size in bytes the in-memory click statistics can grow to before they are spilled.
+     * @param directory The directory for the spilled files.
+     */
+    public SpillingClickStatistics(final int maxRank, final long maxBytes, final Path directory) {
+        this(maxRank, maxBytes, directory, DEFAULT_MAX_MERGE_FAN_IN);
+    }
+
+    /**
+     * Creates new click statistics.
+     * @param maxRank The max rank to track clicks and impressions for.
+     * @param maxBytes The estimated size in bytes the in-memory click statistics can grow to before they are spilled.
+     * @param directory The directory for the spilled files.
+     * @param maxMergeFanIn The max number of spilled files merged at once.
+     */
+    public SpillingClickStatistics(final int maxRank, final long maxBytes, final Path directory, final int maxMergeFanIn) {
+
+        if (maxMergeFanIn < 2) {
+            throw new IllegalArgumentException("The max merge fan-in must be at least 2.");
+        }
+
+        this.maxRank = maxRank;
+        this.maxBytes = maxBytes;
+        this.directory = directory;
+        this.maxMergeFanIn = maxMergeFanIn;
+        this.rankClickStatistics = new ClickStatistics(maxRank);
+        this.clickStatistics = new ClickStatistics(maxRank);
+
+    }
+
+    /**
+     * Sets the memory held outside the click statistics that counts toward the budget while events are logged,
+     * such as the table used to join the events to their user queries. Set it back to <code>0</code> once that
+     * memory is released.
+     * @param reservedBytes The estimated size in bytes of the reserved memory.
+     * @throws IllegalStateException Thrown if the reserved memory alone leaves no room for the click statistics.
+     */
+    public void setReservedBytes(final long reservedBytes) {
+
+        if (reservedBytes >= maxBytes) {
+            throw new IllegalStateException("An estimated " + reservedBytes + " bytes are needed outside the click statistics, "
+                    + "which is more than the memory budget of " + maxBytes + " bytes. Increase the memory budget.");
+        }
+
+        this.reservedBytes = reservedBytes;
+
+    }
+
+    /**
+     * Log an event toward the rank-aggregated clickthrough.
+     * @param actionName The event's action name.
+     * @param rank The rank of the object the event was for.
+     */
+    public void logRankEvent(final String actionName, final int rank) {
+        rankClickStatistics.logRankEvent(actionName, rank);
+    }
+
+    /**
+     * Log an event toward the clickthrough rate of a user query and object pair, spilling the in-memory
+     * click statistics if they exceed the budget.
+     * @param userQuery The user query.
+     * @param objectId The ID of the object the event was for.
+     * @param actionName The event's action name.
+     * @param rank The rank of the object the event was for.
+     * @return <code>true</code> if the event was logged, <code>false</code> if the action name is not a click or an impression.
+     * @throws UncheckedIOException Thrown if the click statistics cannot be spilled.
+     */
+    public boolean logEvent(final String userQuery, final String objectId, final String actionName, final int rank) {
+
+        final boolean logged = clickStatistics.logEvent(userQuery, objectId, actionName, rank);
+
+        if (logged && clickStatistics.getSizeInBytes() + reservedBytes > maxBytes) {
+
+            try {
+                spill();
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Unable to spill the click statistics", ex);
+            }
+
+        }
+
+        return logged;
+
+    }
+
+    /**
+     * Calculates the rank-aggregated clickthrough.
+     * @return A map of positions to clickthrough rates.
+     */
+    public Map<Integer, Double> getRankAggregatedClickThrough() {
+        return rankClickStatistics.getRankAggregatedClickThrough();
+    }
+
+    /**
+     * Gets the max rank.
+     * @return The max rank.
+     */
+    public int getMaxRank() {
+        return maxRank;
+    }
+
+    /**
+     * Gets the number of times the click statistics were spilled.
+     * @return The number of spilled files.
+     */
+    public int getSpillCount() {
+        return spills.size();
+    }
+
+    /**
+     * Merges the spilled click statistics and hands them to a consumer in chunks of whole user queries.
+     * If the click statistics were never spilled, they are handed to the consumer as one chunk.
+     * @param consumer The {@link ChunkConsumer}.
+     * @throws Exception Thrown if the spilled files cannot be read or the consumer fails.
+     */
+    public void merge(final ChunkConsumer consumer) throws Exception {
+
+        if (spills.isEmpty()) {
+
+            if (clickStatistics.getPairCount() > 0) {
+                consumer.accept(clickStatistics, 0);
+            }
+
+            return;
+
+        }
+
+        // The events logged since the last spill are spilled as well so every pair is merged the same way.
+        if (clickStatistics.getPairCount() > 0) {
+            spill();
+        }
+
+        // Merge the spills in groups until few enough are left to open at once. The groups are of consecutive
+        // spills so the records of each pair stay in the order they were spilled.
+        while (spills.size() > maxMergeFanIn) {
+
+            LOGGER.info("Merging {} spilled click statistics files in groups of {}.", spills.size(), maxMergeFanIn);
+
+            final List<Path> mergedSpills = new ArrayList<>();
+
+            for (int from = 0; from < spills.size(); from += maxMergeFanIn) {
+                mergedSpills.add(mergeSpills(spills.subList(from, Math.min(from + maxMergeFanIn, spills.size()))));
+            }
+
+            for (final Path spill : spills) {
+                Files.deleteIfExists(spill);
+            }
+
+            spills.clear();
+            spills.addAll(mergedSpills);
+
+        }
+
+        LOGGER.info("Merging {} spilled click statistics files.", spills.size());
+
+        final PriorityQueue<SpillReader> queue = new PriorityQueue<>(SPILL_ORDER);
+        final List<SpillReader> readers = new ArrayList<>();
+
+        try {
+
+            openReaders(spills, readers, queue);
+
+            ClickStatistics chunk = new ClickStatistics(maxRank);
+            int userQueryOffset = 0;
+            String userQuery = null;
+
+            while (!queue.isEmpty()) {
+
+                final SpillReader reader = queue.poll();
+
+                // A chunk only ends between user queries.
+                if (!reader.userQuery.equals(userQuery) && chunk.getPairCount() > 0 && chunk.getSizeInBytes() > maxBytes) {
+                    consumer.accept(chunk, userQueryOffset);
+                    userQueryOffset += chunk.getUserQueryCount();
+                    chunk = new ClickStatistics(maxRank);
+                }
+
+                userQuery = reader.userQuery;
+
+                // The records of a pair are polled in the order they were spilled, which is the order of the events.
+                chunk.mergePair(reader.userQuery, reader.objectId, reader.clicks, reader.impressions,
+                        reader.safeguardImpressions, reader.impressionsAtRank);
+
+                if (reader.next()) {
+                    queue.add(reader);
+                }
+
+            }
+
+            if (chunk.getPairCount() > 0) {
+                consumer.accept(chunk, userQueryOffset);
+            }
+
+        } finally {
+
+            for (final SpillReader reader : readers) {
+                reader.close();
+            }
+
+        }
+
+    }
+
+    /**
+     * Deletes the spilled files.
+     * @throws IOException Thrown if a spilled file cannot be deleted.
+     */
+    @Override
+    public void close() throws IOException {
+
+        for (final Path spill : spills) {
+            Files.deleteIfExists(spill);
+        }
+
+        spills.clear();
+
+    }
+
+    // Writes the pairs of the in-memory click statistics sorted by user query and object ID, and starts them again.
+    private void spill() throws IOException {
+
+        final ClickStatistics spilled = clickStatistics;
+        final Integer[] pairs = new Integer[spilled.getPairCount()];
+
+        for (int pair = 0; pair < pairs.length; pair++) {
+            pairs[pair] = pair;
+        }
+
+        Arrays.sort(pairs, Comparator
+                .comparing((Integer pair) -> spilled.getUserQuery(spilled.getUserQueryId(pair)))
+                .thenComparing(spilled::getObjectId));
+
+        final Path path = createSpillFile();
+        spills.add(path);
+
+        final long[] impressionsAtRank = new long[maxRank];
+
+        try (final DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+
+            for (final int pair : pairs) {
+
+                for (int rank = 0; rank < maxRank; rank++) {
+                    impressionsAtRank[rank] = spilled.getImpressionsAtRank(pair, rank);
+                }
+
+                writeRecord(outputStream, spilled.getUserQuery(spilled.getUserQueryId(pair)), spilled.getObjectId(pair),
+                        spilled.getClicks(pair), spilled.getImpressions(pair), spilled.getSafeguardImpressions(pair), impressionsAtRank);
+
+            }
+
+            outputStream.writeBoolean(false);
+
+        }
+
+        LOGGER.info("Spilled {} user query and object pairs of an estimated {} bytes to {}", pairs.length, spilled.getSizeInBytes(), path);
+
+        clickStatistics = new ClickStatistics(maxRank);
+
+    }
+
+    // Merges spilled files into one, combining the records of each pair the same way as ClickStatistics.mergePair.
+    private Path mergeSpills(final List<Path> group) throws IOException {
+
+        final Path path = createSpillFile();
+
+        final PriorityQueue<SpillReader> queue = new PriorityQueue<>(SPILL_ORDER);
+        final List<SpillReader> readers = new ArrayList<>();
+
+        try (final DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+
+            openReaders(group, readers, queue);
+
+            String userQuery = null;
+            String objectId = null;
+            long clicks = 0;
+            long impressions = 0;
+            long safeguardImpressions = 0;
+            final long[] impressionsAtRank = new long[maxRank];
+
+            while (!queue.isEmpty()) {
+
+                final SpillReader reader = queue.poll();
+
+                if (!reader.userQuery.equals(userQuery) || !reader.objectId.equals(objectId)) {
+
+                    if (userQuery != null) {
+                        writeRecord(outputStream, userQuery, objectId, clicks, impressions, safeguardImpressions, impressionsAtRank);
+                    }
+
+                    userQuery = reader.userQuery;
+                    objectId = reader.objectId;
+                    clicks = 0;
+                    impressions = 0;
+                    safeguardImpressions = 0;
+                    Arrays.fill(impressionsAtRank, 0);
+
+                }
+
+                // The safeguard impressions of a later record are only kept if the pair had no events before it.
+                if (impressions == 0) {
+                    impressions = reader.impressions;
+                    safeguardImpressions = reader.safeguardImpressions;
+                } else {
+                    impressions += reader.impressions - reader.safeguardImpressions;
+                }
+
+                clicks += reader.clicks;
+
+                for (int rank = 0; rank < maxRank; rank++) {
+                    impressionsAtRank[rank] += reader.impressionsAtRank[rank];
+                }
+
+                if (reader.next()) {
+                    queue.add(reader);
+                }
+
+            }
+
+            if (userQuery != null) {
+                writeRecord(outputStream, userQuery, objectId, clicks, impressions, safeguardImpressions, impressionsAtRank);
+            }
+
+            outputStream.writeBoolean(false);
+
+        } catch (IOException | RuntimeException ex) {
+
+            Files.deleteIfExists(path);
+            throw ex;
+
+        } finally {
+
+            for (final SpillReader reader : readers) {
+                reader.close();
+            }
+
+        }
+
+        return path;
+
+    }
+
+    // Opens a reader for each spilled file and queues the readers that have a record, numbered in the order of the files.
+    private void openReaders(final List<Path> paths, final List<SpillReader> readers, final PriorityQueue<SpillReader> queue) throws IOException {
+
+        for (int spill = 0; spill < paths.size(); spill++) {
+
+            final SpillReader reader = new SpillReader(paths.get(spill), spill, maxRank);
+            readers.add(reader);
+
+            if (reader.next()) {
+                queue.add(reader);
+            }
+
+        }
+
+    }
+
+    private Path createSpillFile() throws IOException {
+
+        Files.createDirectories(directory);
+
+        return Files.createTempFile(directory, "click-statistics-", ".spill");
+
+    }
+
+    private static void writeRecord(final DataOutputStream outputStream, final String userQuery, final String objectId, final long clicks,
+                                    final long impressions, final long safeguardImpressions, final long[] impressionsAtRank) throws IOException {
+
+        outputStream.writeBoolean(true);
+        writeString(outputStream, userQuery);
+        writeString(outputStream, objectId);
+        outputStream.writeLong(clicks);
+        outputStream.writeLong(impressions);
+        outputStream.writeLong(safeguardImpressions);
+
+        for (final long impressionsAtRankValue : impressionsAtRank) {
+            outputStream.writeLong(impressionsAtRankValue);
+        }
+
+    }
+
+    private static void writeString(final DataOutputStream outputStream, final String value) throws IOException {
+
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        outputStream.writeInt(bytes.length);
+        outputStream.write(bytes);
+
+    }
+
+    /**
+     * Reads the records of a spilled file one at a time.
+     */
+    private static final class SpillReader implements AutoCloseable {
+
+        private final DataInputStream inputStream;
+        private final int spill;
+
+        private String userQuery;
+        private String objectId;
+        private long clicks;
+        private long impressions;
+        private long safeguardImpressions;
+        private final long[] impressionsAtRank;
+
+        private SpillReader(final Path path, final int spill, final int maxRank) throws IOException {
+            this.inputStream = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+            this.spill = spill;
+            this.impressionsAtRank = new long[maxRank];
+        }
+
+        // Reads the next record, returning false at the end of the file.
+        private boolean next() throws IOException {
+
+            if (!inputStream.readBoolean()) {
+                return false;
+            }
+
+            userQuery = readString();
+            objectId = readString();
+            clicks = inputStream.readLong();
+            impressions = inputStream.readLong();
+            safeguardImpressions = inputStream.readLong();
+
+            for (int rank = 0; rank < impressionsAtRank.length; rank++) {
+                impressionsAtRank[rank] = inputStream.readLong();
+            }
+
+            return true;
+
+        }
+
+        private String readString() throws IOException {
+
+            final byte[] bytes = new byte[inputStream.readInt()];
+            inputStream.readFully(bytes);
+
+            return new String(bytes, StandardCharsets.UTF_8);
+
+        }
+
+        @Override
+        public void close() throws IOException {
+            inputStream.close();
+        }
+
+    }
+
+}
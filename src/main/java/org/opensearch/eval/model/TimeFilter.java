@@ -28,33 +28,43 @@ public class TimeFilter {
     public static final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
 
     public static TimeFilter fromQuerySamplerParameters(final AbstractQuerySamplerParameters parameters) {
+        return fromTimestamps(parameters.getStartTimestamp(), parameters.getEndTimestamp());
+    }
+
+    /**
+     * Creates a time filter from a start and end timestamp, either of which may be empty.
+     * @param startTimestamp The start timestamp, or <code>null</code> or <code>""</code> for no start.
+     * @param endTimestamp The end timestamp, or <code>null</code> or <code>""</code> for no end.
+     * @return The {@link TimeFilter}.
+     */
+    public static TimeFilter fromTimestamps(final String startTimestamp, final String endTimestamp) {
 
         // If the start timestamp is not empty, validate it and return a TimeFilter with the start timestamp.
-        if(StringUtils.isNotEmpty(parameters.getStartTimestamp())) {
+        if(StringUtils.isNotEmpty(startTimestamp)) {
 
-            validateTimetampFormat(parameters.getStartTimestamp());
+            validateTimetampFormat(startTimestamp);
 
             // If the end timestamp is not empty, validate it and return a TimeFilter with both start and end timestamps.
-            if(StringUtils.isNotEmpty(parameters.getEndTimestamp())) {
+            if(StringUtils.isNotEmpty(endTimestamp)) {
 
-                validateTimetampFormat(parameters.getEndTimestamp());
-                return new TimeFilter(parameters.getStartTimestamp(), parameters.getEndTimestamp());
+                validateTimetampFormat(endTimestamp);
+                return new TimeFilter(startTimestamp, endTimestamp);
 
             } else {
 
                 // No end timestamp - just start timestamp.
-                return new TimeFilter(parameters.getStartTimestamp(), "");
+                return new TimeFilter(startTimestamp, "");
 
             }
 
         } else {
 
             // If the end timestamp is not empty, validate it and return a TimeFilter with both start and end timestamps.
-            if(StringUtils.isNotEmpty(parameters.getEndTimestamp())) {
+            if(StringUtils.isNotEmpty(endTimestamp)) {
 
                 // No start timestamp - just end timestamp.
-                validateTimetampFormat(parameters.getEndTimestamp());
-                return new TimeFilter("", parameters.getEndTimestamp());
+                validateTimetampFormat(endTimestamp);
+                return new TimeFilter("", endTimestamp);
 
             } else {
 
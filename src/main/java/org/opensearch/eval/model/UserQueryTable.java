@@ -0,0 +1,107 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.model;
+
+import org.apache.commons.lang3.StringUtils;
+import org.opensearch.eval.model.ubi.event.UbiEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A table of query IDs to user queries used to join UBI events to their UBI queries
+ * without a lookup per event. Each distinct user query is stored once no matter how
+ * many query IDs share it.
+ */
+public class UserQueryTable {
+
+    // The estimated heap of a hash map entry and its slot in the table, and of a string without its characters.
+    private static final long ENTRY_BYTES = 48;
+    private static final long STRING_BYTES = 40;
+
+    // Map of query_id to user_query.
+    private final Map<String, String> userQueries = new HashMap<>();
+
+    // The canonical instance of each distinct user query.
+    private final Map<String, String> canonicalUserQueries = new HashMap<>();
+
+    private long sizeInBytes = 0;
+
+    /**
+     * Adds a query to the table. Queries without a query ID or user query are ignored.
+     * @param queryId The query ID.
+     * @param userQuery The user query.
+     */
+    public void put(final String queryId, final String userQuery) {
+
+        if(StringUtils.isNotEmpty(queryId) && StringUtils.isNotEmpty(userQuery)) {
+
+            final String canonicalUserQuery = canonicalUserQueries.computeIfAbsent(userQuery, k -> {
+                sizeInBytes += ENTRY_BYTES + STRING_BYTES + k.length();
+                return k;
+            });
+
+            if(userQueries.put(queryId, canonicalUserQuery) == null) {
+                sizeInBytes += ENTRY_BYTES + STRING_BYTES + queryId.length();
+            }
+
+        }
+
+    }
+
+    /**
+     * Gets the user query for a query ID.
+     * @param queryId The query ID.
+     * @return The user query, or <code>null</code> if there is no query with the query ID.
+     */
+    public String get(final String queryId) {
+        return queryId == null ? null : userQueries.get(queryId);
+    }
+
+    /**
+     * Resolves the user query of a UBI event. The user query on the event is used when present,
+     * otherwise the user query is looked up by the event's query ID.
+     * @param ubiEvent The {@link UbiEvent}.
+     * @return The user query, or <code>null</code> if there is no query for the event.
+     */
+    public String resolve(final UbiEvent ubiEvent) {
+
+        if(StringUtils.isNotEmpty(ubiEvent.getUserQuery())) {
+            return ubiEvent.getUserQuery();
+        }
+
+        return get(ubiEvent.getQueryId());
+
+    }
+
+    /**
+     * Gets the number of query IDs in the table.
+     * @return The number of query IDs in the table.
+     */
+    public int size() {
+        return userQueries.size();
+    }
+
+    /**
+     * Gets the number of distinct user queries in the table.
+     * @return The number of distinct user queries in the table.
+     */
+    public int getUserQueryCount() {
+        return canonicalUserQueries.size();
+    }
+
+    /**
+     * Estimates the heap used by the table from its number of entries and the length of its strings.
+     * @return The estimated size of the table in bytes.
+     */
+    public long getSizeInBytes() {
+        return sizeInBytes;
+    }
+
+}
@@ -11,7 +11,9 @@ package org.opensearch.eval.model.dao.judgments;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import org.opensearch.eval.utils.MathUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.UUID;
 
 /**
  * A judgment of a search result's quality for a given query.
@@ -58,6 +60,19 @@ public class Judgment {
         // Empty constructor used for deserialization.
     }
 
+    /**
+     * Gets the ID of the judgment document for a user query and document in a judgment set. The ID is
+     * the same each time so the judgment can be fetched by its ID and indexing it again replaces it.
+     * @param judgmentSetId The judgment set ID.
+     * @param userQuery The user query.
+     * @param document The document ID.
+     * @return The ID of the judgment.
+     */
+    public static String getJudgmentId(final String judgmentSetId, final String userQuery, final String document) {
+        final String key = judgmentSetId + '\0' + userQuery + '\0' + document;
+        return UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
     public String toJudgmentString() {
         return queryId + ", " + userQuery + ", " + document + ", " + MathUtils.round(judgment);
     }
@@ -3,6 +3,7 @@ package org.opensearch.eval.model.dao.querysets;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import org.opensearch.eval.model.dao.AbstractData;
 
+import java.nio.charset.StandardCharsets;
 import java.util.UUID;
 
 /**
@@ -48,6 +49,19 @@ public class QueryRunMetric extends AbstractData {
         super(UUID.randomUUID().toString());
     }
 
+    /**
+     * Gets the ID of a metric of a query in a query set run. The ID is derived from the run, the user query
+     * and the metric so indexing the metric again replaces it.
+     * @param querySetRunId The query set run ID.
+     * @param userQuery The user query.
+     * @param metric The name of the metric.
+     * @return The ID of the metric.
+     */
+    public static String getQueryRunMetricId(final String querySetRunId, final String userQuery, final String metric) {
+        final String key = querySetRunId + '\0' + userQuery + '\0' + metric;
+        return UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
     public String getTimestamp() {
         return timestamp;
     }
@@ -11,6 +11,7 @@ package org.opensearch.eval.model.dao.querysets;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import org.opensearch.eval.model.dao.AbstractData;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.UUID;
 
@@ -20,6 +21,22 @@ public class QueryRunResults extends AbstractData {
         super(UUID.randomUUID().toString());
     }
 
+    public QueryRunResults(final String id) {
+        super(id);
+    }
+
+    /**
+     * Gets the ID of the results of a query in a query set run. The ID is derived from the run and the user query
+     * so indexing the results again replaces them.
+     * @param querySetRunId The query set run ID.
+     * @param userQuery The user query.
+     * @return The ID of the results.
+     */
+    public static String getQueryRunResultsId(final String querySetRunId, final String userQuery) {
+        final String key = querySetRunId + '\0' + userQuery;
+        return UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
     @JsonProperty("query_set_id")
     private String querySetId;
 
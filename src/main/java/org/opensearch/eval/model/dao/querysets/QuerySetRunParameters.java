@@ -7,6 +7,47 @@ import com.google.gson.annotations.SerializedName;
  */
 public class QuerySetRunParameters {
 
+    /**
+     * Refresh the indexes once when all results have been indexed.
+     */
+    public static final String REFRESH_POLICY_END = "end";
+
+    /**
+     * Wait for each batch of results to be visible before indexing the next.
+     */
+    public static final String REFRESH_POLICY_WAIT_FOR = "wait_for";
+
+    /**
+     * Refresh the indexes after each batch of results.
+     */
+    public static final String REFRESH_POLICY_TRUE = "true";
+
+    /**
+     * Do not refresh the indexes and leave it to the index's refresh interval.
+     */
+    public static final String REFRESH_POLICY_FALSE = "false";
+
+    /**
+     * The default max number of queries run at the same time. Each multi-search request in flight counts as the
+     * number of queries in it, and at least one request is always in flight.
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_SEARCHES = 4;
+
+    /**
+     * The default number of queries sent in each multi-search request.
+     */
+    public static final int DEFAULT_MSEARCH_BATCH_SIZE = 10;
+
+    /**
+     * The default max size in megabytes of the judgments held in memory during a run.
+     */
+    public static final int DEFAULT_JUDGMENTS_MEMORY_BUDGET_MB = 256;
+
+    /**
+     * The default number of queries evaluated between checkpoints.
+     */
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 1000;
+
     @SerializedName("query_set_id")
     private String querySetId;
 
@@ -37,6 +78,36 @@ public class QuerySetRunParameters {
     @SerializedName("search_config")
     private String searchConfig;
 
+    @SerializedName("refresh_policy")
+    private String refreshPolicy = REFRESH_POLICY_END;
+
+    @SerializedName("max_concurrent_searches")
+    private int maxConcurrentSearches = DEFAULT_MAX_CONCURRENT_SEARCHES;
+
+    @SerializedName("msearch_batch_size")
+    private int msearchBatchSize = DEFAULT_MSEARCH_BATCH_SIZE;
+
+    @SerializedName("judgments_memory_budget_mb")
+    private int judgmentsMemoryBudgetMb = DEFAULT_JUDGMENTS_MEMORY_BUDGET_MB;
+
+    @SerializedName("judgments_file")
+    private String judgmentsFile;
+
+    @SerializedName("result_cache_dir")
+    private String resultCacheDir;
+
+    @SerializedName("use_search_template")
+    private boolean useSearchTemplate = false;
+
+    @SerializedName("checkpoint_dir")
+    private String checkpointDir;
+
+    @SerializedName("checkpoint_interval")
+    private int checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+
+    @SerializedName("resume_run_id")
+    private String resumeRunId;
+
     public String getQuerySetId() {
         return querySetId;
     }
@@ -117,4 +188,84 @@ public class QuerySetRunParameters {
         this.searchConfig = searchConfig;
     }
 
+    public String getRefreshPolicy() {
+        return refreshPolicy;
+    }
+
+    public void setRefreshPolicy(String refreshPolicy) {
+        this.refreshPolicy = refreshPolicy;
+    }
+
+    public int getMaxConcurrentSearches() {
+        return maxConcurrentSearches;
+    }
+
+    public void setMaxConcurrentSearches(int maxConcurrentSearches) {
+        this.maxConcurrentSearches = maxConcurrentSearches;
+    }
+
+    public int getMsearchBatchSize() {
+        return msearchBatchSize;
+    }
+
+    public void setMsearchBatchSize(int msearchBatchSize) {
+        this.msearchBatchSize = msearchBatchSize;
+    }
+
+    public int getJudgmentsMemoryBudgetMb() {
+        return judgmentsMemoryBudgetMb;
+    }
+
+    public void setJudgmentsMemoryBudgetMb(int judgmentsMemoryBudgetMb) {
+        this.judgmentsMemoryBudgetMb = judgmentsMemoryBudgetMb;
+    }
+
+    public String getJudgmentsFile() {
+        return judgmentsFile;
+    }
+
+    public void setJudgmentsFile(String judgmentsFile) {
+        this.judgmentsFile = judgmentsFile;
+    }
+
+    public String getResultCacheDir() {
+        return resultCacheDir;
+    }
+
+    public void setResultCacheDir(String resultCacheDir) {
+        this.resultCacheDir = resultCacheDir;
+    }
+
+    public boolean isUseSearchTemplate() {
+        return useSearchTemplate;
+    }
+
+    public void setUseSearchTemplate(boolean useSearchTemplate) {
+        this.useSearchTemplate = useSearchTemplate;
+    }
+
+    public String getCheckpointDir() {
+        return checkpointDir;
+    }
+
+    public void setCheckpointDir(String checkpointDir) {
+        this.checkpointDir = checkpointDir;
+    }
+
+    public int getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    public void setCheckpointInterval(int checkpointInterval) {
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    public String getResumeRunId() {
+        return resumeRunId;
+    }
+
+    public void setResumeRunId(String resumeRunId) {
+        this.resumeRunId = resumeRunId;
+    }
+
 }
@@ -11,10 +11,17 @@ package org.opensearch.eval.runners;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.opensearch.eval.engine.SearchEngine;
+import org.opensearch.eval.judgments.lookup.InMemoryJudgmentLookup;
+import org.opensearch.eval.judgments.lookup.JudgmentFileWriter;
+import org.opensearch.eval.judgments.lookup.JudgmentLookup;
+import org.opensearch.eval.judgments.lookup.MappedJudgmentLookup;
+import org.opensearch.eval.judgments.lookup.SearchEngineJudgmentLookup;
 import org.opensearch.eval.model.dao.querysets.QuerySetRunParameters;
 
-import java.util.ArrayList;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Base class for query set runners. Classes that extend this class
@@ -37,37 +44,123 @@ public abstract class AbstractQuerySetRunner {
      */
     public abstract QuerySetRunResult run(QuerySetRunParameters querySetParameters) throws Exception;
 
+    /**
+     * Runs the query set once for each configuration. The query set and judgments are loaded once and
+     * the searches of all the configurations share the same concurrency limit.
+     * @param querySetRunParametersList The {@link QuerySetRunParameters parameters} of each configuration. They must all
+     *                                  use the same query set and judgments.
+     * @return The query set {@link QuerySetRunResult results} and calculated metrics of each configuration, in the same order.
+     */
+    public abstract List<QuerySetRunResult> run(List<QuerySetRunParameters> querySetRunParametersList) throws Exception;
+
+    /**
+     * Checks that every configuration of a query set run uses the same query set and judgments.
+     * @param querySetRunParametersList The {@link QuerySetRunParameters parameters} of each configuration.
+     * @return The parameters of the first configuration, which hold the shared query set and judgments.
+     * @throws IllegalArgumentException Thrown if there are no configurations or they do not share the query set and judgments.
+     */
+    protected static QuerySetRunParameters getSharedParameters(final List<QuerySetRunParameters> querySetRunParametersList) {
+
+        if (querySetRunParametersList.isEmpty()) {
+            throw new IllegalArgumentException("At least one query set run configuration is required");
+        }
+
+        final QuerySetRunParameters querySetParameters = querySetRunParametersList.get(0);
+
+        for (final QuerySetRunParameters parameters : querySetRunParametersList) {
+            if (!Objects.equals(parameters.getQuerySetId(), querySetParameters.getQuerySetId())
+                    || !Objects.equals(parameters.getJudgmentsId(), querySetParameters.getJudgmentsId())
+                    || !Objects.equals(parameters.getJudgmentsFile(), querySetParameters.getJudgmentsFile())) {
+                throw new IllegalArgumentException("Every query set run configuration must use the same query set and judgments");
+            }
+        }
+
+        return querySetParameters;
+
+    }
+
+    /**
+     * Gets a {@link JudgmentLookup} for a judgment set. The judgment set is loaded into memory when its
+     * estimated size fits in the memory budget. Otherwise, each judgment is looked up in the search engine.
+     * @param judgmentsId The judgment set ID.
+     * @param judgmentCount The number of judgments in the judgment set.
+     * @param memoryBudgetBytes The max size in bytes of the judgments held in memory.
+     * @return A {@link JudgmentLookup}.
+     * @throws Exception Thrown if the judgments cannot be retrieved.
+     */
+    protected JudgmentLookup getJudgmentLookup(final String judgmentsId, final long judgmentCount, final long memoryBudgetBytes) throws Exception {
+
+        if (judgmentCount * InMemoryJudgmentLookup.ESTIMATED_BYTES_PER_JUDGMENT > memoryBudgetBytes) {
+            LOGGER.info("The {} judgments in judgment set {} do not fit in memory, looking up each judgment instead", judgmentCount, judgmentsId);
+            return new SearchEngineJudgmentLookup(searchEngine, judgmentsId);
+        }
+
+        final InMemoryJudgmentLookup judgmentLookup = new InMemoryJudgmentLookup(memoryBudgetBytes);
+
+        searchEngine.forEachJudgment(judgmentsId, judgment -> judgmentLookup.put(judgment.getUserQuery(), judgment.getDocument(), judgment.getJudgment()));
+
+        if (judgmentLookup.isFull()) {
+            LOGGER.info("The judgments in judgment set {} exceeded the memory budget, looking up each judgment instead", judgmentsId);
+            return new SearchEngineJudgmentLookup(searchEngine, judgmentsId);
+        }
+
+        LOGGER.info("Loaded judgment set {} into memory: {}", judgmentsId, judgmentLookup);
+
+        return judgmentLookup;
+
+    }
+
+    /**
+     * Gets a {@link JudgmentLookup} for a judgment file written by a {@link JudgmentFileWriter}.
+     * @param judgmentsFile The path of the judgment file.
+     * @param judgmentsId The expected judgment set ID, or <code>null</code> to accept the judgment set in the file.
+     * @return A {@link JudgmentLookup}.
+     * @throws Exception Thrown if the judgment file cannot be read.
+     */
+    protected JudgmentLookup getJudgmentLookup(final Path judgmentsFile, final String judgmentsId) throws Exception {
+
+        final MappedJudgmentLookup judgmentLookup = new MappedJudgmentLookup(judgmentsFile);
+
+        if (judgmentsId != null && !judgmentsId.equals(judgmentLookup.getJudgmentSetId())) {
+            judgmentLookup.close();
+            throw new IllegalArgumentException("The judgment file " + judgmentsFile + " contains judgment set " + judgmentLookup.getJudgmentSetId() + ", not " + judgmentsId);
+        }
+
+        LOGGER.info("Using {} judgments from judgment file {}", judgmentLookup.size(), judgmentsFile);
+
+        return judgmentLookup;
+
+    }
+
     /**
      * Gets the judgments for a query / document pairs.
-     * @param judgmentsId The judgments collection for which the judgment to retrieve belongs.
+     * @param judgmentLookup The {@link JudgmentLookup} for the judgment set.
      * @param query The user query.
      * @param orderedDocumentIds A list of document IDs returned for the user query.
      * @param k The k used for metrics calculation, i.e. DCG@k.
      * @return An ordered list of relevance scores for the query / document pairs.
      * @throws Exception Thrown if a judgment cannot be retrieved.
      */
-    protected RelevanceScores getRelevanceScores(final String judgmentsId, final String query, final List<String> orderedDocumentIds, final int k) throws Exception {
+    protected RelevanceScores getRelevanceScores(final JudgmentLookup judgmentLookup, final String query, final List<String> orderedDocumentIds, final int k) throws Exception {
 
-        // An ordered list of scores.
-        final List<Double> scores = new ArrayList<>();
+        // Get the judgments for the documents (up to k).
+        final double[] judgmentValues = judgmentLookup.getJudgments(query, orderedDocumentIds.subList(0, Math.min(k, orderedDocumentIds.size())));
+
+        // The ordered scores are compacted into the front of the judgment values.
+        int scoreCount = 0;
 
         // Count the number of documents without judgments.
         int documentsWithoutJudgmentsCount = 0;
 
-        // For each document (up to k), get the judgment for the document.
-        for (int i = 0; i < k && i < orderedDocumentIds.size(); i++) {
-
-            final String documentId = orderedDocumentIds.get(i);
+        for (int i = 0; i < judgmentValues.length; i++) {
 
-            // Find the judgment value for this combination of query and documentId from the index.
-            final Double judgmentValue = searchEngine.getJudgmentValue(judgmentsId, query, documentId);
+            final double judgmentValue = judgmentValues[i];
 
             // If a judgment for this query/doc pair is not found, Double.NaN will be returned.
             if(!Double.isNaN(judgmentValue)) {
-                LOGGER.info("Score found for document ID {} with judgments {} and query {} = {}", documentId, judgmentsId, query, judgmentValue);
-                scores.add(judgmentValue);
+                LOGGER.debug("Score found for document ID {} and query {} = {}", orderedDocumentIds.get(i), query, judgmentValue);
+                judgmentValues[scoreCount++] = judgmentValue;
             } else {
-                //LOGGER.info("No score found for document ID {} with judgments {} and query {}", documentId, judgmentsId, query);
                 documentsWithoutJudgmentsCount++;
             }
 
@@ -84,7 +177,7 @@ public abstract class AbstractQuerySetRunner {
 
         LOGGER.info("frogs for query {} = {} ------- {} / {}", query, frogs, documentsWithoutJudgmentsCount, orderedDocumentIds.size());
 
-        return new RelevanceScores(scores, frogs);
+        return new RelevanceScores(scoreCount == judgmentValues.length ? judgmentValues : Arrays.copyOf(judgmentValues, scoreCount), frogs);
 
     }
 
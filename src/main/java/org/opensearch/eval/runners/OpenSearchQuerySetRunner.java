@@ -10,8 +10,12 @@ package org.opensearch.eval.runners;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.opensearch.eval.engine.QueryResultWriter;
 import org.opensearch.eval.engine.SearchEngine;
+import org.opensearch.eval.judgments.lookup.JudgmentLookup;
 import org.opensearch.eval.metrics.DcgSearchMetric;
+import org.opensearch.eval.metrics.MetricAccumulator;
+import org.opensearch.eval.metrics.MetricKernel;
 import org.opensearch.eval.metrics.NdcgSearchMetric;
 import org.opensearch.eval.metrics.PrecisionSearchMetric;
 import org.opensearch.eval.metrics.SearchMetric;
@@ -19,12 +23,21 @@ import org.opensearch.eval.model.QueryRun;
 import org.opensearch.eval.model.dao.querysets.QuerySet;
 import org.opensearch.eval.model.dao.querysets.QuerySetRunParameters;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Deque;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * A {@link AbstractQuerySetRunner} for Amazon OpenSearch.
@@ -45,6 +58,14 @@ public class OpenSearchQuerySetRunner extends AbstractQuerySetRunner {
 
     @Override
     public QuerySetRunResult run(final QuerySetRunParameters querySetParameters) throws Exception {
+        return run(List.of(querySetParameters)).get(0);
+    }
+
+    @Override
+    public List<QuerySetRunResult> run(final List<QuerySetRunParameters> querySetRunParametersList) throws Exception {
+
+        // The query set and judgments are shared by every configuration.
+        final QuerySetRunParameters querySetParameters = getSharedParameters(querySetRunParametersList);
 
         // Verify the given query set and judgment set exists before trying to run.
         if(!searchEngine.doesQuerySetExist(querySetParameters.getQuerySetId())) {
@@ -52,89 +73,445 @@ public class OpenSearchQuerySetRunner extends AbstractQuerySetRunner {
             throw new IllegalArgumentException("The given query set " + querySetParameters.getQuerySetId() + " does not exist");
         }
 
-        final long judgmentCount = searchEngine.getJudgmentsCount(querySetParameters.getJudgmentsId());
-        if(judgmentCount == 0) {
-            LOGGER.error("There are no judgments with the judgment set ID {}", querySetParameters.getJudgmentsId());
-            throw new IllegalArgumentException("There are no judgments with the judgment set ID " + querySetParameters.getJudgmentsId());
+        final JudgmentLookup judgmentLookup;
+
+        if (querySetParameters.getJudgmentsFile() != null) {
+
+            // Read the judgments from a judgment file instead of from the search engine.
+            judgmentLookup = getJudgmentLookup(Path.of(querySetParameters.getJudgmentsFile()), querySetParameters.getJudgmentsId());
+
+        } else {
+
+            final long judgmentCount = searchEngine.getJudgmentsCount(querySetParameters.getJudgmentsId());
+            if(judgmentCount == 0) {
+                LOGGER.error("There are no judgments with the judgment set ID {}", querySetParameters.getJudgmentsId());
+                throw new IllegalArgumentException("There are no judgments with the judgment set ID " + querySetParameters.getJudgmentsId());
+            }
+
+            // Load the judgments once so each query does not need a request per document to get its judgments.
+            judgmentLookup = getJudgmentLookup(querySetParameters.getJudgmentsId(), judgmentCount,
+                    querySetParameters.getJudgmentsMemoryBudgetMb() * 1024L * 1024L);
+
         }
 
         final QuerySet querySet = searchEngine.getQuerySet(querySetParameters.getQuerySetId());
         LOGGER.info("Found {} queries in query set {}", querySet.getQuerySetQueries().size(), querySetParameters.getQuerySetId());
 
-        try {
+        // The user queries in the order they are in the query set.
+        final List<String> userQueries = new ArrayList<>();
+        for (final Map<String, Long> queryMap : querySet.getQuerySetQueries()) {
+            userQueries.addAll(queryMap.keySet());
+        }
 
-            // The results of each query.
-            final List<QueryResult> queryResults = new ArrayList<>();
+        final List<ConfigurationRun> configurationRuns = new ArrayList<>();
 
-            // Loop over each query in the map and run each one.
-            for (Map<String, Long> queryMap : querySet.getQuerySetQueries()) {
+        try (judgmentLookup) {
 
-                for (final String userQuery : queryMap.keySet()) {
+            for (final QuerySetRunParameters parameters : querySetRunParametersList) {
+                configurationRuns.add(startConfigurationRun(parameters, userQueries.size()));
+            }
+
+            // Each batch runs on its own virtual thread. Only a window of batches is in flight at a time, which keeps
+            // OpenSearch from rejecting queries and bounds the results held in memory across all configurations.
+            // max_concurrent_searches counts queries, so the window is sized by the largest batch. At least one batch
+            // is in flight, so a batch larger than the limit is still sent whole.
+            int maxBatchSize = 1;
+            for (final ConfigurationRun configurationRun : configurationRuns) {
+                maxBatchSize = Math.max(maxBatchSize, configurationRun.parameters.getMsearchBatchSize());
+            }
 
-                    // This is to keep OpenSearch from rejecting queries.
-                    // TODO: Look at using the Workload Management new in 2.18.0.
-                    Thread.sleep(50);
+            final int maxInFlightBatches = Math.max(1, querySetParameters.getMaxConcurrentSearches() / maxBatchSize);
+            LOGGER.info("Running up to {} multi-search requests of up to {} queries at the same time.", maxInFlightBatches, maxBatchSize);
+            final ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor();
 
-                    // These are the documents returned for the query.
-                    final QueryRun queryRun = searchEngine.runQuery(
-                            querySetParameters.getIndex(),
-                            querySetParameters.getQuery(),
-                            querySetParameters.getK(),
-                            userQuery,
-                            querySetParameters.getIdField(),
-                            querySetParameters.getSearchPipeline());
+            try {
 
-                    // Calculate the metrics given the documents returned for the user_query.
-                    final int k = querySetParameters.getK();
-                    final RelevanceScores relevanceScores = getRelevanceScores(querySetParameters.getJudgmentsId(), userQuery, queryRun.getDocumentIds(), k);
-                    final Collection<SearchMetric> searchMetrics = calculateSearchMetrics(querySetParameters, k, relevanceScores);
+                // The batches of the configurations are interleaved so every configuration makes progress at the same time.
+                final List<ConfigurationRun> batchRuns = new ArrayList<>();
+                final List<List<String>> batches = new ArrayList<>();
+                final List<List<List<String>>> configurationBatches = new ArrayList<>();
+                int maxBatches = 0;
 
-                    queryResults.add(new QueryResult(userQuery, queryRun.getDocumentIds(), k, searchMetrics, relevanceScores.getFrogs(), queryRun.getNumberOfResults()));
+                for (final ConfigurationRun configurationRun : configurationRuns) {
+
+                    // The queries are sent in batches using multi-search requests. A resumed run skips the queries
+                    // that were evaluated before its checkpoint.
+                    final int batchSize = Math.max(1, configurationRun.parameters.getMsearchBatchSize());
+                    final List<List<String>> runBatches = new ArrayList<>();
+
+                    for (int i = (int) configurationRun.queryCount; i < userQueries.size(); i += batchSize) {
+                        runBatches.add(userQueries.subList(i, Math.min(i + batchSize, userQueries.size())));
+                    }
+
+                    configurationBatches.add(runBatches);
+                    maxBatches = Math.max(maxBatches, runBatches.size());
 
                 }
 
-            }
+                for (int b = 0; b < maxBatches; b++) {
+                    for (int c = 0; c < configurationRuns.size(); c++) {
+                        if (b < configurationBatches.get(c).size()) {
+                            batchRuns.add(configurationRuns.get(c));
+                            batches.add(configurationBatches.get(c).get(b));
+                        }
+                    }
+                }
+
+                // The next batch is submitted as each result is collected. The results are collected in query set
+                // order so the results are the same for every run.
+                final Deque<Future<List<QueryResult>>> inFlightBatches = new ArrayDeque<>();
+                int submitted = 0;
+
+                for (int b = 0; b < batches.size(); b++) {
+
+                    while (submitted < batches.size() && submitted < b + maxInFlightBatches) {
+
+                        final ConfigurationRun configurationRun = batchRuns.get(submitted);
+                        final List<String> batch = batches.get(submitted);
+
+                        inFlightBatches.add(executorService.submit(() ->
+                                runQueries(configurationRun.parameters, judgmentLookup, configurationRun.queryRunCache, configurationRun.searchTemplateId, batch)));
+
+                        submitted++;
+
+                    }
+
+                    final ConfigurationRun configurationRun = batchRuns.get(b);
+
+                    // Summarize the metrics and hand each result to the writer so the results of
+                    // the batch can be released instead of being kept until the end of the run.
+                    for (final QueryResult queryResult : inFlightBatches.poll().get()) {
+                        configurationRun.add(queryResult);
+                        configurationRun.queryResultWriter.write(queryResult);
+                    }
+
+                    configurationRun.checkpointIfDue();
 
-            // Calculate the search metrics for the entire query set given the individual query set metrics.
-            // Sum up the metrics for each query per metric type.
-            final int querySetSize = queryResults.size();
-            final Map<String, Double> sumOfMetrics = new HashMap<>();
-            for (final QueryResult queryResult : queryResults) {
-                for (final SearchMetric searchMetric : queryResult.getSearchMetrics()) {
-                    //LOGGER.info("Summing: {} - {}", searchMetric.getName(), searchMetric.getValue());
-                    sumOfMetrics.merge(searchMetric.getName(), searchMetric.getValue(), Double::sum);
                 }
-            }
 
-            // Now divide by the number of queries.
-            final Map<String, Double> querySetMetrics = new HashMap<>();
-            for (final String metric : sumOfMetrics.keySet()) {
-                //LOGGER.info("Dividing by the query set size: {} / {}", sumOfMetrics.get(metric), querySetSize);
-                querySetMetrics.put(metric, sumOfMetrics.get(metric) / querySetSize);
+            } finally {
+
+                executorService.shutdownNow();
+
             }
 
-            final String querySetRunId = UUID.randomUUID().toString();
-            final QuerySetRunResult querySetRunResult = new QuerySetRunResult(querySetRunId, querySetParameters.getQuerySetId(),
-                    queryResults, querySetMetrics, querySetParameters.getApplication(), querySetParameters.getSearchConfig());
+            final List<QuerySetRunResult> querySetRunResults = new ArrayList<>();
+
+            for (final ConfigurationRun configurationRun : configurationRuns) {
+
+                // Wait for the results of the configuration to be written.
+                configurationRun.close();
+
+                querySetRunResults.add(getQuerySetRunResult(configurationRun));
+
+                // A completed run cannot be resumed.
+                if (configurationRun.checkpointPath != null) {
+                    Files.deleteIfExists(configurationRun.checkpointPath);
+                }
 
-            LOGGER.info("Query set run complete: {}", querySetRunId);
+            }
 
-            return querySetRunResult;
+            return querySetRunResults;
 
         } catch (Exception ex) {
+
+            for (final ConfigurationRun configurationRun : configurationRuns) {
+                try {
+                    configurationRun.close();
+                } catch (Exception closeException) {
+                    ex.addSuppressed(closeException);
+                }
+
+                if (configurationRun.checkpointPath != null && Files.exists(configurationRun.checkpointPath)) {
+                    LOGGER.error("Query set run {} failed. It can be resumed from its checkpoint {} by setting resume_run_id to {}.",
+                            configurationRun.querySetRunId, configurationRun.checkpointPath, configurationRun.querySetRunId);
+                }
+            }
+
             throw new RuntimeException("Unable to run query set. If using a search_pipeline make sure the pipeline exists.", ex);
+
+        }
+
+    }
+
+    private ConfigurationRun startConfigurationRun(final QuerySetRunParameters querySetParameters, final int querySetSize) throws Exception {
+
+        // Reuse the results of queries that were already run against the index as long as the index has not changed.
+        final QueryRunCache queryRunCache;
+
+        if (querySetParameters.getResultCacheDir() != null) {
+            final String indexFingerprint = searchEngine.getIndexFingerprint(querySetParameters.getIndex());
+            queryRunCache = new QueryRunCache(Path.of(querySetParameters.getResultCacheDir()), indexFingerprint);
+        } else {
+            queryRunCache = null;
+        }
+
+        // Store the query as a search template so each search only carries the user query.
+        final String searchTemplateId = querySetParameters.isUseSearchTemplate() ?
+                searchEngine.createSearchTemplate(querySetParameters.getQuery(), querySetParameters.getK(), querySetParameters.getIdField()) : null;
+
+        final Path checkpointDirectory = querySetParameters.getCheckpointDir() != null ? Path.of(querySetParameters.getCheckpointDir()) : null;
+        final QuerySetRunCheckpoint checkpoint;
+
+        if (querySetParameters.getResumeRunId() != null) {
+
+            if (checkpointDirectory == null) {
+                throw new IllegalArgumentException("A checkpoint_dir is required to resume query set run " + querySetParameters.getResumeRunId());
+            }
+
+            final Path checkpointPath = QuerySetRunCheckpoint.getPath(checkpointDirectory, querySetParameters.getResumeRunId());
+
+            if (!Files.exists(checkpointPath)) {
+                throw new IllegalArgumentException("There is no checkpoint for query set run " + querySetParameters.getResumeRunId() + " in " + checkpointDirectory);
+            }
+
+            checkpoint = QuerySetRunCheckpoint.read(checkpointPath);
+
+            // The skipped queries are only the same queries if the query set has not changed.
+            if (!Objects.equals(checkpoint.getQuerySetId(), querySetParameters.getQuerySetId()) || checkpoint.getQuerySetSize() != querySetSize) {
+                throw new IllegalArgumentException("The checkpoint of query set run " + querySetParameters.getResumeRunId() + " is for a different query set");
+            }
+
+            LOGGER.info("Resuming query set run {} after {} of {} queries", checkpoint.getQuerySetRunId(), checkpoint.getQueryCount(), querySetSize);
+
+        } else {
+
+            checkpoint = null;
+
+        }
+
+        // The run ID is known up front so the results can be indexed while the run is in progress.
+        // A resumed run keeps its ID so the results indexed before and after the failure are one run.
+        final String querySetRunId = checkpoint != null ? checkpoint.getQuerySetRunId() : UUID.randomUUID().toString();
+
+        final QueryResultWriter queryResultWriter = searchEngine.getQueryResultWriter(querySetRunId, querySetParameters);
+
+        final ConfigurationRun configurationRun = new ConfigurationRun(querySetParameters, querySetRunId, queryRunCache, searchTemplateId, queryResultWriter,
+                checkpointDirectory != null ? QuerySetRunCheckpoint.getPath(checkpointDirectory, querySetRunId) : null, querySetSize);
+
+        if (checkpoint != null) {
+            configurationRun.queryCount = checkpoint.getQueryCount();
+            configurationRun.checkpointQueryCount = checkpoint.getQueryCount();
+            configurationRun.metricAccumulators.putAll(checkpoint.getMetrics());
+        }
+
+        return configurationRun;
+
+    }
+
+    private QuerySetRunResult getQuerySetRunResult(final ConfigurationRun configurationRun) {
+
+        final QuerySetRunParameters querySetParameters = configurationRun.parameters;
+
+        final QuerySetRunResult querySetRunResult = new QuerySetRunResult(configurationRun.querySetRunId, querySetParameters.getQuerySetId(),
+                configurationRun.queryCount, configurationRun.metricAccumulators, querySetParameters.getApplication(), querySetParameters.getSearchConfig());
+
+        LOGGER.info("Query set run complete: {}", configurationRun.querySetRunId);
+
+        for (final MetricAccumulator metricAccumulator : configurationRun.metricAccumulators.values()) {
+            LOGGER.info("Query set metric: {}", metricAccumulator);
+        }
+
+        if (configurationRun.queryRunCache != null) {
+            LOGGER.info("Query run cache: {}", configurationRun.queryRunCache);
+        }
+
+        LOGGER.info("Search engine concurrency: {}", searchEngine.getConcurrencyLimiter());
+        LOGGER.info("Query template cache: {}", searchEngine.getQueryTemplateCache());
+
+        return querySetRunResult;
+
+    }
+
+    private List<QueryResult> runQueries(final QuerySetRunParameters querySetParameters, final JudgmentLookup judgmentLookup,
+                                         final QueryRunCache queryRunCache, final String searchTemplateId,
+                                         final List<String> userQueries) throws Exception {
+
+        // These are the documents returned for each query.
+        final List<QueryRun> queryRuns = new ArrayList<>(userQueries.size());
+
+        // The user queries whose results are not cached.
+        final List<String> uncachedUserQueries = new ArrayList<>();
+
+        for (final String userQuery : userQueries) {
+
+            final QueryRun queryRun = queryRunCache != null ? queryRunCache.get(querySetParameters.getIndex(), querySetParameters.getQuery(),
+                    userQuery, querySetParameters.getK(), querySetParameters.getIdField(), querySetParameters.getSearchPipeline()) : null;
+
+            queryRuns.add(queryRun);
+
+            if (queryRun == null) {
+                uncachedUserQueries.add(userQuery);
+            }
+
+        }
+
+        if (!uncachedUserQueries.isEmpty()) {
+
+            final List<QueryRun> uncachedQueryRuns;
+
+            if (searchTemplateId != null) {
+                uncachedQueryRuns = searchEngine.runSearchTemplateQueries(
+                        querySetParameters.getIndex(),
+                        searchTemplateId,
+                        uncachedUserQueries,
+                        querySetParameters.getIdField(),
+                        querySetParameters.getSearchPipeline());
+            } else if (uncachedUserQueries.size() == 1) {
+                uncachedQueryRuns = List.of(searchEngine.runQuery(
+                        querySetParameters.getIndex(),
+                        querySetParameters.getQuery(),
+                        querySetParameters.getK(),
+                        uncachedUserQueries.get(0),
+                        querySetParameters.getIdField(),
+                        querySetParameters.getSearchPipeline()));
+            } else {
+                uncachedQueryRuns = searchEngine.runQueries(
+                        querySetParameters.getIndex(),
+                        querySetParameters.getQuery(),
+                        querySetParameters.getK(),
+                        uncachedUserQueries,
+                        querySetParameters.getIdField(),
+                        querySetParameters.getSearchPipeline());
+            }
+
+            // Fill in the results that were not cached in the order of the user queries.
+            int uncached = 0;
+
+            for (int i = 0; i < queryRuns.size(); i++) {
+
+                if (queryRuns.get(i) == null) {
+
+                    final QueryRun queryRun = uncachedQueryRuns.get(uncached++);
+                    queryRuns.set(i, queryRun);
+
+                    if (queryRunCache != null) {
+                        queryRunCache.put(querySetParameters.getIndex(), querySetParameters.getQuery(), userQueries.get(i),
+                                querySetParameters.getK(), querySetParameters.getIdField(), querySetParameters.getSearchPipeline(), queryRun);
+                    }
+
+                }
+
+            }
+
+        }
+
+        final List<QueryResult> queryResults = new ArrayList<>(userQueries.size());
+
+        // One kernel calculates the metrics of every query in the batch.
+        final MetricKernel metricKernel = new MetricKernel(querySetParameters.getK(), querySetParameters.getThreshold());
+
+        for (int i = 0; i < userQueries.size(); i++) {
+
+            final QueryRun queryRun = queryRuns.get(i);
+
+            // A failed query fails the run rather than skewing the metrics.
+            if (queryRun.hasError()) {
+                throw new IllegalStateException("Unable to run query for user query " + userQueries.get(i) + ": " + queryRun.getError());
+            }
+
+            queryResults.add(getQueryResult(querySetParameters, judgmentLookup, metricKernel, userQueries.get(i), queryRun));
+
         }
 
+        return queryResults;
+
     }
 
-    private Collection<SearchMetric> calculateSearchMetrics(QuerySetRunParameters querySetParameters, int k, RelevanceScores relevanceScores) {
+    private QueryResult getQueryResult(final QuerySetRunParameters querySetParameters, final JudgmentLookup judgmentLookup, final MetricKernel metricKernel,
+                                       final String userQuery, final QueryRun queryRun) throws Exception {
+
+        // Calculate the metrics given the documents returned for the user_query.
+        final int k = querySetParameters.getK();
+        final RelevanceScores relevanceScores = getRelevanceScores(judgmentLookup, userQuery, queryRun.getDocumentIds(), k);
+        final Collection<SearchMetric> searchMetrics = calculateSearchMetrics(metricKernel, relevanceScores);
 
-        final SearchMetric dcgSearchMetric = new DcgSearchMetric(k, relevanceScores.getRelevanceScores());
-        final SearchMetric ndcgSearchmetric = new NdcgSearchMetric(k, relevanceScores.getRelevanceScores());
-        final SearchMetric precisionSearchMetric = new PrecisionSearchMetric(k, querySetParameters.getThreshold(), relevanceScores.getRelevanceScores());
+        return new QueryResult(userQuery, queryRun.getDocumentIds(), k, searchMetrics, relevanceScores.getFrogs(), queryRun.getNumberOfResults());
+
+    }
+
+    private Collection<SearchMetric> calculateSearchMetrics(final MetricKernel metricKernel, final RelevanceScores relevanceScores) {
+
+        // Calculate all the metrics in one pass over the relevance scores.
+        final double[] scores = relevanceScores.getRelevanceScores();
+        metricKernel.evaluate(scores, scores.length);
+
+        final SearchMetric dcgSearchMetric = new DcgSearchMetric(metricKernel, scores);
+        final SearchMetric ndcgSearchmetric = new NdcgSearchMetric(metricKernel, scores);
+        final SearchMetric precisionSearchMetric = new PrecisionSearchMetric(metricKernel, scores);
 
         return List.of(dcgSearchMetric, ndcgSearchmetric, precisionSearchMetric);
 
     }
 
+    /**
+     * The state of one configuration in a query set run.
+     */
+    private static final class ConfigurationRun {
+
+        private final QuerySetRunParameters parameters;
+        private final String querySetRunId;
+        private final QueryRunCache queryRunCache;
+        private final String searchTemplateId;
+        private final QueryResultWriter queryResultWriter;
+        private final Path checkpointPath;
+        private final int querySetSize;
+
+        private final Map<String, MetricAccumulator> metricAccumulators = new LinkedHashMap<>();
+
+        private long queryCount = 0;
+        private long checkpointQueryCount = 0;
+        private boolean closed = false;
+
+        private ConfigurationRun(final QuerySetRunParameters parameters, final String querySetRunId, final QueryRunCache queryRunCache,
+                                 final String searchTemplateId, final QueryResultWriter queryResultWriter,
+                                 final Path checkpointPath, final int querySetSize) {
+            this.parameters = parameters;
+            this.querySetRunId = querySetRunId;
+            this.queryRunCache = queryRunCache;
+            this.searchTemplateId = searchTemplateId;
+            this.queryResultWriter = queryResultWriter;
+            this.checkpointPath = checkpointPath;
+            this.querySetSize = querySetSize;
+        }
+
+        // Adds the metrics of a query to the summary of each metric across the query set.
+        private void add(final QueryResult queryResult) {
+
+            queryCount++;
+
+            for (final SearchMetric searchMetric : queryResult.getSearchMetrics()) {
+                metricAccumulators.computeIfAbsent(searchMetric.getName(), MetricAccumulator::new).add(searchMetric.getValue());
+            }
+
+        }
+
+        // Writes a checkpoint once enough queries have been evaluated since the last one. The results written so far
+        // are indexed first so a resumed run does not skip queries whose results were never indexed.
+        private void checkpointIfDue() throws Exception {
+
+            if (checkpointPath != null && queryCount - checkpointQueryCount >= Math.max(1, parameters.getCheckpointInterval())) {
+
+                queryResultWriter.flush();
+                new QuerySetRunCheckpoint(querySetRunId, parameters.getQuerySetId(), querySetSize, queryCount, metricAccumulators).write(checkpointPath);
+
+                checkpointQueryCount = queryCount;
+                LOGGER.debug("Checkpointed query set run {} after {} queries", querySetRunId, queryCount);
+
+            }
+
+        }
+
+        // Closes the query result writer if it is not already closed.
+        private void close() throws IOException {
+
+            if (!closed) {
+                closed = true;
+                queryResultWriter.close();
+            }
+
+        }
+
+    }
+
 }
@@ -0,0 +1,188 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.runners;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.opensearch.eval.model.QueryRun;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An on-disk cache of {@link QueryRun query runs}. Each entry is a file named by a hash of the index,
+ * the query template, the user query, k, the ID field, and the search pipeline.
+ * Each entry records the fingerprint of the index when it was cached, and an entry with a different
+ * fingerprint than the cache's is a miss. Entries are written to a temporary file and moved into
+ * place so the cache can be used by concurrent queries and runs.
+ */
+public class QueryRunCache {
+
+    private static final Logger LOGGER = LogManager.getLogger(QueryRunCache.class);
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final Path directory;
+    private final String indexFingerprint;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates a new cache.
+     * @param directory The directory that holds the cache entries. It is created if it does not exist.
+     * @param indexFingerprint The current fingerprint of the index being searched.
+     * @throws IOException Thrown if the directory cannot be created.
+     */
+    public QueryRunCache(final Path directory, final String indexFingerprint) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.indexFingerprint = indexFingerprint;
+    }
+
+    /**
+     * Gets a cached query run.
+     * @param index The index the query was run against.
+     * @param query The query template.
+     * @param userQuery The user query.
+     * @param k The value of k.
+     * @param idField The field that identifies each document.
+     * @param pipeline The search pipeline.
+     * @return The cached {@link QueryRun}, or <code>null</code> if there is no entry for the current index fingerprint.
+     */
+    public QueryRun get(final String index, final String query, final String userQuery, final int k, final String idField, final String pipeline) {
+
+        final Path path = getPath(index, query, userQuery, k, idField, pipeline);
+
+        if (Files.exists(path)) {
+
+            try {
+
+                final JsonNode entry = OBJECT_MAPPER.readTree(path.toFile());
+
+                if (indexFingerprint.equals(entry.path("index_fingerprint").asText())) {
+
+                    final List<String> documentIds = new ArrayList<>();
+                    entry.path("document_ids").forEach(documentId -> documentIds.add(documentId.asText()));
+
+                    hits.increment();
+                    return new QueryRun(documentIds, entry.path("number_of_results").asInt());
+
+                }
+
+            } catch (IOException ex) {
+
+                // A damaged entry is a miss and is replaced when the query is run again.
+                LOGGER.warn("Unable to read query run cache entry {}", path, ex);
+
+            }
+
+        }
+
+        misses.increment();
+        return null;
+
+    }
+
+    /**
+     * Caches a query run. Query runs with an error are not cached.
+     * @param index The index the query was run against.
+     * @param query The query template.
+     * @param userQuery The user query.
+     * @param k The value of k.
+     * @param idField The field that identifies each document.
+     * @param pipeline The search pipeline.
+     * @param queryRun The {@link QueryRun}.
+     * @throws IOException Thrown if the entry cannot be written.
+     */
+    public void put(final String index, final String query, final String userQuery, final int k, final String idField, final String pipeline,
+                    final QueryRun queryRun) throws IOException {
+
+        if (queryRun.hasError()) {
+            return;
+        }
+
+        final Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("index_fingerprint", indexFingerprint);
+        entry.put("user_query", userQuery);
+        entry.put("number_of_results", queryRun.getNumberOfResults());
+        entry.put("document_ids", queryRun.getDocumentIds());
+
+        final Path path = getPath(index, query, userQuery, k, idField, pipeline);
+        Files.createDirectories(path.getParent());
+
+        final Path temporaryPath = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+
+        try {
+            OBJECT_MAPPER.writeValue(temporaryPath.toFile(), entry);
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryPath);
+        }
+
+    }
+
+    /**
+     * Gets the number of cache hits.
+     * @return The number of cache hits.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of cache misses.
+     * @return The number of cache misses.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private Path getPath(final String index, final String query, final String userQuery, final int k, final String idField, final String pipeline) {
+
+        final String key = index + '\0' + sha256(query) + '\0' + userQuery + '\0' + k + '\0' + idField + '\0' + pipeline;
+        final String hash = sha256(key);
+
+        // Spread the entries over subdirectories to keep each directory small.
+        return directory.resolve(hash.substring(0, 2)).resolve(hash + ".json");
+
+    }
+
+    private static String sha256(final String value) {
+
+        try {
+
+            final MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(messageDigest.digest(value.getBytes(StandardCharsets.UTF_8)));
+
+        } catch (NoSuchAlgorithmException ex) {
+            // Every Java platform supports SHA-256.
+            throw new IllegalStateException(ex);
+        }
+
+    }
+
+    @Override
+    public String toString() {
+        return "hits: " + hits.sum() + ", misses: " + misses.sum();
+    }
+
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.runners;
+
+import org.opensearch.eval.metrics.MetricAccumulator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serial;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The progress of a query set run. A run records how many queries of the query set have been evaluated,
+ * in query set order, and the summary of each metric over those queries. A failed run can be resumed from
+ * its checkpoint by skipping the evaluated queries, and the result is the same as a run that did not fail.
+ * The percentile estimates of the metrics have internal state that is not exposed, so the checkpoint is
+ * written with Java serialization and is only meant to be read by the same version of the application.
+ */
+public class QuerySetRunCheckpoint implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final String querySetRunId;
+    private final String querySetId;
+    private final int querySetSize;
+    private final long queryCount;
+    private final LinkedHashMap<String, MetricAccumulator> metrics;
+
+    /**
+     * Creates a new checkpoint.
+     * @param querySetRunId The query set run ID.
+     * @param querySetId The query set ID.
+     * @param querySetSize The number of queries in the query set.
+     * @param queryCount The number of queries, from the start of the query set, that have been evaluated.
+     * @param metrics A map of metric name to the {@link MetricAccumulator} that summarizes the evaluated queries.
+     */
+    public QuerySetRunCheckpoint(final String querySetRunId, final String querySetId, final int querySetSize,
+                                 final long queryCount, final Map<String, MetricAccumulator> metrics) {
+        this.querySetRunId = querySetRunId;
+        this.querySetId = querySetId;
+        this.querySetSize = querySetSize;
+        this.queryCount = queryCount;
+        this.metrics = new LinkedHashMap<>(metrics);
+    }
+
+    /**
+     * Gets the path of the checkpoint of a query set run.
+     * @param directory The directory that holds the checkpoints.
+     * @param querySetRunId The query set run ID.
+     * @return The path of the checkpoint.
+     */
+    public static Path getPath(final Path directory, final String querySetRunId) {
+        return directory.resolve(querySetRunId + ".checkpoint");
+    }
+
+    /**
+     * Reads a checkpoint.
+     * @param path The path of the checkpoint.
+     * @return The {@link QuerySetRunCheckpoint}.
+     * @throws IOException Thrown if the checkpoint cannot be read.
+     */
+    public static QuerySetRunCheckpoint read(final Path path) throws IOException {
+
+        try (final InputStream inputStream = Files.newInputStream(path);
+             final ObjectInputStream objectInputStream = new ObjectInputStream(inputStream)) {
+
+            return (QuerySetRunCheckpoint) objectInputStream.readObject();
+
+        } catch (ClassNotFoundException | ClassCastException ex) {
+            throw new IOException("The file " + path + " is not a query set run checkpoint", ex);
+        }
+
+    }
+
+    /**
+     * Writes the checkpoint. The checkpoint is written to a temporary file and moved into place so a failure
+     * while writing leaves the previous checkpoint.
+     * @param path The path of the checkpoint.
+     * @throws IOException Thrown if the checkpoint cannot be written.
+     */
+    public void write(final Path path) throws IOException {
+
+        Files.createDirectories(path.toAbsolutePath().getParent());
+
+        final Path temporaryPath = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+
+        try {
+
+            try (final OutputStream outputStream = Files.newOutputStream(temporaryPath);
+                 final ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream)) {
+                objectOutputStream.writeObject(this);
+            }
+
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        } finally {
+            Files.deleteIfExists(temporaryPath);
+        }
+
+    }
+
+    /**
+     * Gets the query set run ID.
+     * @return The query set run ID.
+     */
+    public String getQuerySetRunId() {
+        return querySetRunId;
+    }
+
+    /**
+     * Gets the query set ID.
+     * @return The query set ID.
+     */
+    public String getQuerySetId() {
+        return querySetId;
+    }
+
+    /**
+     * Gets the number of queries in the query set.
+     * @return The number of queries in the query set.
+     */
+    public int getQuerySetSize() {
+        return querySetSize;
+    }
+
+    /**
+     * Gets the number of queries, from the start of the query set, that have been evaluated.
+     * @return The number of queries that have been evaluated.
+     */
+    public long getQueryCount() {
+        return queryCount;
+    }
+
+    /**
+     * Gets the summary of each metric over the evaluated queries.
+     * @return A map of metric name to {@link MetricAccumulator}.
+     */
+    public Map<String, MetricAccumulator> getMetrics() {
+        return metrics;
+    }
+
+}
@@ -8,40 +8,40 @@
  */
 package org.opensearch.eval.runners;
 
-import org.opensearch.eval.metrics.SearchMetric;
+import org.opensearch.eval.metrics.MetricAccumulator;
 import org.opensearch.eval.utils.TimeUtils;
 
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 /**
- * The results of a query set run.
+ * The results of a query set run. The results of the individual queries are indexed as the run progresses
+ * and are not kept, so a run result only holds the summary of each metric across the query set.
  */
 public class QuerySetRunResult {
 
     private final String runId;
     private final String querySetId;
-    private final List<QueryResult> queryResults;
-    private final Map<String, Double> metrics;
+    private final long queryCount;
+    private final Map<String, MetricAccumulator> metrics;
     private final String timestamp;
     private final String application;
     private final String searchConfig;
 
     /**
-     * Creates a new query set run result. A random UUID is generated as the run ID.
+     * Creates a new query set run result.
      * @param runId A unique identifier for this query set run.
      * @param querySetId A unique identifier for the query set.
-     * @param queryResults A collection of {@link QueryResult} that contains the queries and search results.
-     * @param metrics A map of metric name to value.
+     * @param queryCount The number of queries that were run.
+     * @param metrics A map of metric name to the {@link MetricAccumulator} that summarizes the metric's values.
+     * @param application The application.
+     * @param searchConfig The search configuration.
      */
-    public QuerySetRunResult(final String runId, final String querySetId, final List<QueryResult> queryResults,
-                             final Map<String, Double> metrics, final String application, final String searchConfig) {
+    public QuerySetRunResult(final String runId, final String querySetId, final long queryCount,
+                             final Map<String, MetricAccumulator> metrics, final String application, final String searchConfig) {
         this.runId = runId;
         this.querySetId = querySetId;
-        this.queryResults = queryResults;
+        this.queryCount = queryCount;
         this.metrics = metrics;
         this.timestamp = TimeUtils.getTimestamp();
         this.application = application;
@@ -65,51 +65,41 @@ public class QuerySetRunResult {
     }
 
     /**
-     * Gets the search metrics.
-     * @return The search metrics.
+     * Gets the mean of each search metric across the query set.
+     * @return A map of metric name to the metric's mean.
      */
     public Map<String, Double> getSearchMetrics() {
+
+        final Map<String, Double> searchMetrics = new HashMap<>();
+
+        for (final Map.Entry<String, MetricAccumulator> metric : metrics.entrySet()) {
+            searchMetrics.put(metric.getKey(), metric.getValue().getMean());
+        }
+
+        return searchMetrics;
+
+    }
+
+    /**
+     * Gets the summary of each search metric across the query set.
+     * @return A map of metric name to the {@link MetricAccumulator} that summarizes the metric's values.
+     */
+    public Map<String, MetricAccumulator> getSearchMetricAccumulators() {
         return metrics;
     }
 
     /**
-     * Gets the results of the query set run.
-     * @return A collection of {@link QueryResult results}.
+     * Gets the number of queries that were run.
+     * @return The number of queries that were run.
      */
-    public Collection<QueryResult> getQueryResults() {
-        return queryResults;
+    public long getQueryCount() {
+        return queryCount;
     }
 
     public String getTimestamp() {
         return timestamp;
     }
 
-    public Collection<Map<String, Object>> getQueryResultsAsMap() {
-
-        final Collection<Map<String, Object>> qs = new ArrayList<>();
-
-        for(final QueryResult queryResult : queryResults) {
-
-            final Map<String, Object> q = new HashMap<>();
-
-            q.put("query", queryResult.getQuery());
-            q.put("document_ids", queryResult.getOrderedDocumentIds());
-            q.put("frogs", queryResult.getFrogs());
-
-            // Calculate and add each metric to the map.
-            for(final SearchMetric searchMetric : queryResult.getSearchMetrics()) {
-                q.put(searchMetric.getName(), searchMetric.calculate());
-            }
-
-            qs.add(q);
-
-        }
-
-        return qs;
-
-    }
-
-
     public String getApplication() {
         return application;
     }
@@ -0,0 +1,127 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.runners;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A query from a query set run compiled into the literal text around each {@link OpenSearchQuerySetRunner#QUERY_PLACEHOLDER}.
+ * Rendering the template writes the literals and the user query into a buffer without searching the template again.
+ * The placeholder is expected to be inside a JSON string, so the user query is JSON-escaped. A user query with
+ * quotes or backslashes produces a valid query.
+ */
+public class QueryTemplate {
+
+    private final String[] literals;
+    private final int length;
+
+    private QueryTemplate(final String[] literals) {
+
+        this.literals = literals;
+
+        int length = 0;
+        for (final String literal : literals) {
+            length += literal.length();
+        }
+        this.length = length;
+
+    }
+
+    /**
+     * Compiles a query template.
+     * @param template The query with zero or more placeholders.
+     * @return A {@link QueryTemplate}.
+     */
+    public static QueryTemplate compile(final String template) {
+
+        final List<String> literals = new ArrayList<>();
+        final String placeholder = OpenSearchQuerySetRunner.QUERY_PLACEHOLDER;
+
+        int start = 0;
+        int index;
+
+        while ((index = template.indexOf(placeholder, start)) >= 0) {
+            literals.add(template.substring(start, index));
+            start = index + placeholder.length();
+        }
+
+        literals.add(template.substring(start));
+
+        return new QueryTemplate(literals.toArray(new String[0]));
+
+    }
+
+    /**
+     * Renders the query for a user query.
+     * @param userQuery The user query.
+     * @return The query with the user query in place of each placeholder.
+     */
+    public String render(final String userQuery) {
+
+        final StringBuilder out = new StringBuilder(length + (literals.length - 1) * (userQuery.length() + 8));
+        render(userQuery, out);
+
+        return out.toString();
+
+    }
+
+    /**
+     * Renders the query for a user query into a buffer.
+     * @param userQuery The user query.
+     * @param out The buffer the query is appended to.
+     */
+    public void render(final String userQuery, final StringBuilder out) {
+
+        out.append(literals[0]);
+
+        for (int i = 1; i < literals.length; i++) {
+            appendJsonEscaped(userQuery, out);
+            out.append(literals[i]);
+        }
+
+    }
+
+    /**
+     * Gets the template with each placeholder replaced by other text without escaping it.
+     * @param replacement The text to put in place of each placeholder.
+     * @return The template with the replacement in place of each placeholder.
+     */
+    public String replacePlaceholders(final String replacement) {
+        return String.join(replacement, literals);
+    }
+
+    private static void appendJsonEscaped(final String value, final StringBuilder out) {
+
+        for (int i = 0; i < value.length(); i++) {
+
+            final char c = value.charAt(i);
+
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                case '\b' -> out.append("\\b");
+                case '\f' -> out.append("\\f");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+
+        }
+
+    }
+
+}
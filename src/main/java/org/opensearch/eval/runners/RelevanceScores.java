@@ -8,22 +8,24 @@
  */
 package org.opensearch.eval.runners;
 
-import java.util.List;
-
 /**
  * Captures the relevance scores for a query.
  */
 public class RelevanceScores {
 
-    private final List<Double> relevanceScores;
+    private final double[] relevanceScores;
     private final double frogs;
 
-    public RelevanceScores(final List<Double> relevanceScores, final double frogs) {
+    public RelevanceScores(final double[] relevanceScores, final double frogs) {
         this.relevanceScores = relevanceScores;
         this.frogs = frogs;
     }
 
-    public List<Double> getRelevanceScores() {
+    /**
+     * Gets the relevance scores of the documents that have judgments, in ranked order.
+     * @return The relevance scores.
+     */
+    public double[] getRelevanceScores() {
         return relevanceScores;
     }
 
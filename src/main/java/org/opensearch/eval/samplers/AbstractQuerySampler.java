@@ -15,7 +15,6 @@ import org.opensearch.eval.model.TimeFilter;
 import org.opensearch.eval.model.dao.querysets.QuerySet;
 import org.opensearch.eval.utils.TimeUtils;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -38,7 +37,7 @@ public abstract class AbstractQuerySampler {
      * Samples the queries.
      * @return A query set with frequencies.
      */
-    public abstract Map<String, Long> sample(final TimeFilter timeFilter) throws IOException;
+    public abstract Map<String, Long> sample(final TimeFilter timeFilter) throws Exception;
 
     /**
      * Index the query set.
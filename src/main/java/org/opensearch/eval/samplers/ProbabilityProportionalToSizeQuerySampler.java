@@ -15,7 +15,6 @@ import org.opensearch.eval.engine.SearchEngine;
 import org.opensearch.eval.model.TimeFilter;
 import org.opensearch.eval.model.ubi.query.UbiQuery;
 
-import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -51,7 +50,7 @@ public class ProbabilityProportionalToSizeQuerySampler extends AbstractQuerySamp
     }
 
     @Override
-    public Map<String, Long> sample(final TimeFilter timeFilter) throws IOException {
+    public Map<String, Long> sample(final TimeFilter timeFilter) throws Exception {
 
         final Collection<UbiQuery> ubiQueries = searchEngine.getUbiQueries(parameters.getApplication(), timeFilter);
 
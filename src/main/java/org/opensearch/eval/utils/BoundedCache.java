@@ -0,0 +1,202 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe cache holding up to a max number of entries. When the cache is full the least
+ * recently used entry is evicted. Concurrent misses for the same key are coalesced so the value
+ * is only loaded once. <code>null</code> values are not cached.
+ * @param <K> The type of the keys.
+ * @param <V> The type of the values.
+ */
+public class BoundedCache<K, V> {
+
+    private final int maxSize;
+
+    // Guarded by itself. An access-ordered map so the eldest entry is the least recently used.
+    private final LinkedHashMap<K, V> entries;
+
+    // The loads that are currently in progress.
+    private final Map<K, CompletableFuture<V>> loads = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Loads the value for a key that is not in the cache.
+     * @param <K> The type of the keys.
+     * @param <V> The type of the values.
+     */
+    @FunctionalInterface
+    public interface Loader<K, V> {
+
+        /**
+         * Loads the value for a key.
+         * @param key The key.
+         * @return The value, or <code>null</code> if there is no value for the key.
+         * @throws Exception Thrown if the value cannot be loaded.
+         */
+        V load(K key) throws Exception;
+
+    }
+
+    /**
+     * Creates a new cache.
+     * @param maxSize The max number of entries in the cache.
+     */
+    public BoundedCache(final int maxSize) {
+
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("The max size of the cache must be at least 1.");
+        }
+
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<K, V> eldest) {
+                if (size() > BoundedCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+    }
+
+    /**
+     * Gets the value for a key, loading it if it is not in the cache.
+     * @param key The key.
+     * @param loader The {@link Loader} used when the key is not in the cache.
+     * @return The value, or <code>null</code> if there is no value for the key.
+     * @throws Exception Thrown if the value cannot be loaded.
+     */
+    public V get(final K key, final Loader<K, V> loader) throws Exception {
+
+        synchronized (entries) {
+            final V value = entries.get(key);
+            if (value != null) {
+                hits.increment();
+                return value;
+            }
+        }
+
+        misses.increment();
+
+        final CompletableFuture<V> load = new CompletableFuture<>();
+        final CompletableFuture<V> existingLoad = loads.putIfAbsent(key, load);
+
+        if (existingLoad != null) {
+
+            // Another thread is already loading this key so wait for its value.
+            try {
+                return existingLoad.get();
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof Exception) {
+                    throw (Exception) ex.getCause();
+                }
+                throw ex;
+            }
+
+        }
+
+        try {
+
+            // A load that completed between the lookup above and starting this load has already published its value.
+            final V cachedValue;
+            synchronized (entries) {
+                cachedValue = entries.get(key);
+            }
+
+            if (cachedValue != null) {
+                load.complete(cachedValue);
+                return cachedValue;
+            }
+
+            final V value = loader.load(key);
+
+            if (value != null) {
+                synchronized (entries) {
+                    entries.put(key, value);
+                }
+            }
+
+            load.complete(value);
+            return value;
+
+        } catch (Exception ex) {
+
+            load.completeExceptionally(ex);
+            throw ex;
+
+        } finally {
+
+            loads.remove(key, load);
+
+        }
+
+    }
+
+    /**
+     * Gets the number of entries in the cache.
+     * @return The number of entries in the cache.
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Gets the max number of entries in the cache.
+     * @return The max number of entries in the cache.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Gets the number of times a value was found in the cache.
+     * @return The number of cache hits.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of times a value was not found in the cache. This includes misses
+     * that waited on a load already in progress.
+     * @return The number of cache misses.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the number of entries evicted from the cache.
+     * @return The number of evictions.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "size: " + size() + ", max size: " + maxSize + ", hits: " + getHitCount() + ", misses: " + getMissCount() + ", evictions: " + getEvictionCount();
+    }
+
+}
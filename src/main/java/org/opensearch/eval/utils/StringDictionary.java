@@ -0,0 +1,172 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.utils;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Interns strings to dense integer IDs. The first string added gets ID <code>0</code>, the next <code>1</code>,
+ * and so on, so the IDs can index arrays. The strings are held in an array and found through an open-addressing
+ * table of IDs, so no object is allocated per string other than the string itself.
+ * A dictionary is not thread-safe while strings are added, but can be read from multiple threads afterward.
+ */
+public class StringDictionary implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final double MAX_LOAD_FACTOR = 0.6;
+
+    // An empty slot in the table. The table holds ID + 1.
+    private static final int EMPTY = 0;
+
+    private int[] table = new int[INITIAL_CAPACITY];
+    private String[] values = new String[INITIAL_CAPACITY];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private int size = 0;
+
+    // The estimated size of the strings, so the size of the dictionary is known without walking it.
+    private long stringBytes = 0;
+
+    /**
+     * Gets the ID of a string, adding the string if it is not in the dictionary.
+     * @param value The string.
+     * @return The ID of the string.
+     */
+    public int add(final String value) {
+
+        final int hash = mix(value.hashCode());
+        int slot = hash & (table.length - 1);
+
+        while (table[slot] != EMPTY) {
+
+            final int id = table[slot] - 1;
+
+            if (hashes[id] == hash && values[id].equals(value)) {
+                return id;
+            }
+
+            slot = (slot + 1) & (table.length - 1);
+
+        }
+
+        final int id = size++;
+
+        if (id == values.length) {
+            values = Arrays.copyOf(values, values.length * 2);
+            hashes = Arrays.copyOf(hashes, hashes.length * 2);
+        }
+
+        values[id] = value;
+        hashes[id] = hash;
+        table[slot] = id + 1;
+        stringBytes += 40 + 2L * value.length();
+
+        if (size > table.length * MAX_LOAD_FACTOR) {
+            resize(table.length * 2);
+        }
+
+        return id;
+
+    }
+
+    /**
+     * Gets the ID of a string.
+     * @param value The string.
+     * @return The ID of the string, or <code>-1</code> if the string is not in the dictionary.
+     */
+    public int getId(final String value) {
+
+        final int hash = mix(value.hashCode());
+        int slot = hash & (table.length - 1);
+
+        while (table[slot] != EMPTY) {
+
+            final int id = table[slot] - 1;
+
+            if (hashes[id] == hash && values[id].equals(value)) {
+                return id;
+            }
+
+            slot = (slot + 1) & (table.length - 1);
+
+        }
+
+        return -1;
+
+    }
+
+    /**
+     * Gets the string with an ID.
+     * @param id The ID.
+     * @return The string.
+     */
+    public String get(final int id) {
+
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("No string with ID " + id);
+        }
+
+        return values[id];
+
+    }
+
+    /**
+     * Gets the number of strings in the dictionary.
+     * @return The number of strings.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Estimates the heap used by the dictionary. Each string is counted as its object and array headers plus
+     * two bytes per character, which is an overestimate for strings stored with one byte per character.
+     * @return The estimated size of the dictionary in bytes.
+     */
+    public long getSizeInBytes() {
+        return 4L * table.length + 8L * values.length + 4L * hashes.length + stringBytes;
+    }
+
+    private void resize(final int capacity) {
+
+        table = new int[capacity];
+
+        for (int id = 0; id < size; id++) {
+
+            int slot = hashes[id] & (capacity - 1);
+
+            while (table[slot] != EMPTY) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+
+            table[slot] = id + 1;
+
+        }
+
+    }
+
+    // Spreads the bits of a string's hash code so similar strings do not cluster in the table.
+    private static int mix(final int hashCode) {
+
+        int h = hashCode;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+
+        return h;
+
+    }
+
+}
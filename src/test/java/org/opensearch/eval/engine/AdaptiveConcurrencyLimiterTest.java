@@ -0,0 +1,111 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.engine;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    public void testAdditiveIncrease() throws Exception {
+
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 5);
+
+        // About a limit's worth of successful requests increases the limit by one.
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire();
+            limiter.release(1_000_000, false);
+        }
+
+        Assertions.assertEquals(5, limiter.getLimit());
+
+        // The limit does not increase past the max.
+        for (int i = 0; i < 20; i++) {
+            limiter.acquire();
+            limiter.release(1_000_000, false);
+        }
+
+        Assertions.assertEquals(5, limiter.getLimit());
+        Assertions.assertEquals(0, limiter.getInFlight());
+
+    }
+
+    @Test
+    public void testMultiplicativeDecreaseOnRejection() throws Exception {
+
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(16, 1, 64);
+
+        limiter.acquire();
+        limiter.release(1_000_000, true);
+
+        Assertions.assertEquals(8, limiter.getLimit());
+
+        // Another rejection right after the decrease does not decrease the limit again.
+        limiter.acquire();
+        limiter.release(1_000_000, true);
+
+        Assertions.assertEquals(8, limiter.getLimit());
+
+    }
+
+    @Test
+    public void testDecreaseOnRisingLatency() throws Exception {
+
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(32, 1, 32);
+
+        // Establish the baseline latency.
+        for (int i = 0; i < 50; i++) {
+            limiter.acquire();
+            limiter.release(1_000_000, false);
+        }
+
+        Assertions.assertEquals(32, limiter.getLimit());
+
+        // A window of much slower requests.
+        for (int i = 0; i < 50; i++) {
+            limiter.acquire();
+            limiter.release(10_000_000, false);
+        }
+
+        Assertions.assertTrue(limiter.getLimit() <= 16);
+
+    }
+
+    @Test
+    public void testLatencyIsComparedWithinRequestType() throws Exception {
+
+        final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(32, 1, 32);
+
+        // Establish the baseline latency of searches.
+        for (int i = 0; i < 50; i++) {
+            limiter.acquire();
+            limiter.release("POST _msearch", 1_000_000, false);
+        }
+
+        // Bulk requests are much slower than searches, but that is their own baseline.
+        for (int i = 0; i < 50; i++) {
+            limiter.acquire();
+            limiter.release("POST _bulk", 10_000_000, false);
+        }
+
+        Assertions.assertEquals(32, limiter.getLimit());
+
+        // Bulk requests that are much slower than before.
+        for (int i = 0; i < 50; i++) {
+            limiter.acquire();
+            limiter.release("POST _bulk", 40_000_000, false);
+        }
+
+        Assertions.assertTrue(limiter.getLimit() <= 16);
+        Assertions.assertEquals("limit: " + limiter.getLimit() + ", in flight: 0", limiter.toString());
+
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.engine;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.opensearch.eval.model.QueryRun;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class SearchResponseParserTest {
+
+    private static final String SEARCH_RESPONSE = "{\"took\": 5, \"timed_out\": false, " +
+            "\"_shards\": {\"total\": 1, \"successful\": 1, \"skipped\": 0, \"failed\": 0}, " +
+            "\"hits\": {\"total\": {\"value\": 125, \"relation\": \"eq\"}, \"max_score\": 1.5, \"hits\": [" +
+            "{\"_index\": \"ecommerce\", \"_id\": \"1\", \"_score\": 1.5, \"_source\": {\"embedding\": [0.1, 0.2, 0.3], \"asin\": \"B001\", \"nested\": {\"asin\": \"X\"}}}, " +
+            "{\"_index\": \"ecommerce\", \"_id\": \"2\", \"_score\": 1.2, \"_source\": {\"asin\": \"B002\"}}, " +
+            "{\"_index\": \"ecommerce\", \"_id\": \"3\", \"_score\": 1.1, \"_source\": {\"title\": \"no id field\"}}, " +
+            "{\"_index\": \"ecommerce\", \"_id\": \"4\", \"_score\": 1.0, \"fields\": {\"asin\": [\"B004\", \"B005\"]}}" +
+            "]}}";
+
+    @Test
+    public void testParseSearchResponse() throws Exception {
+
+        final QueryRun queryRun = new SearchResponseParser("asin").parseSearchResponse(toInputStream(SEARCH_RESPONSE));
+
+        Assertions.assertFalse(queryRun.hasError());
+        Assertions.assertEquals(125, queryRun.getNumberOfResults());
+        Assertions.assertEquals(List.of("B001", "B002", "B004"), queryRun.getDocumentIds());
+
+    }
+
+    @Test
+    public void testParseSearchResponseWithDocumentId() throws Exception {
+
+        final QueryRun queryRun = new SearchResponseParser("_id").parseSearchResponse(toInputStream(SEARCH_RESPONSE));
+
+        Assertions.assertEquals(List.of("1", "2", "3", "4"), queryRun.getDocumentIds());
+
+    }
+
+    @Test
+    public void testParseMultiSearchResponse() throws Exception {
+
+        final String multiSearchResponse = "{\"took\": 10, \"responses\": [" +
+                SEARCH_RESPONSE + ", " +
+                "{\"error\": {\"root_cause\": [{\"type\": \"parsing_exception\", \"reason\": \"unknown query\"}], \"type\": \"parsing_exception\", \"reason\": \"unknown query [foo]\"}, \"status\": 400}, " +
+                "{\"hits\": {\"total\": 0, \"hits\": []}}" +
+                "]}";
+
+        final List<QueryRun> queryRuns = new SearchResponseParser("asin").parseMultiSearchResponse(toInputStream(multiSearchResponse));
+
+        Assertions.assertEquals(3, queryRuns.size());
+
+        Assertions.assertEquals(List.of("B001", "B002", "B004"), queryRuns.get(0).getDocumentIds());
+
+        Assertions.assertTrue(queryRuns.get(1).hasError());
+        Assertions.assertEquals("unknown query [foo]", queryRuns.get(1).getError());
+
+        Assertions.assertFalse(queryRuns.get(2).hasError());
+        Assertions.assertEquals(0, queryRuns.get(2).getNumberOfResults());
+        Assertions.assertTrue(queryRuns.get(2).getDocumentIds().isEmpty());
+
+    }
+
+    private static InputStream toInputStream(final String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.judgments.clickmodel.coec;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.opensearch.eval.engine.JudgmentWriter;
+import org.opensearch.eval.judgments.clickmodel.JudgmentParameters;
+import org.opensearch.eval.model.ClickStatistics;
+import org.opensearch.eval.model.dao.judgments.Judgment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class CoecClickModelTest {
+
+    private static final int MAX_RANK = 10;
+
+    @Test
+    public void testParallelIsIdenticalToSequential() throws Exception {
+
+        final ClickStatistics clickStatistics = new ClickStatistics(MAX_RANK);
+        final Random random = new Random(3);
+
+        for (int i = 0; i < 200_000; i++) {
+
+            final int rank = random.nextInt(MAX_RANK);
+            final String actionName = random.nextInt(5) == 0 ? "click" : "impression";
+
+            clickStatistics.logRankEvent(actionName, rank);
+            clickStatistics.logEvent("query " + random.nextInt(5_000), "doc" + random.nextInt(50), actionName, rank);
+
+        }
+
+        final List<String> sequential = calculateCoec(clickStatistics, 1);
+        final List<String> parallel = calculateCoec(clickStatistics, 4);
+
+        Assertions.assertEquals(clickStatistics.getPairCount(), sequential.size());
+        Assertions.assertEquals(sequential, parallel);
+
+    }
+
+    // Gets the judgments calculated with a parallelism, in the order they are written.
+    private static List<String> calculateCoec(final ClickStatistics clickStatistics, final int parallelism) throws Exception {
+
+        final JudgmentParameters judgmentParameters = new JudgmentParameters("implicit", "coec", "test", "test",
+                Map.of(CoecClickModelParameters.PARALLELISM_PARAMETER, parallelism));
+
+        final CoecClickModel coecClickModel = new CoecClickModel(null, new CoecClickModelParameters(MAX_RANK, judgmentParameters));
+
+        final List<String> judgments = new ArrayList<>();
+
+        coecClickModel.calculateCoec(clickStatistics.getRankAggregatedClickThrough(), clickStatistics, new JudgmentWriter() {
+
+            @Override
+            public void write(final Judgment judgment) {
+                // The exact bits of the judgment are compared.
+                judgments.add(judgment.getQueryId() + "\t" + judgment.getUserQuery() + "\t" + judgment.getDocument() + "\t"
+                        + Double.doubleToLongBits(judgment.getJudgment()));
+            }
+
+            @Override
+            public String getJudgmentSetId() {
+                return "test";
+            }
+
+            @Override
+            public long getCount() {
+                return judgments.size();
+            }
+
+            @Override
+            public void close() {
+
+            }
+
+        });
+
+        return judgments;
+
+    }
+
+}
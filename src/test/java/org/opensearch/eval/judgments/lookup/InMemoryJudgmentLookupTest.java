@@ -0,0 +1,99 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.judgments.lookup;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class InMemoryJudgmentLookupTest {
+
+    @Test
+    public void testGetJudgment() {
+
+        final InMemoryJudgmentLookup judgmentLookup = new InMemoryJudgmentLookup();
+
+        Assertions.assertTrue(judgmentLookup.put("computer", "doc1", 0.5));
+        Assertions.assertTrue(judgmentLookup.put("computer", "doc2", 0.25));
+        Assertions.assertTrue(judgmentLookup.put("laptop", "doc1", 0.75));
+
+        Assertions.assertEquals(0.5, judgmentLookup.getJudgment("computer", "doc1"));
+        Assertions.assertEquals(0.25, judgmentLookup.getJudgment("computer", "doc2"));
+        Assertions.assertEquals(0.75, judgmentLookup.getJudgment("laptop", "doc1"));
+
+        Assertions.assertTrue(Double.isNaN(judgmentLookup.getJudgment("laptop", "doc2")));
+        Assertions.assertTrue(Double.isNaN(judgmentLookup.getJudgment("tablet", "doc1")));
+        Assertions.assertTrue(Double.isNaN(judgmentLookup.getJudgment("computer", "doc3")));
+
+        Assertions.assertEquals(3, judgmentLookup.size());
+
+    }
+
+    @Test
+    public void testPutReplacesJudgment() {
+
+        final InMemoryJudgmentLookup judgmentLookup = new InMemoryJudgmentLookup();
+
+        judgmentLookup.put("computer", "doc1", 0.5);
+        judgmentLookup.put("computer", "doc1", 0.1);
+
+        Assertions.assertEquals(0.1, judgmentLookup.getJudgment("computer", "doc1"));
+        Assertions.assertEquals(1, judgmentLookup.size());
+
+    }
+
+    @Test
+    public void testGetJudgmentsAfterResize() throws Exception {
+
+        final InMemoryJudgmentLookup judgmentLookup = new InMemoryJudgmentLookup();
+
+        for (int q = 0; q < 100; q++) {
+            for (int d = 0; d < 100; d++) {
+                judgmentLookup.put("query" + q, "doc" + d, q * 100 + d);
+            }
+        }
+
+        Assertions.assertEquals(10000, judgmentLookup.size());
+        Assertions.assertEquals(4250.0, judgmentLookup.getJudgment("query42", "doc50"));
+
+        final double[] judgments = judgmentLookup.getJudgments("query7", List.of("doc1", "doc99", "doc100"));
+
+        Assertions.assertEquals(701.0, judgments[0]);
+        Assertions.assertEquals(799.0, judgments[1]);
+        Assertions.assertTrue(Double.isNaN(judgments[2]));
+
+    }
+
+    @Test
+    public void testMemoryBudget() {
+
+        final InMemoryJudgmentLookup judgmentLookup = new InMemoryJudgmentLookup(64 * 1024);
+
+        int added = 0;
+
+        for (int i = 0; i < 10000; i++) {
+            if (judgmentLookup.put("computer", "doc" + i, 1.0)) {
+                added++;
+            } else {
+                break;
+            }
+        }
+
+        Assertions.assertTrue(judgmentLookup.isFull());
+        Assertions.assertTrue(added > 0 && added < 10000);
+        Assertions.assertTrue(judgmentLookup.getEstimatedBytes() <= 64 * 1024);
+
+        // The judgments added before the budget was reached are still available.
+        Assertions.assertEquals(1.0, judgmentLookup.getJudgment("computer", "doc0"));
+        Assertions.assertFalse(judgmentLookup.put("computer", "doc0", 2.0));
+
+    }
+
+}
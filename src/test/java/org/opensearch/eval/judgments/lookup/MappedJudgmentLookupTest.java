@@ -0,0 +1,146 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.judgments.lookup;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class MappedJudgmentLookupTest {
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+
+        final Path path = Files.createTempFile("judgments", ".judgments");
+
+        try {
+
+            final JudgmentFileWriter judgmentFileWriter = new JudgmentFileWriter("judgment-set-1");
+            judgmentFileWriter.add("laptop", "doc2", 0.75);
+            judgmentFileWriter.add("computer", "doc1", 0.5);
+            judgmentFileWriter.add("computer", "doc2", 0.25);
+            judgmentFileWriter.add("caf\u00e9", "doc3", 1.5);
+
+            // The highest judgment is kept for a duplicate.
+            judgmentFileWriter.add("computer", "doc1", 0.4);
+
+            Assertions.assertEquals(4, judgmentFileWriter.write(path));
+
+            try (final MappedJudgmentLookup judgmentLookup = new MappedJudgmentLookup(path)) {
+
+                Assertions.assertEquals("judgment-set-1", judgmentLookup.getJudgmentSetId());
+                Assertions.assertEquals(4, judgmentLookup.size());
+
+                Assertions.assertEquals(0.5, judgmentLookup.getJudgment("computer", "doc1"));
+                Assertions.assertEquals(0.25, judgmentLookup.getJudgment("computer", "doc2"));
+                Assertions.assertEquals(0.75, judgmentLookup.getJudgment("laptop", "doc2"));
+                Assertions.assertEquals(1.5, judgmentLookup.getJudgment("caf\u00e9", "doc3"));
+
+                Assertions.assertTrue(Double.isNaN(judgmentLookup.getJudgment("laptop", "doc1")));
+                Assertions.assertTrue(Double.isNaN(judgmentLookup.getJudgment("cafe", "doc3")));
+                Assertions.assertTrue(Double.isNaN(judgmentLookup.getJudgment("computer", "doc4")));
+
+                final double[] judgments = judgmentLookup.getJudgments("computer", List.of("doc2", "doc3", "doc1"));
+
+                Assertions.assertEquals(0.25, judgments[0]);
+                Assertions.assertTrue(Double.isNaN(judgments[1]));
+                Assertions.assertEquals(0.5, judgments[2]);
+
+            }
+
+        } finally {
+
+            Files.deleteIfExists(path);
+
+        }
+
+    }
+
+    @Test
+    public void testMultiByteUserQueries() throws Exception {
+
+        // One, two, three, and four byte characters, prefixes of each other, and an unpaired surrogate.
+        final List<String> userQueries = List.of("a", "ab", "\u00e9", "\u00e9t\u00e9", "\u20ac", "\u20ac5", "\ud83d\ude00",
+                "\ud83d\ude00\ud83d\ude01", "\uffff", "bad\ud83d", "");
+
+        final Path path = Files.createTempFile("judgments", ".judgments");
+
+        try {
+
+            final JudgmentFileWriter judgmentFileWriter = new JudgmentFileWriter("judgment-set-3");
+
+            for (int i = 0; i < userQueries.size(); i++) {
+                judgmentFileWriter.add(userQueries.get(i), "doc1", i);
+            }
+
+            judgmentFileWriter.write(path);
+
+            try (final MappedJudgmentLookup judgmentLookup = new MappedJudgmentLookup(path)) {
+
+                for (int i = 0; i < userQueries.size(); i++) {
+                    Assertions.assertEquals(i, judgmentLookup.getJudgment(userQueries.get(i), "doc1"));
+                }
+
+                // The unpaired surrogate is stored as '?' the same as String.getBytes encodes it.
+                Assertions.assertEquals(9, judgmentLookup.getJudgment("bad?", "doc1"));
+
+                Assertions.assertTrue(Double.isNaN(judgmentLookup.getJudgment("\u00e9t", "doc1")));
+                Assertions.assertTrue(Double.isNaN(judgmentLookup.getJudgment("\ud83d\ude01", "doc1")));
+                Assertions.assertTrue(Double.isNaN(judgmentLookup.getJudgment("abc", "doc1")));
+
+            }
+
+        } finally {
+
+            Files.deleteIfExists(path);
+
+        }
+
+    }
+
+    @Test
+    public void testManyJudgments() throws Exception {
+
+        final Path path = Files.createTempFile("judgments", ".judgments");
+
+        try {
+
+            final JudgmentFileWriter judgmentFileWriter = new JudgmentFileWriter("judgment-set-2", 10000);
+
+            // Add the judgments in reverse order so the writer has to sort them.
+            for (int q = 199; q >= 0; q--) {
+                for (int d = 49; d >= 0; d--) {
+                    judgmentFileWriter.add("query" + q, "doc" + d, q * 50 + d);
+                }
+            }
+
+            Assertions.assertEquals(10000, judgmentFileWriter.write(path));
+
+            try (final MappedJudgmentLookup judgmentLookup = new MappedJudgmentLookup(path)) {
+
+                for (int q = 0; q < 200; q++) {
+                    for (int d = 0; d < 50; d++) {
+                        Assertions.assertEquals(q * 50 + d, judgmentLookup.getJudgment("query" + q, "doc" + d));
+                    }
+                }
+
+            }
+
+        } finally {
+
+            Files.deleteIfExists(path);
+
+        }
+
+    }
+
+}
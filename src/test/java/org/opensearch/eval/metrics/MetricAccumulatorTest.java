@@ -0,0 +1,74 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.metrics;
+
+import org.apache.commons.math3.stat.descriptive.moment.Variance;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MetricAccumulatorTest {
+
+    @Test
+    public void testMeanIsSumDividedByCount() {
+
+        final double[] values = {0.7151195094457645, 0.1, 0.0, 1.0, 0.3333333333333333, 0.9};
+
+        final MetricAccumulator metricAccumulator = new MetricAccumulator("ndcg");
+
+        double sum = 0;
+        for (final double value : values) {
+            metricAccumulator.add(value);
+            sum += value;
+        }
+
+        assertEquals(values.length, metricAccumulator.getCount());
+        assertEquals(sum / values.length, metricAccumulator.getMean(), 0.0);
+        assertEquals(new Variance().evaluate(values), metricAccumulator.getVariance(), 1e-15);
+        assertEquals(0.0, metricAccumulator.getMin(), 0.0);
+        assertEquals(1.0, metricAccumulator.getMax(), 0.0);
+
+    }
+
+    @Test
+    public void testPercentiles() {
+
+        final Random random = new Random(42);
+        final MetricAccumulator metricAccumulator = new MetricAccumulator("precision");
+
+        for (int i = 0; i < 100_000; i++) {
+            metricAccumulator.add(random.nextDouble());
+        }
+
+        assertEquals(0.1, metricAccumulator.getPercentile(10), 0.01);
+        assertEquals(0.5, metricAccumulator.getPercentile(50), 0.01);
+        assertEquals(0.9, metricAccumulator.getPercentile(90), 0.01);
+        assertEquals(1.0 / 12, metricAccumulator.getVariance(), 0.001);
+
+        assertThrows(IllegalArgumentException.class, () -> metricAccumulator.getPercentile(99));
+
+    }
+
+    @Test
+    public void testEmpty() {
+
+        final MetricAccumulator metricAccumulator = new MetricAccumulator("dcg");
+
+        assertEquals(0, metricAccumulator.getCount());
+        assertTrue(Double.isNaN(metricAccumulator.getMean()));
+        assertTrue(Double.isNaN(metricAccumulator.getVariance()));
+        assertTrue(Double.isNaN(metricAccumulator.getPercentile(50)));
+
+    }
+
+}
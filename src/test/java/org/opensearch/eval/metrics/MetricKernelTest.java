@@ -0,0 +1,106 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class MetricKernelTest {
+
+    @Test
+    public void testEvaluate() {
+
+        final double[] relevanceScores = {1.0, 2.0, 3.0, 1.0, 2.0, 3.0, 1.0, 2.0, 3.0, 0.0};
+
+        final MetricKernel metricKernel = new MetricKernel(10, 1.0);
+        metricKernel.evaluate(relevanceScores, relevanceScores.length);
+
+        assertEquals(13.864412483585935, metricKernel.getDcg(), 0.0);
+        assertEquals(0.7151195094457645, metricKernel.getNdcg(), 0.0);
+        assertEquals(0.9, metricKernel.getPrecision(), 0.0);
+
+        // The relevance scores are not reordered.
+        assertEquals(1.0, relevanceScores[0], 0.0);
+        assertEquals(0.0, relevanceScores[9], 0.0);
+
+        assertEquals(metricKernel.getDcg(), new DcgSearchMetric(metricKernel, relevanceScores).getValue(), 0.0);
+        assertEquals(metricKernel.getNdcg(), new NdcgSearchMetric(metricKernel, relevanceScores).getValue(), 0.0);
+        assertEquals(metricKernel.getPrecision(), new PrecisionSearchMetric(metricKernel, relevanceScores).getValue(), 0.0);
+
+    }
+
+    @Test
+    public void testIdenticalToPerMetricCalculation() {
+
+        final Random random = new Random(11);
+        final MetricKernel metricKernel = new MetricKernel(20, 0.5);
+
+        for (int q = 0; q < 1000; q++) {
+
+            // A mix of integer and click model judgments, sometimes fewer than k.
+            final int length = random.nextInt(21);
+            final double[] relevanceScores = new double[length];
+
+            for (int i = 0; i < length; i++) {
+                relevanceScores[i] = random.nextBoolean() ? random.nextInt(4) : random.nextDouble();
+            }
+
+            final List<Double> list = new ArrayList<>();
+            for (final double relevanceScore : relevanceScores) {
+                list.add(relevanceScore);
+            }
+
+            metricKernel.evaluate(relevanceScores, length);
+
+            assertEquals(dcg(list), metricKernel.getDcg(), 0.0);
+            assertEquals(ndcg(list), metricKernel.getNdcg(), 0.0);
+            assertEquals(new PrecisionSearchMetric(20, 0.5, list).calculate(), metricKernel.getPrecision(), 0.0);
+
+        }
+
+    }
+
+    // The calculation of DCG before the kernel.
+    private static double dcg(final List<Double> relevanceScores) {
+
+        double dcg = 0.0;
+
+        for (int i = 0; i < relevanceScores.size(); i++) {
+            dcg += (Math.pow(2, relevanceScores.get(i)) - 1) / (Math.log(i + 2) / Math.log(2));
+        }
+
+        return dcg;
+
+    }
+
+    // The calculation of NDCG before the kernel.
+    private static double ndcg(final List<Double> relevanceScores) {
+
+        final double dcg = dcg(relevanceScores);
+
+        if (dcg == 0) {
+            return 0;
+        }
+
+        final List<Double> idealRelevanceScores = new ArrayList<>(relevanceScores);
+        idealRelevanceScores.sort(Collections.reverseOrder());
+
+        final double idcg = dcg(idealRelevanceScores);
+
+        return idcg == 0 ? 0 : dcg / idcg;
+
+    }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Random;
+
+public class ClickStatisticsSnapshotTest {
+
+    @Test
+    public void testIncrementalStatisticsAreIdentical() throws Exception {
+
+        final int maxRank = 5;
+        final int eventCount = 5000;
+        final Random random = new Random(3);
+
+        final String[] userQueries = new String[eventCount];
+        final String[] objectIds = new String[eventCount];
+        final String[] actionNames = new String[eventCount];
+        final int[] ranks = new int[eventCount];
+
+        for (int i = 0; i < eventCount; i++) {
+            userQueries[i] = "query" + random.nextInt(100);
+            objectIds[i] = "doc" + random.nextInt(50);
+            actionNames[i] = random.nextInt(4) == 0 ? "click" : "impression";
+            ranks[i] = random.nextInt(maxRank + 1);
+        }
+
+        // The statistics of one run over all the events.
+        final ClickStatisticsSnapshot all = new ClickStatisticsSnapshot(maxRank);
+        for (int i = 0; i < eventCount; i++) {
+            logEvent(all, userQueries[i], objectIds[i], actionNames[i], ranks[i], i);
+        }
+
+        // The statistics of a run over the first events that are saved, then read and added to by a second run.
+        final ClickStatisticsSnapshot first = new ClickStatisticsSnapshot(maxRank);
+        for (int i = 0; i < 3000; i++) {
+            logEvent(first, userQueries[i], objectIds[i], actionNames[i], ranks[i], i);
+        }
+
+        final Path directory = Files.createTempDirectory("click-statistics-snapshot");
+        final Path path = directory.resolve("coec.state");
+
+        try {
+
+            first.write(path);
+
+            final ClickStatisticsSnapshot second = ClickStatisticsSnapshot.read(path);
+            Assertions.assertEquals(timestamp(2999), second.getWatermark());
+            Assertions.assertEquals(3000, second.getEventCount());
+
+            for (int i = 3000; i < eventCount; i++) {
+                logEvent(second, userQueries[i], objectIds[i], actionNames[i], ranks[i], i);
+            }
+
+            Assertions.assertEquals(all.getWatermark(), second.getWatermark());
+            Assertions.assertEquals(all.getEventCount(), second.getEventCount());
+
+            final ClickStatistics expected = all.getClickStatistics();
+            final ClickStatistics actual = second.getClickStatistics();
+
+            Assertions.assertEquals(expected.getRankAggregatedClickThrough(), actual.getRankAggregatedClickThrough());
+            Assertions.assertEquals(expected.getUserQueryCount(), actual.getUserQueryCount());
+            Assertions.assertEquals(expected.getPairCount(), actual.getPairCount());
+
+            for (int pair = 0; pair < expected.getPairCount(); pair++) {
+
+                Assertions.assertEquals(expected.getUserQuery(expected.getUserQueryId(pair)), actual.getUserQuery(actual.getUserQueryId(pair)));
+                Assertions.assertEquals(expected.getObjectId(pair), actual.getObjectId(pair));
+                Assertions.assertEquals(expected.getClicks(pair), actual.getClicks(pair));
+                Assertions.assertEquals(expected.getImpressions(pair), actual.getImpressions(pair));
+
+                for (int rank = 0; rank < maxRank; rank++) {
+                    Assertions.assertEquals(expected.getImpressionsAtRank(pair, rank), actual.getImpressionsAtRank(pair, rank));
+                }
+
+            }
+
+        } finally {
+
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(directory);
+
+        }
+
+    }
+
+    @Test
+    public void testWatermark() {
+
+        final ClickStatisticsSnapshot clickStatisticsSnapshot = new ClickStatisticsSnapshot(10);
+        Assertions.assertNull(clickStatisticsSnapshot.getWatermark());
+
+        clickStatisticsSnapshot.advanceWatermark("2025-01-02T00:00:00.000Z");
+        clickStatisticsSnapshot.advanceWatermark("2025-01-01T00:00:00.000Z");
+        Assertions.assertEquals("2025-01-02T00:00:00.000Z", clickStatisticsSnapshot.getWatermark());
+
+        // Events without a timestamp are rejected and do not count.
+        Assertions.assertThrows(IllegalArgumentException.class, () -> clickStatisticsSnapshot.advanceWatermark(null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> clickStatisticsSnapshot.advanceWatermark("not a timestamp"));
+        Assertions.assertEquals("2025-01-02T00:00:00.000Z", clickStatisticsSnapshot.getWatermark());
+        Assertions.assertEquals(2, clickStatisticsSnapshot.getEventCount());
+
+    }
+
+    // Logs an event the way the search engine does when reading the events.
+    private static void logEvent(final ClickStatisticsSnapshot clickStatisticsSnapshot, final String userQuery, final String objectId,
+                                 final String actionName, final int rank, final int i) {
+
+        clickStatisticsSnapshot.advanceWatermark(timestamp(i));
+        clickStatisticsSnapshot.getClickStatistics().logRankEvent(actionName, rank);
+        clickStatisticsSnapshot.getClickStatistics().logEvent(userQuery, objectId, actionName, rank);
+
+    }
+
+    private static String timestamp(final int i) {
+        return Instant.ofEpochSecond(1735689600L + i).toString();
+    }
+
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+public class ClickStatisticsTest {
+
+    @Test
+    public void testClickthroughRates() {
+
+        final ClickStatistics clickStatistics = new ClickStatistics(10);
+
+        clickStatistics.logEvent("computer", "doc1", "impression", 0);
+        clickStatistics.logEvent("computer", "doc1", "impression", 0);
+        clickStatistics.logEvent("computer", "doc1", "impression", 2);
+        clickStatistics.logEvent("computer", "doc1", "click", 0);
+        clickStatistics.logEvent("computer", "doc2", "impression", 1);
+
+        Assertions.assertFalse(clickStatistics.logEvent("computer", "doc2", "add_to_cart", 1));
+
+        final Map<String, Set<ClickthroughRate>> clickthroughRates = clickStatistics.getClickthroughRates();
+        Assertions.assertEquals(1, clickthroughRates.size());
+        Assertions.assertEquals(2, clickthroughRates.get("computer").size());
+
+        final ClickthroughRate doc1 = clickthroughRates.get("computer").stream().filter(c -> c.getObjectId().equals("doc1")).findFirst().orElseThrow();
+        Assertions.assertEquals(1, doc1.getClicks());
+        Assertions.assertEquals(3, doc1.getImpressions());
+        Assertions.assertEquals(2, doc1.getImpressionsAtRank(0));
+        Assertions.assertEquals(0, doc1.getImpressionsAtRank(1));
+        Assertions.assertEquals(1, doc1.getImpressionsAtRank(2));
+
+    }
+
+    @Test
+    public void testRankAggregatedClickThrough() {
+
+        final ClickStatistics clickStatistics = new ClickStatistics(3);
+
+        clickStatistics.logRankEvent("impression", 0);
+        clickStatistics.logRankEvent("impression", 0);
+        clickStatistics.logRankEvent("impression", 0);
+        clickStatistics.logRankEvent("impression", 0);
+        clickStatistics.logRankEvent("click", 0);
+        clickStatistics.logRankEvent("click", 2);
+
+        // Events beyond the max rank are ignored.
+        clickStatistics.logRankEvent("impression", 3);
+
+        final Map<Integer, Double> rankAggregatedClickThrough = clickStatistics.getRankAggregatedClickThrough();
+
+        Assertions.assertEquals(3, rankAggregatedClickThrough.size());
+        Assertions.assertEquals(0.25, rankAggregatedClickThrough.get(0), 0.0);
+        Assertions.assertEquals(0.0, rankAggregatedClickThrough.get(1), 0.0);
+        Assertions.assertEquals(0.0, rankAggregatedClickThrough.get(2), 0.0);
+
+    }
+
+    @Test
+    public void testPairsByUserQuery() {
+
+        final ClickStatistics clickStatistics = new ClickStatistics(10);
+
+        clickStatistics.logEvent("computer", "doc1", "impression", 0);
+        clickStatistics.logEvent("laptop", "doc1", "impression", 1);
+        clickStatistics.logEvent("computer", "doc2", "impression", 1);
+        clickStatistics.logEvent("computer", "doc1", "click", 0);
+
+        // A click without impressions counts as an impression.
+        clickStatistics.logEvent("laptop", "doc3", "click", 4);
+
+        Assertions.assertEquals(2, clickStatistics.getUserQueryCount());
+        Assertions.assertEquals(4, clickStatistics.getPairCount());
+        Assertions.assertEquals("computer", clickStatistics.getUserQuery(0));
+        Assertions.assertEquals("laptop", clickStatistics.getUserQuery(1));
+
+        final int[][] pairsByUserQuery = clickStatistics.getPairsByUserQuery();
+
+        Assertions.assertEquals(2, pairsByUserQuery[0].length);
+        Assertions.assertEquals("doc1", clickStatistics.getObjectId(pairsByUserQuery[0][0]));
+        Assertions.assertEquals("doc2", clickStatistics.getObjectId(pairsByUserQuery[0][1]));
+        Assertions.assertEquals(1, clickStatistics.getClicks(pairsByUserQuery[0][0]));
+        Assertions.assertEquals(1, clickStatistics.getImpressionsAtRank(pairsByUserQuery[0][0], 0));
+
+        Assertions.assertEquals(2, pairsByUserQuery[1].length);
+        Assertions.assertEquals("doc3", clickStatistics.getObjectId(pairsByUserQuery[1][1]));
+        Assertions.assertEquals(1, clickStatistics.getImpressions(pairsByUserQuery[1][1]));
+        Assertions.assertEquals(0, clickStatistics.getImpressionsAtRank(pairsByUserQuery[1][1], 4));
+
+    }
+
+    @Test
+    public void testAggregatedCounts() {
+
+        final ClickStatistics clickStatistics = new ClickStatistics(10);
+
+        // The buckets of a composite aggregation sorted by user query, object, action and position, so a pair's
+        // click bucket is before its impression buckets.
+        clickStatistics.logEvents("computer", "doc1", "click", 0, 2);
+        clickStatistics.logEvents("computer", "doc1", "impression", 0, 5);
+        clickStatistics.logEvents("computer", "doc1", "impression", 1, 3);
+        clickStatistics.logEvents("computer", "doc2", "click", 2, 4);
+        clickStatistics.applyClickSafeguard();
+
+        // The same events logged one at a time, impressions first.
+        final ClickStatistics expected = new ClickStatistics(10);
+        for (int i = 0; i < 5; i++) {
+            expected.logEvent("computer", "doc1", "impression", 0);
+        }
+        for (int i = 0; i < 3; i++) {
+            expected.logEvent("computer", "doc1", "impression", 1);
+        }
+        for (int i = 0; i < 2; i++) {
+            expected.logEvent("computer", "doc1", "click", 0);
+        }
+
+        Assertions.assertEquals(2, clickStatistics.getClicks(0));
+        Assertions.assertEquals(8, clickStatistics.getImpressions(0));
+        Assertions.assertEquals(expected.getImpressions(0), clickStatistics.getImpressions(0));
+        Assertions.assertEquals(5, clickStatistics.getImpressionsAtRank(0, 0));
+
+        // A pair with clicks and no impressions gets its clicks as impressions.
+        Assertions.assertEquals(4, clickStatistics.getClicks(1));
+        Assertions.assertEquals(4, clickStatistics.getImpressions(1));
+
+    }
+
+    @Test
+    public void testManyPairs() {
+
+        final ClickStatistics clickStatistics = new ClickStatistics(3);
+
+        for (int q = 0; q < 100; q++) {
+            for (int d = 0; d < 100; d++) {
+                clickStatistics.logEvent("query " + q, "doc" + d, "impression", d % 3);
+                clickStatistics.logEvent("query " + q, "doc" + d, "impression", d % 3);
+            }
+        }
+
+        Assertions.assertEquals(10_000, clickStatistics.getPairCount());
+
+        final Map<String, Set<ClickthroughRate>> clickthroughRates = clickStatistics.getClickthroughRates();
+        Assertions.assertEquals(100, clickthroughRates.size());
+
+        for (final Set<ClickthroughRate> ctrs : clickthroughRates.values()) {
+            Assertions.assertEquals(100, ctrs.size());
+            for (final ClickthroughRate ctr : ctrs) {
+                Assertions.assertEquals(2, ctr.getImpressions());
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public class SpillingClickStatisticsTest {
+
+    @Test
+    public void testMergedStatisticsAreIdentical() throws Exception {
+        assertMergedStatisticsAreIdentical(SpillingClickStatistics.DEFAULT_MAX_MERGE_FAN_IN);
+    }
+
+    @Test
+    public void testMergedStatisticsAreIdenticalWithIntermediateMerges() throws Exception {
+        // Several spills per group so the intermediate merges combine the records of the same pairs.
+        assertMergedStatisticsAreIdentical(3);
+    }
+
+    @Test
+    public void testReservedBytesCountTowardBudget() throws Exception {
+
+        final Path directory = Files.createTempDirectory("spilling-click-statistics");
+
+        try (final SpillingClickStatistics spillingClickStatistics = new SpillingClickStatistics(10, 1024 * 1024, directory)) {
+
+            Assertions.assertThrows(IllegalStateException.class, () -> spillingClickStatistics.setReservedBytes(1024 * 1024));
+
+            spillingClickStatistics.setReservedBytes(1024 * 1024 - 1);
+            spillingClickStatistics.logEvent("computer", "doc1", "impression", 0);
+
+            // With almost all of the budget reserved, the first pair is spilled.
+            Assertions.assertEquals(1, spillingClickStatistics.getSpillCount());
+
+            spillingClickStatistics.setReservedBytes(0);
+            spillingClickStatistics.logEvent("laptop", "doc2", "impression", 1);
+
+            Assertions.assertEquals(1, spillingClickStatistics.getSpillCount());
+
+        }
+
+        Files.delete(directory);
+
+    }
+
+    private void assertMergedStatisticsAreIdentical(final int maxMergeFanIn) throws Exception {
+
+        final int maxRank = 5;
+        final Random random = new Random(5);
+
+        final ClickStatistics expected = new ClickStatistics(maxRank);
+        final Path directory = Files.createTempDirectory("spilling-click-statistics");
+
+        try (final SpillingClickStatistics spillingClickStatistics = new SpillingClickStatistics(maxRank, 512 * 1024, directory, maxMergeFanIn)) {
+
+            // Enough pairs to spill several times, with clicks often before any impressions so the safeguard applies.
+            for (int i = 0; i < 200000; i++) {
+
+                final String userQuery = "query" + random.nextInt(2000);
+                final String objectId = "doc" + random.nextInt(40);
+                final String actionName = random.nextInt(3) == 0 ? "click" : "impression";
+                final int rank = random.nextInt(maxRank + 1);
+
+                expected.logRankEvent(actionName, rank);
+                expected.logEvent(userQuery, objectId, actionName, rank);
+
+                spillingClickStatistics.logRankEvent(actionName, rank);
+                spillingClickStatistics.logEvent(userQuery, objectId, actionName, rank);
+
+            }
+
+            Assertions.assertTrue(spillingClickStatistics.getSpillCount() > 1);
+            Assertions.assertEquals(expected.getRankAggregatedClickThrough(), spillingClickStatistics.getRankAggregatedClickThrough());
+
+            final Map<String, Integer> expectedPairs = new HashMap<>();
+            for (int pair = 0; pair < expected.getPairCount(); pair++) {
+                expectedPairs.put(expected.getUserQuery(expected.getUserQueryId(pair)) + "\0" + expected.getObjectId(pair), pair);
+            }
+
+            final Set<String> userQueries = new HashSet<>();
+            final int[] chunks = {0};
+            final int[] pairCount = {0};
+
+            spillingClickStatistics.merge((clickStatistics, userQueryOffset) -> {
+
+                Assertions.assertEquals(userQueries.size(), userQueryOffset);
+                chunks[0]++;
+
+                for (int pair = 0; pair < clickStatistics.getPairCount(); pair++) {
+
+                    final String userQuery = clickStatistics.getUserQuery(clickStatistics.getUserQueryId(pair));
+                    final int expectedPair = expectedPairs.get(userQuery + "\0" + clickStatistics.getObjectId(pair));
+
+                    Assertions.assertEquals(expected.getClicks(expectedPair), clickStatistics.getClicks(pair));
+                    Assertions.assertEquals(expected.getImpressions(expectedPair), clickStatistics.getImpressions(pair));
+
+                    for (int rank = 0; rank < maxRank; rank++) {
+                        Assertions.assertEquals(expected.getImpressionsAtRank(expectedPair, rank), clickStatistics.getImpressionsAtRank(pair, rank));
+                    }
+
+                    pairCount[0]++;
+
+                }
+
+                // Each user query is in only one chunk.
+                for (int userQueryId = 0; userQueryId < clickStatistics.getUserQueryCount(); userQueryId++) {
+                    Assertions.assertTrue(userQueries.add(clickStatistics.getUserQuery(userQueryId)));
+                }
+
+            });
+
+            Assertions.assertTrue(chunks[0] > 1);
+            Assertions.assertEquals(expected.getPairCount(), pairCount[0]);
+            Assertions.assertEquals(expected.getUserQueryCount(), userQueries.size());
+
+        }
+
+        // The spilled files are deleted.
+        try (final Stream<Path> files = Files.list(directory)) {
+            Assertions.assertEquals(0, files.count());
+        }
+
+        Files.delete(directory);
+
+    }
+
+    @Test
+    public void testNoSpill() throws Exception {
+
+        final Path directory = Files.createTempDirectory("spilling-click-statistics");
+
+        try (final SpillingClickStatistics spillingClickStatistics = new SpillingClickStatistics(10, 64 * 1024 * 1024, directory)) {
+
+            spillingClickStatistics.logEvent("computer", "doc1", "click", 0);
+            spillingClickStatistics.logEvent("computer", "doc1", "impression", 0);
+            spillingClickStatistics.logEvent("laptop", "doc2", "impression", 1);
+
+            Assertions.assertEquals(0, spillingClickStatistics.getSpillCount());
+
+            final int[] chunks = {0};
+
+            spillingClickStatistics.merge((clickStatistics, userQueryOffset) -> {
+                chunks[0]++;
+                Assertions.assertEquals(0, userQueryOffset);
+                Assertions.assertEquals(2, clickStatistics.getPairCount());
+                Assertions.assertEquals(2, clickStatistics.getImpressions(0));
+            });
+
+            Assertions.assertEquals(1, chunks[0]);
+
+        } finally {
+            Files.delete(directory);
+        }
+
+    }
+
+}
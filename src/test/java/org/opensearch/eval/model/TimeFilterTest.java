@@ -16,4 +16,23 @@ public class TimeFilterTest {
 
     }
 
+    @Test
+    public void testFromTimestamps() {
+
+        Assertions.assertFalse(TimeFilter.fromTimestamps("", "").isActive());
+        Assertions.assertFalse(TimeFilter.fromTimestamps(null, null).isActive());
+
+        final TimeFilter startOnly = TimeFilter.fromTimestamps("2025-02-01T00:00:00.000Z", null);
+        Assertions.assertTrue(startOnly.isActive());
+        Assertions.assertEquals("2025-02-01T00:00:00.000Z", startOnly.getStartTimestamp());
+        Assertions.assertEquals("", startOnly.getEndTimestamp());
+
+        final TimeFilter endOnly = TimeFilter.fromTimestamps("", "2025-02-28T23:59:59.999Z");
+        Assertions.assertEquals("", endOnly.getStartTimestamp());
+        Assertions.assertEquals("2025-02-28T23:59:59.999Z", endOnly.getEndTimestamp());
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> TimeFilter.fromTimestamps("2025-02-01", ""));
+
+    }
+
 }
@@ -0,0 +1,73 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.opensearch.eval.model.ubi.event.UbiEvent;
+
+public class UserQueryTableTest {
+
+    @Test
+    public void testUserQueries() {
+
+        final UserQueryTable userQueryTable = new UserQueryTable();
+
+        userQueryTable.put("q1", "computer");
+        userQueryTable.put("q2", new String("computer"));
+        userQueryTable.put("q3", "laptop");
+        userQueryTable.put("q4", "");
+        userQueryTable.put(null, "tablet");
+
+        Assertions.assertEquals(3, userQueryTable.size());
+        Assertions.assertEquals(2, userQueryTable.getUserQueryCount());
+
+        Assertions.assertEquals("computer", userQueryTable.get("q2"));
+        Assertions.assertSame(userQueryTable.get("q1"), userQueryTable.get("q2"));
+        Assertions.assertNull(userQueryTable.get("q4"));
+        Assertions.assertNull(userQueryTable.get(null));
+
+    }
+
+    @Test
+    public void testSizeInBytes() {
+
+        final UserQueryTable userQueryTable = new UserQueryTable();
+        Assertions.assertEquals(0, userQueryTable.getSizeInBytes());
+
+        userQueryTable.put("q1", "computer");
+        final long size = userQueryTable.getSizeInBytes();
+        Assertions.assertTrue(size > 0);
+
+        // A repeated user query only adds its query ID.
+        userQueryTable.put("q2", "computer");
+        Assertions.assertTrue(userQueryTable.getSizeInBytes() > size);
+        Assertions.assertTrue(userQueryTable.getSizeInBytes() < 2 * size);
+
+        // A repeated query ID adds nothing.
+        final long repeatedSize = userQueryTable.getSizeInBytes();
+        userQueryTable.put("q2", "computer");
+        Assertions.assertEquals(repeatedSize, userQueryTable.getSizeInBytes());
+
+    }
+
+    @Test
+    public void testResolveUsesEventUserQuery() {
+
+        final UserQueryTable userQueryTable = new UserQueryTable();
+        userQueryTable.put("q1", "computer");
+
+        final UbiEvent ubiEvent = new UbiEvent();
+        ubiEvent.setUserQuery("laptop");
+
+        Assertions.assertEquals("laptop", userQueryTable.resolve(ubiEvent));
+
+    }
+
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.model.dao.judgments;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class JudgmentTest {
+
+    @Test
+    public void testJudgmentIdIsDeterministic() {
+
+        final String id = Judgment.getJudgmentId("judgment-set-1", "computer", "doc1");
+
+        Assertions.assertEquals(id, Judgment.getJudgmentId("judgment-set-1", "computer", "doc1"));
+        Assertions.assertEquals(36, id.length());
+
+    }
+
+    @Test
+    public void testJudgmentIdIsUnique() {
+
+        final String id = Judgment.getJudgmentId("judgment-set-1", "computer", "doc1");
+
+        Assertions.assertNotEquals(id, Judgment.getJudgmentId("judgment-set-2", "computer", "doc1"));
+        Assertions.assertNotEquals(id, Judgment.getJudgmentId("judgment-set-1", "laptop", "doc1"));
+        Assertions.assertNotEquals(id, Judgment.getJudgmentId("judgment-set-1", "computer", "doc2"));
+
+        // The separator keeps the parts from running together.
+        Assertions.assertNotEquals(Judgment.getJudgmentId("set", "ab", "c"), Judgment.getJudgmentId("set", "a", "bc"));
+
+    }
+
+}
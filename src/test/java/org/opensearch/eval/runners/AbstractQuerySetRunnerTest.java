@@ -0,0 +1,71 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.runners;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.opensearch.eval.model.dao.querysets.QuerySetRunParameters;
+
+import java.util.List;
+
+public class AbstractQuerySetRunnerTest {
+
+    @Test
+    public void testSharedParameters() {
+
+        final QuerySetRunParameters first = getParameters("query-set", "judgments", null, "baseline");
+        final QuerySetRunParameters second = getParameters("query-set", "judgments", null, "challenger");
+
+        Assertions.assertSame(first, AbstractQuerySetRunner.getSharedParameters(List.of(first, second)));
+
+    }
+
+    @Test
+    public void testDifferentQuerySetIsRejected() {
+
+        final List<QuerySetRunParameters> parameters = List.of(getParameters("query-set", "judgments", null, "baseline"),
+                getParameters("other-query-set", "judgments", null, "challenger"));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> AbstractQuerySetRunner.getSharedParameters(parameters));
+
+    }
+
+    @Test
+    public void testDifferentJudgmentsAreRejected() {
+
+        final List<QuerySetRunParameters> differentJudgmentsId = List.of(getParameters("query-set", "judgments", null, "baseline"),
+                getParameters("query-set", "other-judgments", null, "challenger"));
+
+        final List<QuerySetRunParameters> differentJudgmentsFile = List.of(getParameters("query-set", "judgments", "a.judgments", "baseline"),
+                getParameters("query-set", "judgments", "b.judgments", "challenger"));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> AbstractQuerySetRunner.getSharedParameters(differentJudgmentsId));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> AbstractQuerySetRunner.getSharedParameters(differentJudgmentsFile));
+
+    }
+
+    @Test
+    public void testNoConfigurationsAreRejected() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> AbstractQuerySetRunner.getSharedParameters(List.of()));
+    }
+
+    private static QuerySetRunParameters getParameters(final String querySetId, final String judgmentsId, final String judgmentsFile,
+                                                       final String searchConfig) {
+
+        final QuerySetRunParameters querySetRunParameters = new QuerySetRunParameters();
+        querySetRunParameters.setQuerySetId(querySetId);
+        querySetRunParameters.setJudgmentsId(judgmentsId);
+        querySetRunParameters.setJudgmentsFile(judgmentsFile);
+        querySetRunParameters.setSearchConfig(searchConfig);
+
+        return querySetRunParameters;
+
+    }
+
+}
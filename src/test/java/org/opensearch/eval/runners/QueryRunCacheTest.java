@@ -0,0 +1,113 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.runners;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.opensearch.eval.model.QueryRun;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class QueryRunCacheTest {
+
+    private static final String QUERY = "{\"query\": {\"match\": {\"title\": \"computer\"}}}";
+
+    @Test
+    public void testGetAndPut() throws Exception {
+
+        final Path directory = Files.createTempDirectory("query-run-cache");
+
+        try {
+
+            final QueryRunCache queryRunCache = new QueryRunCache(directory, "ecommerce/abc/100/0:99;");
+
+            Assertions.assertNull(queryRunCache.get("ecommerce", QUERY, "computer", 10, "asin", ""));
+
+            queryRunCache.put("ecommerce", QUERY, "computer", 10, "asin", "", new QueryRun(List.of("B001", "B002"), 42));
+
+            final QueryRun queryRun = queryRunCache.get("ecommerce", QUERY, "computer", 10, "asin", "");
+
+            Assertions.assertNotNull(queryRun);
+            Assertions.assertEquals(List.of("B001", "B002"), queryRun.getDocumentIds());
+            Assertions.assertEquals(42, queryRun.getNumberOfResults());
+
+            // Any change to the key is a miss.
+            Assertions.assertNull(queryRunCache.get("ecommerce", QUERY, "computer", 5, "asin", ""));
+            Assertions.assertNull(queryRunCache.get("ecommerce", QUERY, "computer", 10, "asin", "hybrid"));
+            Assertions.assertNull(queryRunCache.get("ecommerce", QUERY.replace("title", "description"), "computer", 10, "asin", ""));
+
+            Assertions.assertEquals(1, queryRunCache.getHits());
+            Assertions.assertEquals(4, queryRunCache.getMisses());
+
+        } finally {
+
+            delete(directory);
+
+        }
+
+    }
+
+    @Test
+    public void testIndexChangeInvalidatesEntries() throws Exception {
+
+        final Path directory = Files.createTempDirectory("query-run-cache");
+
+        try {
+
+            new QueryRunCache(directory, "ecommerce/abc/100/0:99;")
+                    .put("ecommerce", QUERY, "computer", 10, "asin", "", new QueryRun(List.of("B001"), 1));
+
+            // The same fingerprint reads the entry written by an earlier run.
+            Assertions.assertNotNull(new QueryRunCache(directory, "ecommerce/abc/100/0:99;").get("ecommerce", QUERY, "computer", 10, "asin", ""));
+
+            // A write to the index changes the fingerprint.
+            Assertions.assertNull(new QueryRunCache(directory, "ecommerce/abc/101/0:100;").get("ecommerce", QUERY, "computer", 10, "asin", ""));
+
+        } finally {
+
+            delete(directory);
+
+        }
+
+    }
+
+    @Test
+    public void testErrorsAreNotCached() throws Exception {
+
+        final Path directory = Files.createTempDirectory("query-run-cache");
+
+        try {
+
+            final QueryRunCache queryRunCache = new QueryRunCache(directory, "ecommerce/abc/100/0:99;");
+            queryRunCache.put("ecommerce", QUERY, "computer", 10, "asin", "", new QueryRun("search_phase_execution_exception"));
+
+            Assertions.assertNull(queryRunCache.get("ecommerce", QUERY, "computer", 10, "asin", ""));
+
+        } finally {
+
+            delete(directory);
+
+        }
+
+    }
+
+    private static void delete(final Path directory) throws Exception {
+
+        try (final Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+
+    }
+
+}
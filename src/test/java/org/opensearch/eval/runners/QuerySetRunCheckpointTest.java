@@ -0,0 +1,85 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.runners;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.opensearch.eval.metrics.MetricAccumulator;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class QuerySetRunCheckpointTest {
+
+    @Test
+    public void testResumedMetricsAreIdentical() throws Exception {
+
+        final double[] values = new double[1000];
+        final Random random = new Random(7);
+
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextDouble();
+        }
+
+        // The metric of a run that does not fail.
+        final MetricAccumulator uninterrupted = new MetricAccumulator("ndcg");
+        for (final double value : values) {
+            uninterrupted.add(value);
+        }
+
+        // The metric of a run that is checkpointed halfway, fails, and is resumed.
+        final Map<String, MetricAccumulator> metrics = new LinkedHashMap<>();
+        metrics.put("ndcg", new MetricAccumulator("ndcg"));
+
+        for (int i = 0; i < 500; i++) {
+            metrics.get("ndcg").add(values[i]);
+        }
+
+        final Path directory = Files.createTempDirectory("query-set-run-checkpoint");
+        final Path path = QuerySetRunCheckpoint.getPath(directory, "run-1");
+
+        try {
+
+            new QuerySetRunCheckpoint("run-1", "query-set-1", values.length, 500, metrics).write(path);
+
+            final QuerySetRunCheckpoint checkpoint = QuerySetRunCheckpoint.read(path);
+
+            Assertions.assertEquals("run-1", checkpoint.getQuerySetRunId());
+            Assertions.assertEquals("query-set-1", checkpoint.getQuerySetId());
+            Assertions.assertEquals(values.length, checkpoint.getQuerySetSize());
+            Assertions.assertEquals(500, checkpoint.getQueryCount());
+
+            final MetricAccumulator resumed = checkpoint.getMetrics().get("ndcg");
+            for (int i = (int) checkpoint.getQueryCount(); i < values.length; i++) {
+                resumed.add(values[i]);
+            }
+
+            Assertions.assertEquals(uninterrupted.getCount(), resumed.getCount());
+            Assertions.assertEquals(uninterrupted.getMean(), resumed.getMean(), 0.0);
+            Assertions.assertEquals(uninterrupted.getVariance(), resumed.getVariance(), 0.0);
+            Assertions.assertEquals(uninterrupted.getMin(), resumed.getMin(), 0.0);
+            Assertions.assertEquals(uninterrupted.getMax(), resumed.getMax(), 0.0);
+
+            for (final double percentile : MetricAccumulator.DEFAULT_PERCENTILES) {
+                Assertions.assertEquals(uninterrupted.getPercentile(percentile), resumed.getPercentile(percentile), 0.0);
+            }
+
+        } finally {
+
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(directory);
+
+        }
+
+    }
+
+}
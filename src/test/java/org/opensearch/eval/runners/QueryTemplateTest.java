@@ -0,0 +1,73 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.runners;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class QueryTemplateTest {
+
+    private static final String QUERY = "{\"query\": {\"multi_match\": {\"query\": \"%SearchText%\", \"fields\": [\"title\", \"description\"]}}}";
+
+    @Test
+    public void testRender() {
+
+        final QueryTemplate queryTemplate = QueryTemplate.compile(QUERY);
+
+        Assertions.assertEquals(QUERY.replace("%SearchText%", "laptop"), queryTemplate.render("laptop"));
+
+    }
+
+    @Test
+    public void testRenderEscapesUserQuery() throws Exception {
+
+        final QueryTemplate queryTemplate = QueryTemplate.compile(QUERY);
+        final String userQuery = "27\" monitor \\ stand\n\u0001";
+
+        final JsonNode json = new ObjectMapper().readTree(queryTemplate.render(userQuery));
+
+        Assertions.assertEquals(userQuery, json.get("query").get("multi_match").get("query").asText());
+
+    }
+
+    @Test
+    public void testRenderMultiplePlaceholders() {
+
+        final QueryTemplate queryTemplate = QueryTemplate.compile("%SearchText%{\"a\": \"%SearchText%\", \"b\": \"%SearchText%\"}%SearchText%");
+
+        Assertions.assertEquals("x{\"a\": \"x\", \"b\": \"x\"}x", queryTemplate.render("x"));
+
+        final StringBuilder out = new StringBuilder("prefix ");
+        queryTemplate.render("y", out);
+
+        Assertions.assertEquals("prefix y{\"a\": \"y\", \"b\": \"y\"}y", out.toString());
+
+    }
+
+    @Test
+    public void testNoPlaceholder() {
+
+        final QueryTemplate queryTemplate = QueryTemplate.compile("{\"query\": {\"match_all\": {}}}");
+
+        Assertions.assertEquals("{\"query\": {\"match_all\": {}}}", queryTemplate.render("ignored"));
+
+    }
+
+    @Test
+    public void testReplacePlaceholders() {
+
+        final QueryTemplate queryTemplate = QueryTemplate.compile(QUERY);
+
+        Assertions.assertEquals(QUERY.replace("%SearchText%", "{{user_query}}"), queryTemplate.replacePlaceholders("{{user_query}}"));
+
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class BoundedCacheTest {
+
+    @Test
+    public void testEviction() throws Exception {
+
+        final BoundedCache<String, String> cache = new BoundedCache<>(2);
+
+        cache.get("a", k -> "A");
+        cache.get("b", k -> "B");
+
+        // Access "a" so "b" is the least recently used.
+        Assertions.assertEquals("A", cache.get("a", k -> "X"));
+
+        cache.get("c", k -> "C");
+
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertEquals(1, cache.getEvictionCount());
+        Assertions.assertEquals(1, cache.getHitCount());
+        Assertions.assertEquals(3, cache.getMissCount());
+
+        // "b" was evicted so it is loaded again.
+        Assertions.assertEquals("Y", cache.get("b", k -> "Y"));
+
+    }
+
+    @Test
+    public void testNullValuesAreNotCached() throws Exception {
+
+        final BoundedCache<String, String> cache = new BoundedCache<>(10);
+
+        Assertions.assertNull(cache.get("a", k -> null));
+        Assertions.assertEquals(0, cache.size());
+        Assertions.assertEquals("A", cache.get("a", k -> "A"));
+
+    }
+
+    @Test
+    public void testConcurrentMissesAreCoalesced() throws Exception {
+
+        final BoundedCache<String, String> cache = new BoundedCache<>(10);
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+        try {
+
+            final List<Future<String>> futures = new ArrayList<>();
+
+            for (int i = 0; i < 4; i++) {
+                futures.add(executorService.submit(() -> cache.get("a", k -> {
+                    loads.incrementAndGet();
+                    release.await(5, TimeUnit.SECONDS);
+                    return "A";
+                })));
+            }
+
+            // Give the other threads time to wait on the load in progress.
+            Thread.sleep(200);
+            release.countDown();
+
+            for (final Future<String> future : futures) {
+                Assertions.assertEquals("A", future.get());
+            }
+
+            Assertions.assertEquals(1, loads.get());
+
+        } finally {
+            executorService.shutdownNow();
+        }
+
+    }
+
+    @Test
+    public void testMissAfterLoadCompletesIsNotLoadedAgain() throws Exception {
+
+        final int keyCount = 20000;
+        final BoundedCache<Integer, Integer> cache = new BoundedCache<>(keyCount);
+        final AtomicIntegerArray loads = new AtomicIntegerArray(keyCount);
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+        try {
+
+            final List<Future<?>> futures = new ArrayList<>();
+
+            // Every thread gets every key, so misses often arrive just as another thread's load completes.
+            for (int i = 0; i < 4; i++) {
+                futures.add(executorService.submit(() -> {
+                    for (int key = 0; key < keyCount; key++) {
+                        cache.get(key, k -> {
+                            loads.incrementAndGet(k);
+                            return k;
+                        });
+                    }
+                    return null;
+                }));
+            }
+
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+
+            for (int key = 0; key < keyCount; key++) {
+                Assertions.assertEquals(1, loads.get(key));
+            }
+
+        } finally {
+            executorService.shutdownNow();
+        }
+
+    }
+
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright OpenSearch Contributors
+ * SPDX-License-Identifier: Apache-2.0
+ *
+ * The OpenSearch Contributors require contributions made to
+ * this file be licensed under the Apache-2.0 license or a
+ * compatible open source license.
+ */
+package org.opensearch.eval.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class StringDictionaryTest {
+
+    @Test
+    public void testAdd() {
+
+        final StringDictionary dictionary = new StringDictionary();
+
+        Assertions.assertEquals(0, dictionary.add("computer"));
+        Assertions.assertEquals(1, dictionary.add("laptop"));
+        Assertions.assertEquals(0, dictionary.add("computer"));
+
+        Assertions.assertEquals(2, dictionary.size());
+        Assertions.assertEquals("laptop", dictionary.get(1));
+        Assertions.assertEquals(1, dictionary.getId("laptop"));
+        Assertions.assertEquals(-1, dictionary.getId("tablet"));
+
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> dictionary.get(2));
+
+    }
+
+    @Test
+    public void testGrow() {
+
+        final StringDictionary dictionary = new StringDictionary();
+
+        for (int i = 0; i < 100_000; i++) {
+            Assertions.assertEquals(i, dictionary.add("query " + i));
+        }
+
+        Assertions.assertEquals(100_000, dictionary.size());
+
+        for (int i = 0; i < 100_000; i++) {
+            Assertions.assertEquals(i, dictionary.getId("query " + i));
+            Assertions.assertEquals("query " + i, dictionary.get(i));
+        }
+
+    }
+
+}